@@ -0,0 +1,87 @@
+package org.imitatespring.benchmark;
+
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.benchmark.support.SyntheticClassGenerator;
+import org.imitatespring.context.annotation.ClassPathBeanDefinitionScanner;
+import org.imitatespring.core.type.classreading.CachingMetadataReaderFactory;
+import org.imitatespring.core.type.classreading.MetadataReaderFactory;
+import org.imitatespring.core.type.classreading.SimpleMetadataReaderFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扫描生成的class文件, 每4个类中有一个@Component
+ * metadataCache为simple时每次都重新解析class文件, 为caching时使用共享的MetadataReader缓存
+ * @author liaocx
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComponentScanBenchmark {
+
+    @Param({"200", "2000"})
+    public int classCount;
+
+    @Param({"simple", "caching"})
+    public String metadataCache;
+
+    @Param({"1"})
+    public int scanParallelism;
+
+    private Path classesRoot;
+
+    private URLClassLoader classLoader;
+
+    private MetadataReaderFactory metadataReaderFactory;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.classesRoot = SyntheticClassGenerator.generateTemp(this.classCount, 4);
+        this.classLoader = new URLClassLoader(new URL[]{this.classesRoot.toUri().toURL()}, getClass().getClassLoader());
+        this.metadataReaderFactory = ("caching".equals(this.metadataCache) ?
+                new CachingMetadataReaderFactory(this.classCount * 2) : new SimpleMetadataReaderFactory());
+        int found = scan().size();
+        if (found != (this.classCount + 3) / 4) {
+            throw new IllegalStateException("expected " + ((this.classCount + 3) / 4) + " components but found " + found);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.classLoader.close();
+        SyntheticClassGenerator.delete(this.classesRoot);
+    }
+
+    @Benchmark
+    public Set<BeanDefinition> doScan() {
+        return scan();
+    }
+
+    /**
+     * 扫描器在构造时通过线程上下文ClassLoader定位包, 这里临时替换成能看到生成类的ClassLoader
+     */
+    private Set<BeanDefinition> scan() {
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        thread.setContextClassLoader(this.classLoader);
+        try {
+            ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(new DefaultBeanFactory());
+            scanner.setComponentsIndex(null);
+            scanner.setMetadataReaderFactory(this.metadataReaderFactory);
+            scanner.setScanParallelism(this.scanParallelism);
+            return scanner.doScan(SyntheticClassGenerator.BASE_PACKAGE);
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+}
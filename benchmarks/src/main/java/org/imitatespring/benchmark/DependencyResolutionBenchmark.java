@@ -0,0 +1,49 @@
+package org.imitatespring.benchmark;
+
+import org.imitatespring.benchmark.fixture.AutowiredService;
+import org.imitatespring.benchmark.fixture.Filler;
+import org.imitatespring.benchmark.fixture.SimpleDao;
+import org.imitatespring.beans.factory.config.DependencyDescriptor;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按类型解析依赖的开销随BeanDefinition数量的变化, 目标类型的bean注册在最后
+ * @author liaocx
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DependencyResolutionBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int definitionCount;
+
+    private DefaultBeanFactory factory;
+
+    private DependencyDescriptor descriptor;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        this.factory = new DefaultBeanFactory();
+        for (int i = 1; i < this.definitionCount; i++) {
+            this.factory.registerBeanDefinition("filler" + i, new GenericBeanDefinition("filler" + i, Filler.class.getName()));
+        }
+        this.factory.registerBeanDefinition("dao", new GenericBeanDefinition("dao", SimpleDao.class.getName()));
+        this.descriptor = new DependencyDescriptor(AutowiredService.class.getDeclaredField("dao"), true);
+        if (!(this.factory.resolveDependency(this.descriptor) instanceof SimpleDao)) {
+            throw new IllegalStateException("dependency was not resolved");
+        }
+    }
+
+    @Benchmark
+    public Object resolveDependency() {
+        return this.factory.resolveDependency(this.descriptor);
+    }
+}
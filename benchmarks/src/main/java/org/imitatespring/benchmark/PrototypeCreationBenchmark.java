@@ -0,0 +1,78 @@
+package org.imitatespring.benchmark;
+
+import org.imitatespring.benchmark.fixture.AutowiredService;
+import org.imitatespring.benchmark.fixture.ConstructorService;
+import org.imitatespring.benchmark.fixture.SetterService;
+import org.imitatespring.benchmark.fixture.SimpleDao;
+import org.imitatespring.beans.factory.annotation.AutowiredAnnotationProcessor;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.imitatespring.benchmark.support.SyntheticConfigGenerator;
+import org.imitatespring.core.io.FileSystemResource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * prototype bean的创建开销: setter注入、构造器注入、@Autowired字段注入
+ * compiledThreshold大于0时开启CompiledBeanAccessor
+ * @author liaocx
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrototypeCreationBenchmark {
+
+    @Param({"0", "100"})
+    public int compiledThreshold;
+
+    private DefaultBeanFactory factory;
+
+    @Setup
+    public void setUp() throws IOException {
+        //bean2是setter注入, bean1是构造器注入
+        File config = SyntheticConfigGenerator.writeTempBeans(3);
+        this.factory = new DefaultBeanFactory();
+        this.factory.setCompiledInstantiationThreshold(this.compiledThreshold);
+        new XmlBeanDefinitionReader(this.factory).loadBeanDefinitions(new FileSystemResource(config));
+
+        AutowiredAnnotationProcessor processor = new AutowiredAnnotationProcessor();
+        processor.setBeanFactory(this.factory);
+        this.factory.addBeanPostProcessor(processor);
+        BeanDefinition autowired = new GenericBeanDefinition("autowired", AutowiredService.class.getName());
+        autowired.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        this.factory.registerBeanDefinition("autowired", autowired);
+
+        check(((SetterService) this.factory.getBean("bean2")).getDao());
+        check(((ConstructorService) this.factory.getBean("bean1")).getDao());
+        check(((AutowiredService) this.factory.getBean("autowired")).getDao());
+    }
+
+    private static void check(SimpleDao dao) {
+        if (dao == null) {
+            throw new IllegalStateException("dependency was not injected");
+        }
+    }
+
+    @Benchmark
+    public Object setterInjection() {
+        return this.factory.getBean("bean2");
+    }
+
+    @Benchmark
+    public Object constructorInjection() {
+        return this.factory.getBean("bean1");
+    }
+
+    @Benchmark
+    public Object autowiredInjection() {
+        return this.factory.getBean("autowired");
+    }
+}
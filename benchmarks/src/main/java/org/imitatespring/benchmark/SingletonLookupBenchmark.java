@@ -0,0 +1,67 @@
+package org.imitatespring.benchmark;
+
+import org.imitatespring.benchmark.fixture.SimpleDao;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已经创建好的单例的getBean开销: 普通模式、冻结配置后按名称、冻结配置后按编号
+ * @author liaocx
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SingletonLookupBenchmark {
+
+    @Param({"1000"})
+    public int beanCount;
+
+    private DefaultBeanFactory factory;
+
+    private DefaultBeanFactory frozenFactory;
+
+    private String beanName;
+
+    private int beanIndex;
+
+    @Setup
+    public void setUp() {
+        this.factory = createFactory(this.beanCount);
+        this.frozenFactory = createFactory(this.beanCount);
+        this.frozenFactory.freezeConfiguration();
+        this.beanName = "bean" + (this.beanCount / 2);
+        this.beanIndex = this.frozenFactory.getBeanIndex(this.beanName);
+    }
+
+    private static DefaultBeanFactory createFactory(int beanCount) {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        for (int i = 0; i < beanCount; i++) {
+            factory.registerBeanDefinition("bean" + i, new GenericBeanDefinition("bean" + i, SimpleDao.class.getName()));
+        }
+        for (int i = 0; i < beanCount; i++) {
+            factory.getBean("bean" + i);
+        }
+        return factory;
+    }
+
+    @Benchmark
+    public Object getBeanByName() {
+        return this.factory.getBean(this.beanName);
+    }
+
+    @Benchmark
+    public Object getBeanByNameFrozen() {
+        return this.frozenFactory.getBean(this.beanName);
+    }
+
+    @Benchmark
+    public Object getBeanByIndexFrozen() {
+        return this.frozenFactory.getBean(this.beanIndex);
+    }
+}
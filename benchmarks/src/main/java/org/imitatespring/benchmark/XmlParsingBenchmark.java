@@ -0,0 +1,41 @@
+package org.imitatespring.benchmark;
+
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.imitatespring.benchmark.support.SyntheticConfigGenerator;
+import org.imitatespring.core.io.FileSystemResource;
+import org.imitatespring.core.io.Resource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解析生成的大型XML配置文件并注册BeanDefinition
+ * @author liaocx
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlParsingBenchmark {
+
+    @Param({"1000", "20000"})
+    public int beanCount;
+
+    private Resource resource;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.resource = new FileSystemResource(SyntheticConfigGenerator.writeTempBeans(this.beanCount));
+    }
+
+    @Benchmark
+    public DefaultBeanFactory loadBeanDefinitions() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        new XmlBeanDefinitionReader(factory).loadBeanDefinitions(this.resource);
+        return factory;
+    }
+}
@@ -0,0 +1,13 @@
+package org.imitatespring.benchmark.fixture;
+
+import org.imitatespring.beans.factory.annotation.Autowired;
+
+public class AutowiredService {
+
+    @Autowired
+    private SimpleDao dao;
+
+    public SimpleDao getDao() {
+        return dao;
+    }
+}
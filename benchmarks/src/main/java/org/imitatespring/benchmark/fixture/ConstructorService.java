@@ -0,0 +1,28 @@
+package org.imitatespring.benchmark.fixture;
+
+public class ConstructorService {
+
+    private final SimpleDao dao;
+
+    private final String name;
+
+    private final int count;
+
+    public ConstructorService(SimpleDao dao, String name, int count) {
+        this.dao = dao;
+        this.name = name;
+        this.count = count;
+    }
+
+    public SimpleDao getDao() {
+        return dao;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,7 @@
+package org.imitatespring.benchmark.fixture;
+
+/**
+ * 只用于填充BeanDefinition数量
+ */
+public class Filler {
+}
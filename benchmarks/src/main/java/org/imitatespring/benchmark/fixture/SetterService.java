@@ -0,0 +1,34 @@
+package org.imitatespring.benchmark.fixture;
+
+public class SetterService {
+
+    private SimpleDao dao;
+
+    private String name;
+
+    private int count;
+
+    public SimpleDao getDao() {
+        return dao;
+    }
+
+    public void setDao(SimpleDao dao) {
+        this.dao = dao;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
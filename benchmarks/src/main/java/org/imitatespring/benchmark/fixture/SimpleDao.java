@@ -0,0 +1,4 @@
+package org.imitatespring.benchmark.fixture;
+
+public class SimpleDao {
+}
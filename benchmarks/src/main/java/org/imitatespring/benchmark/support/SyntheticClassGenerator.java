@@ -0,0 +1,91 @@
+package org.imitatespring.benchmark.support;
+
+import org.imitatespring.stereotype.Component;
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.FieldVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 用ASM生成扫描基准测试用的class文件, 不需要加载这些类, 扫描只读取class文件
+ * @author liaocx
+ */
+public abstract class SyntheticClassGenerator {
+
+    public static final String BASE_PACKAGE = "org.imitatespring.benchmark.synthetic";
+
+    private static final String COMPONENT_DESC = Type.getDescriptor(Component.class);
+
+    /**
+     * 在root目录下生成classCount个类, 平均分布在10个子包中, 每componentRatio个类中有一个标注@Component
+     * @param root classpath根目录
+     * @param classCount
+     * @param componentRatio
+     * @return root
+     */
+    public static Path generate(Path root, int classCount, int componentRatio) throws IOException {
+        for (int i = 0; i < classCount; i++) {
+            String internalName = BASE_PACKAGE.replace('.', '/') + "/p" + (i % 10) + "/Synthetic" + i;
+            Path file = root.resolve(internalName + ".class");
+            Files.createDirectories(file.getParent());
+            Files.write(file, generateClass(internalName, i % componentRatio == 0));
+        }
+        return root;
+    }
+
+    public static Path generateTemp(int classCount, int componentRatio) throws IOException {
+        Path root = Files.createTempDirectory("benchmark-classes-" + classCount + "-");
+        root.toFile().deleteOnExit();
+        return generate(root, classCount, componentRatio);
+    }
+
+    /**
+     * 生成一个带有几个字段和getter的普通类, 体积接近真实的业务类
+     */
+    private static byte[] generateClass(String internalName, boolean component) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null, "java/lang/Object", null);
+        if (component) {
+            AnnotationVisitor av = cw.visitAnnotation(COMPONENT_DESC, true);
+            av.visitEnd();
+        }
+        MethodVisitor init = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+        for (int f = 0; f < 5; f++) {
+            String fieldName = "field" + f;
+            FieldVisitor fv = cw.visitField(Opcodes.ACC_PRIVATE, fieldName, "Ljava/lang/String;", null, null);
+            fv.visitEnd();
+            MethodVisitor getter = cw.visitMethod(Opcodes.ACC_PUBLIC, "getField" + f, "()Ljava/lang/String;", null, null);
+            getter.visitCode();
+            getter.visitVarInsn(Opcodes.ALOAD, 0);
+            getter.visitFieldInsn(Opcodes.GETFIELD, internalName, fieldName, "Ljava/lang/String;");
+            getter.visitInsn(Opcodes.ARETURN);
+            getter.visitMaxs(0, 0);
+            getter.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * 测试结束后删除生成的目录
+     */
+    public static void delete(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        Files.walk(root).sorted((a, b) -> b.compareTo(a)).map(Path::toFile).forEach(File::delete);
+    }
+}
@@ -0,0 +1,66 @@
+package org.imitatespring.benchmark.support;
+
+import org.imitatespring.benchmark.fixture.ConstructorService;
+import org.imitatespring.benchmark.fixture.SetterService;
+import org.imitatespring.benchmark.fixture.SimpleDao;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * 生成基准测试用的XML配置文件
+ * @author liaocx
+ */
+public abstract class SyntheticConfigGenerator {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<beans xmlns=\"http://www.springframework.org/schema/beans\"\n"
+            + "       xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+            + "       xsi:schemaLocation=\"http://www.springframework.org/schema/beans\n"
+            + "            http://www.springframework.org/schema/beans/spring-beans.xsd\">\n";
+
+    private static final String FOOTER = "</beans>\n";
+
+    /**
+     * 生成beanCount个bean: 一个dao, 其余交替使用setter注入和构造器注入, 都依赖这个dao
+     * @param file 输出的文件
+     * @param beanCount bean的数量
+     * @return file
+     */
+    public static File writeBeans(File file, int beanCount) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write("    <bean id=\"dao\" class=\"" + SimpleDao.class.getName() + "\"/>\n");
+            for (int i = 1; i < beanCount; i++) {
+                if (i % 2 == 0) {
+                    writer.write("    <bean id=\"bean" + i + "\" class=\"" + SetterService.class.getName() + "\" scope=\"prototype\">\n");
+                    writer.write("        <property name=\"dao\" ref=\"dao\"/>\n");
+                    writer.write("        <property name=\"name\" value=\"bean" + i + "\"/>\n");
+                    writer.write("        <property name=\"count\" value=\"" + i + "\"/>\n");
+                } else {
+                    writer.write("    <bean id=\"bean" + i + "\" class=\"" + ConstructorService.class.getName() + "\" scope=\"prototype\">\n");
+                    writer.write("        <constructor-arg ref=\"dao\"/>\n");
+                    writer.write("        <constructor-arg value=\"bean" + i + "\"/>\n");
+                    writer.write("        <constructor-arg value=\"" + i + "\"/>\n");
+                }
+                writer.write("    </bean>\n");
+            }
+            writer.write(FOOTER);
+        }
+        return file;
+    }
+
+    /**
+     * 在临时目录中生成配置文件, JVM退出时删除
+     * @param beanCount
+     * @return
+     */
+    public static File writeTempBeans(int beanCount) throws IOException {
+        File file = File.createTempFile("benchmark-beans-" + beanCount + "-", ".xml");
+        file.deleteOnExit();
+        return writeBeans(file, beanCount);
+    }
+}
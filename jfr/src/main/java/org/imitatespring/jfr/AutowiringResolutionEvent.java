@@ -0,0 +1,30 @@
+package org.imitatespring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.imitatespring.core.metrics.ApplicationStartup;
+
+/**
+ * @author liaocx
+ */
+@Name("org.imitatespring.AutowiringResolution")
+@Label("Autowiring Resolution")
+@Description("Resolution of an autowired dependency, including creation of the candidate bean")
+class AutowiringResolutionEvent extends ContainerEvent {
+
+    @Label("Dependency Type")
+    String dependencyType;
+
+    @Label("Resolved Bean Name")
+    String beanName;
+
+    @Override
+    void tag(String key, String value) {
+        if (ApplicationStartup.TAG_DEPENDENCY_TYPE.equals(key)) {
+            this.dependencyType = value;
+        } else if (ApplicationStartup.TAG_BEAN_NAME.equals(key)) {
+            this.beanName = value;
+        }
+    }
+}
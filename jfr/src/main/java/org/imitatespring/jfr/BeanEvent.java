@@ -0,0 +1,31 @@
+package org.imitatespring.jfr;
+
+import jdk.jfr.Label;
+import org.imitatespring.core.metrics.ApplicationStartup;
+
+/**
+ * bean实例化和属性注入事件的公共字段
+ * @author liaocx
+ */
+abstract class BeanEvent extends ContainerEvent {
+
+    @Label("Bean Name")
+    String beanName;
+
+    @Label("Bean Class")
+    String beanClass;
+
+    @Label("Scope")
+    String scope;
+
+    @Override
+    void tag(String key, String value) {
+        if (ApplicationStartup.TAG_BEAN_NAME.equals(key)) {
+            this.beanName = value;
+        } else if (ApplicationStartup.TAG_BEAN_CLASS.equals(key)) {
+            this.beanClass = value;
+        } else if (ApplicationStartup.TAG_SCOPE.equals(key)) {
+            this.scope = value;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.imitatespring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author liaocx
+ */
+@Name("org.imitatespring.BeanInstantiation")
+@Label("Bean Instantiation")
+@Description("Constructor or compiled instantiator invocation of a bean")
+class BeanInstantiationEvent extends BeanEvent {
+}
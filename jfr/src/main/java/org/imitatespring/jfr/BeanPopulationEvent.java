@@ -0,0 +1,14 @@
+package org.imitatespring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * @author liaocx
+ */
+@Name("org.imitatespring.BeanPopulation")
+@Label("Bean Population")
+@Description("Property injection and post processing of a bean instance")
+class BeanPopulationEvent extends BeanEvent {
+}
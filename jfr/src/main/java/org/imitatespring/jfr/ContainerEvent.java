@@ -0,0 +1,19 @@
+package org.imitatespring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+
+/**
+ * 容器步骤对应的JFR事件, 持续时间由JFR在begin和commit之间记录
+ * @author liaocx
+ */
+@Category({"ImitateSpring", "Container"})
+abstract class ContainerEvent extends Event {
+
+    /**
+     * 把{@link org.imitatespring.core.metrics.StartupStep#tag(String, String)}的信息写入事件字段, 不认识的key忽略
+     * @param key
+     * @param value
+     */
+    abstract void tag(String key, String value);
+}
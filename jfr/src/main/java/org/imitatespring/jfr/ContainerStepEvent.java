@@ -0,0 +1,31 @@
+package org.imitatespring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 没有专门事件类型的步骤, tag拼接成key=value的形式
+ * @author liaocx
+ */
+@Name("org.imitatespring.ContainerStep")
+@Label("Container Step")
+@Description("Container step without a dedicated event type")
+class ContainerStepEvent extends ContainerEvent {
+
+    @Label("Step Name")
+    String name;
+
+    @Label("Tags")
+    String tags;
+
+    ContainerStepEvent(String name) {
+        this.name = name;
+    }
+
+    @Override
+    void tag(String key, String value) {
+        String tag = key + "=" + value;
+        this.tags = (this.tags == null ? tag : this.tags + ", " + tag);
+    }
+}
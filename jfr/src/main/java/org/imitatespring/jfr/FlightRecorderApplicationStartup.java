@@ -0,0 +1,60 @@
+package org.imitatespring.jfr;
+
+import org.imitatespring.core.metrics.ApplicationStartup;
+import org.imitatespring.core.metrics.ApplicationStartups;
+import org.imitatespring.core.metrics.StartupStep;
+
+/**
+ * 把容器的步骤记录为JDK Flight Recorder事件, 通过META-INF/services注册, 放到classpath上即生效
+ * 事件没有在当前的recording中启用时返回什么也不做的步骤, 开销只有一次事件对象的分配
+ * @author liaocx
+ */
+public class FlightRecorderApplicationStartup implements ApplicationStartup {
+
+    @Override
+    public StartupStep start(String name) {
+        ContainerEvent event = createEvent(name);
+        if (!event.isEnabled()) {
+            return ApplicationStartups.DEFAULT.start(name);
+        }
+        event.begin();
+        return new FlightRecorderStartupStep(event);
+    }
+
+    private static ContainerEvent createEvent(String name) {
+        switch (name) {
+            case BEAN_INSTANTIATE:
+                return new BeanInstantiationEvent();
+            case BEAN_POPULATE:
+                return new BeanPopulationEvent();
+            case BEAN_AUTOWIRE:
+                return new AutowiringResolutionEvent();
+            case METADATA_READ:
+                return new MetadataReadEvent();
+            case XML_LOAD:
+                return new XmlLoadEvent();
+            default:
+                return new ContainerStepEvent(name);
+        }
+    }
+
+    private static class FlightRecorderStartupStep implements StartupStep {
+
+        private final ContainerEvent event;
+
+        FlightRecorderStartupStep(ContainerEvent event) {
+            this.event = event;
+        }
+
+        @Override
+        public StartupStep tag(String key, String value) {
+            this.event.tag(key, value);
+            return this;
+        }
+
+        @Override
+        public void end() {
+            this.event.commit();
+        }
+    }
+}
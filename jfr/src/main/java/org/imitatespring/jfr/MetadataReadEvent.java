@@ -0,0 +1,36 @@
+package org.imitatespring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.imitatespring.core.metrics.ApplicationStartup;
+
+/**
+ * @author liaocx
+ */
+@Name("org.imitatespring.MetadataRead")
+@Label("Class Metadata Read")
+@Description("ASM parse of a class file by SimpleMetadataReader")
+class MetadataReadEvent extends ContainerEvent {
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Class Name")
+    String className;
+
+    @Label("Pass")
+    @Description("header: class header and annotation types, annotations: full annotation attributes")
+    String pass;
+
+    @Override
+    void tag(String key, String value) {
+        if (ApplicationStartup.TAG_RESOURCE.equals(key)) {
+            this.resource = value;
+        } else if (ApplicationStartup.TAG_CLASS_NAME.equals(key)) {
+            this.className = value;
+        } else if (ApplicationStartup.TAG_PASS.equals(key)) {
+            this.pass = value;
+        }
+    }
+}
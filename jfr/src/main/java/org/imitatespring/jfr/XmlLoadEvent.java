@@ -0,0 +1,30 @@
+package org.imitatespring.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.imitatespring.core.metrics.ApplicationStartup;
+
+/**
+ * @author liaocx
+ */
+@Name("org.imitatespring.XmlLoad")
+@Label("XML Bean Definitions Load")
+@Description("Parsing of an XML configuration file, including component scanning it triggers")
+class XmlLoadEvent extends ContainerEvent {
+
+    @Label("Resource")
+    String resource;
+
+    @Label("Bean Count")
+    int beanCount;
+
+    @Override
+    void tag(String key, String value) {
+        if (ApplicationStartup.TAG_RESOURCE.equals(key)) {
+            this.resource = value;
+        } else if (ApplicationStartup.TAG_BEAN_COUNT.equals(key)) {
+            this.beanCount = Integer.parseInt(value);
+        }
+    }
+}
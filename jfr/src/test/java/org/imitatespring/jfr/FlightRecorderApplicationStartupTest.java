@@ -0,0 +1,88 @@
+package org.imitatespring.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.imitatespring.context.support.ClassPathXmlApplicationContext;
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.core.metrics.ApplicationStartups;
+import org.imitatespring.core.type.classreading.SimpleMetadataReader;
+import org.imitatespring.jfr.fixture.Service;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 容器步骤被记录为JFR事件
+ */
+public class FlightRecorderApplicationStartupTest {
+
+    private static final String[] EVENT_NAMES = {
+            "org.imitatespring.BeanInstantiation",
+            "org.imitatespring.BeanPopulation",
+            "org.imitatespring.AutowiringResolution",
+            "org.imitatespring.MetadataRead",
+            "org.imitatespring.XmlLoad"
+    };
+
+    @Test
+    public void testLoadedFromServiceLoader() {
+        assertTrue(ApplicationStartups.get() instanceof FlightRecorderApplicationStartup);
+    }
+
+    @Test
+    public void testRecordContainerEvents() throws Exception {
+        List<RecordedEvent> events;
+        Path file = Files.createTempFile("imitatespring", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : EVENT_NAMES) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            ClassPathXmlApplicationContext ctx = new ClassPathXmlApplicationContext("jfr-beans.xml");
+            Service service = (Service) ctx.getBean("service");
+            assertNotNull(service.getRepository());
+            //commons-logging的class文件版本是ASM可以解析的
+            new SimpleMetadataReader(new ClassPathResource("org/apache/commons/logging/Log.class"));
+            recording.stop();
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        RecordedEvent xmlLoad = single(events, "org.imitatespring.XmlLoad");
+        assertTrue(xmlLoad.getString("resource").contains("jfr-beans.xml"));
+        assertEquals(2, xmlLoad.getInt("beanCount"));
+
+        RecordedEvent metadataRead = single(events, "org.imitatespring.MetadataRead");
+        assertEquals("org.apache.commons.logging.Log", metadataRead.getString("className"));
+        assertEquals("header", metadataRead.getString("pass"));
+
+        RecordedEvent instantiation = events(events, "org.imitatespring.BeanInstantiation").stream()
+                .filter(event -> "service".equals(event.getString("beanName"))).findFirst().get();
+        assertEquals(Service.class.getName(), instantiation.getString("beanClass"));
+        assertFalse(instantiation.getDuration().isNegative());
+        assertEquals(2, events(events, "org.imitatespring.BeanPopulation").size());
+
+        RecordedEvent autowiring = single(events, "org.imitatespring.AutowiringResolution");
+        assertEquals("repository", autowiring.getString("beanName"));
+        assertEquals("org.imitatespring.jfr.fixture.Repository", autowiring.getString("dependencyType"));
+    }
+
+    private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matched = events(events, name);
+        assertEquals(name, 1, matched.size());
+        return matched.get(0);
+    }
+}
@@ -0,0 +1,4 @@
+package org.imitatespring.jfr.fixture;
+
+public class Repository {
+}
@@ -0,0 +1,13 @@
+package org.imitatespring.jfr.fixture;
+
+import org.imitatespring.beans.factory.annotation.Autowired;
+
+public class Service {
+
+    @Autowired
+    private Repository repository;
+
+    public Repository getRepository() {
+        return repository;
+    }
+}
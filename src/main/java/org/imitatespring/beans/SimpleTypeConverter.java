@@ -1,82 +1,53 @@
 package org.imitatespring.beans;
-import java.beans.PropertyEditor;
-import java.util.HashMap;
-import java.util.Map;
 
-import org.imitatespring.beans.propertyeditors.CustomBooleanEditor;
-import org.imitatespring.beans.propertyeditors.CustomNumberEditor;
+import org.imitatespring.core.convert.ConversionFailedException;
+import org.imitatespring.core.convert.ConversionService;
+import org.imitatespring.core.convert.support.DefaultConversionService;
+import org.imitatespring.util.Assert;
 import org.imitatespring.util.ClassUtils;
 
 /**
  * 类型转化, 如果是定义的各种bean的引用数据类型, 直接返回
+ * 具体的转换交给线程安全的ConversionService, 默认使用共享的DefaultConversionService, 本身也可以多线程共用
  * @author liaocx
  */
 public class SimpleTypeConverter implements TypeConverter {
 
-    private Map<Class<?>, PropertyEditor> defaultEditors;
+    private final ConversionService conversionService;
 
-    public SimpleTypeConverter(){
+    public SimpleTypeConverter() {
+        this(DefaultConversionService.getSharedInstance());
+    }
 
+    public SimpleTypeConverter(ConversionService conversionService) {
+        Assert.notNull(conversionService, "ConversionService must not be null");
+        this.conversionService = conversionService;
     }
 
     @Override
     public <T> T convertIfNecessary(Object value, Class<T> requiredType) throws TypeMismatchException {
         //判断传入的value值的类型和requiredType是否匹配
-        if(ClassUtils.isAssignableValue(requiredType, value)){
-            return (T)value;
-        } else{
-            if(value instanceof String){
-                PropertyEditor editor = findDefaultEditor(requiredType);
-                try{
-                    editor.setAsText((String)value);
-                }catch(IllegalArgumentException e){
-                    throw new TypeMismatchException(value, requiredType);
-                }
-                return (T)editor.getValue();
-            } else{
-                throw new RuntimeException("Todo : can't convert value for " + value + " class:" + requiredType);
-            }
+        if (ClassUtils.isAssignableValue(requiredType, value)) {
+            return (T) value;
         }
-    }
-    private PropertyEditor findDefaultEditor(Class<?> requiredType) {
-        PropertyEditor editor = getDefaultEditor(requiredType);
-        if(editor == null){
-            throw new RuntimeException("Editor for " + requiredType + " has not been implemented");
+        try {
+            return this.conversionService.convert(value, requiredType);
+        } catch (ConversionFailedException e) {
+            throw new TypeMismatchException(value, requiredType, e);
         }
-        return editor;
     }
 
-    public PropertyEditor getDefaultEditor(Class<?> requiredType) {
-
-        if (this.defaultEditors == null) {
-            createDefaultEditors();
-        }
-        return this.defaultEditors.get(requiredType);
+    /**
+     * 判断sourceType类型的值能否转换成requiredType
+     * @param sourceType
+     * @param requiredType
+     * @return
+     */
+    public boolean canConvert(Class<?> sourceType, Class<?> requiredType) {
+        return this.conversionService.canConvert(sourceType, requiredType);
     }
 
-    private void createDefaultEditors() {
-        this.defaultEditors = new HashMap<Class<?>, PropertyEditor>(64);
-
-        // Spring's CustomBooleanEditor accepts more flag values than the JDK's default editor.
-        this.defaultEditors.put(boolean.class, new CustomBooleanEditor(false));
-        this.defaultEditors.put(Boolean.class, new CustomBooleanEditor(true));
-
-        // The JDK does not contain default editors for number wrapper types!
-        // Override JDK primitive number editors with our own CustomNumberEditor.
-		/*this.defaultEditors.put(byte.class, new CustomNumberEditor(Byte.class, false));
-		this.defaultEditors.put(Byte.class, new CustomNumberEditor(Byte.class, true));
-		this.defaultEditors.put(short.class, new CustomNumberEditor(Short.class, false));
-		this.defaultEditors.put(Short.class, new CustomNumberEditor(Short.class, true));*/
-        this.defaultEditors.put(int.class, new CustomNumberEditor(Integer.class, false));
-        this.defaultEditors.put(Integer.class, new CustomNumberEditor(Integer.class, true));
-		/*this.defaultEditors.put(long.class, new CustomNumberEditor(Long.class, false));
-		this.defaultEditors.put(Long.class, new CustomNumberEditor(Long.class, true));
-		this.defaultEditors.put(float.class, new CustomNumberEditor(Float.class, false));
-		this.defaultEditors.put(Float.class, new CustomNumberEditor(Float.class, true));
-		this.defaultEditors.put(double.class, new CustomNumberEditor(Double.class, false));
-		this.defaultEditors.put(Double.class, new CustomNumberEditor(Double.class, true));
-		this.defaultEditors.put(BigDecimal.class, new CustomNumberEditor(BigDecimal.class, true));
-		this.defaultEditors.put(BigInteger.class, new CustomNumberEditor(BigInteger.class, true));*/
+    public ConversionService getConversionService() {
+        return this.conversionService;
     }
-
 }
@@ -11,6 +11,12 @@ public class TypeMismatchException extends BeansException {
         this.requiredType = requiredType;
     }
 
+    public TypeMismatchException(Object value, Class<?> requiredType, Throwable cause) {
+        super("Failed to convert value :"+value + "to type "+requiredType, cause);
+        this.value = value;
+        this.requiredType = requiredType;
+    }
+
     public Object getValue() {
         return value;
     }
@@ -0,0 +1,16 @@
+package org.imitatespring.beans.factory;
+
+/**
+ * 获取一个正在创建中的bean时抛出, 例如同一个线程中出现循环依赖, 或者多个线程创建单例时互相等待
+ * @author liaocx
+ */
+public class BeanCurrentlyInCreationException extends BeanCreationException {
+
+    public BeanCurrentlyInCreationException(String beanName) {
+        super(beanName, "Requested bean is currently in creation: Is there an unresolvable circular reference?");
+    }
+
+    public BeanCurrentlyInCreationException(String beanName, String msg) {
+        super(beanName, msg);
+    }
+}
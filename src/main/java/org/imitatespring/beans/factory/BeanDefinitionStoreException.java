@@ -8,6 +8,10 @@ import org.imitatespring.beans.BeansException;
  */
 public class BeanDefinitionStoreException extends BeansException {
 
+    public BeanDefinitionStoreException(String msg) {
+        super(msg);
+    }
+
     public BeanDefinitionStoreException(String msg, Throwable cause) {
         super(msg, cause);
     }
@@ -15,6 +15,7 @@ import java.lang.reflect.Modifier;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AutowiredAnnotationProcessor implements InstantiationAwareBeanPostProcessor {
 
@@ -26,6 +27,22 @@ public class AutowiredAnnotationProcessor implements InstantiationAwareBeanPostP
 
     private final Set<Class<? extends Annotation>> autowiredAnnotationTypes = new LinkedHashSet<>();
 
+    /**
+     * 按Class缓存解析好的InjectionMetadata, 值保存在bean的Class中, 所以不能引用processor或者factory,
+     * 否则只要bean的Class还被加载着, 整个容器就一直可达
+     */
+    private final ClassValue<InjectionMetadata> injectionMetadataCache = new ClassValue<InjectionMetadata>() {
+        @Override
+        protected InjectionMetadata computeValue(Class<?> type) {
+            metadataCacheMisses.increment();
+            return buildAutowiringMetadata(type);
+        }
+    };
+
+    private final LongAdder metadataCacheLookups = new LongAdder();
+
+    private final LongAdder metadataCacheMisses = new LongAdder();
+
     public AutowiredAnnotationProcessor() {
         this.autowiredAnnotationTypes.add(Autowired.class);
     }
@@ -47,7 +64,8 @@ public class AutowiredAnnotationProcessor implements InstantiationAwareBeanPostP
                     }
                     //非静态, 判断其required属性
                     boolean required = determineRequiredStatus(ann);
-                    currElements.add(new AutowiredFieldElement(field, required, beanFactory));
+                    //缓存的element不能持有factory, 否则ClassValue会让factory和整个容器一直可达
+                    currElements.add(new AutowiredFieldElement(field, required));
                 }
             }
             for (Method method : targetClass.getDeclaredMethods()) {
@@ -60,6 +78,24 @@ public class AutowiredAnnotationProcessor implements InstantiationAwareBeanPostP
         return new InjectionMetadata(clazz, elements);
     }
 
+    /**
+     * 从缓存中获取一个类的InjectionMetadata, 每个类只会解析一次
+     * @param clazz
+     * @return
+     */
+    public InjectionMetadata findAutowiringMetadata(Class<?> clazz) {
+        this.metadataCacheLookups.increment();
+        return this.injectionMetadataCache.get(clazz);
+    }
+
+    public long getMetadataCacheHitCount() {
+        return this.metadataCacheLookups.sum() - this.metadataCacheMisses.sum();
+    }
+
+    public long getMetadataCacheMissCount() {
+        return this.metadataCacheMisses.sum();
+    }
+
     protected boolean determineRequiredStatus(Annotation ann) {
         try {
             Method method = ReflectionUtils.findMethod(ann.annotationType(), this.requiredParameterName);
@@ -91,35 +127,19 @@ public class AutowiredAnnotationProcessor implements InstantiationAwareBeanPostP
         this.beanFactory = beanFactory;
     }
 
+    /**
+     * 没有需要注入的属性的类不会调用postProcessPropertyValues
+     */
     @Override
-    public Object beforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
-        //do nothing
-        return null;
-    }
-
-    @Override
-    public boolean afterInstantiation(Object bean, String beanName) throws BeansException {
-        //do nothing
-        return false;
-    }
-
-    @Override
-    public Object beforeInitializaion(Object bean, String beanName) throws BeansException {
-        //do nothing
-        return bean;
-    }
-
-    @Override
-    public Object afterInitializaion(Object bean, String beanName) throws BeansException {
-        //do nothing
-        return bean;
+    public boolean isApplicable(Class<?> beanClass) {
+        return !findAutowiringMetadata(beanClass).getInjectionElements().isEmpty();
     }
 
     @Override
     public void postProcessPropertyValues(Object bean, String beanName) throws BeansException {
-        InjectionMetadata metadata = buildAutowiringMetadata(bean.getClass());
+        InjectionMetadata metadata = findAutowiringMetadata(bean.getClass());
         try {
-            metadata.inject(bean);
+            metadata.inject(bean, this.beanFactory);
         } catch (Throwable t) {
             throw new BeanCreationException(beanName, "Injection of autowired dependencies failed", t);
         }
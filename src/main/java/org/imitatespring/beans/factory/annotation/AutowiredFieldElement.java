@@ -12,6 +12,11 @@ public class AutowiredFieldElement extends InjectionElement {
 
     private boolean required;
 
+    public AutowiredFieldElement(Field field, boolean required) {
+        super(field);
+        this.required = required;
+    }
+
     public AutowiredFieldElement(Field field, boolean required, AutowireCapableBeanFactory factory) {
         super(field, factory);
         this.required = required;
@@ -24,13 +29,14 @@ public class AutowiredFieldElement extends InjectionElement {
     /**
      * 从Factory中找到依赖的Bean, 调用Field的setter方法
      * @param target 需要被注入的目标类
+     * @param factory
      */
     @Override
-    public void inject(Object target) {
+    public void inject(Object target, AutowireCapableBeanFactory factory) {
         Field field = getField();
         try {
             DependencyDescriptor descriptor = new DependencyDescriptor(field, this.required);
-            Object value = super.factory.resolveDependency(descriptor);
+            Object value = factory.resolveDependency(descriptor);
             if (value != null) {
                 ReflectionUtils.makeAccessible(field);
                 field.set(target, value);
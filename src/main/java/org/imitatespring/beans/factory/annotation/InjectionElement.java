@@ -13,18 +13,31 @@ public abstract class InjectionElement {
     protected Member member;
 
     /**
-     * 注入时需要用到
+     * 调用{@link #inject(Object)}时使用的factory, 缓存的element不持有factory, 为null
      */
     protected AutowireCapableBeanFactory factory;
 
+    InjectionElement(Member member) {
+        this(member, null);
+    }
+
     InjectionElement(Member member, AutowireCapableBeanFactory factory) {
         this.member = member;
         this.factory = factory;
     }
 
+    /**
+     * 使用创建element时传入的factory注入依赖
+     * @param target
+     */
+    public void inject(Object target) {
+        inject(target, this.factory);
+    }
+
     /**
      * 抽象的注入依赖的方法, 具体的实现在继承了这个抽象类的类中
      * @param target
+     * @param factory 用于获取依赖的bean
      */
-    public abstract void inject(Object target);
+    public abstract void inject(Object target, AutowireCapableBeanFactory factory);
 }
@@ -1,5 +1,7 @@
 package org.imitatespring.beans.factory.annotation;
 
+import org.imitatespring.beans.factory.config.AutowireCapableBeanFactory;
+
 import java.util.LinkedList;
 
 public class InjectionMetadata {
@@ -33,4 +35,18 @@ public class InjectionMetadata {
             ele.inject(target);
         }
     }
+
+    /**
+     * 使用指定的factory注入, 缓存的InjectionMetadata不持有factory, 不会让factory一直可达
+     * @param target
+     * @param factory
+     */
+    public void inject(Object target, AutowireCapableBeanFactory factory) {
+        if (injectionElements == null || injectionElements.isEmpty()) {
+            return;
+        }
+        for (InjectionElement ele : this.injectionElements) {
+            ele.inject(target, factory);
+        }
+    }
 }
@@ -45,6 +45,18 @@ public interface BeanDefinition {
      */
     void setScope(String scope);
 
+    /**
+     * 是否延迟初始化, 延迟初始化的单例不会在容器启动时提前创建
+     * @return
+     */
+    boolean isLazyInit();
+
+    /**
+     * 设置是否延迟初始化
+     * @param lazyInit
+     */
+    void setLazyInit(boolean lazyInit);
+
     /**
      * 获取bean的property配置
      * @return
@@ -2,9 +2,39 @@ package org.imitatespring.beans.factory.config;
 
 import org.imitatespring.beans.BeansException;
 
+/**
+ * bean属性注入完成之后的回调, 默认实现什么也不做
+ * 只覆盖需要的方法即可: 工厂注册processor时会检查哪些方法被覆盖, 没有覆盖的方法不会被调用
+ */
 public interface BeanPostProcessor {
 
-    Object beforeInitializaion(Object bean, String beanName) throws BeansException;
+    /**
+     * @param bean
+     * @param beanName
+     * @return 替换原来的bean, 返回null时保留之前的结果并且不再调用后面的processor
+     * @throws BeansException
+     */
+    default Object beforeInitialization(Object bean, String beanName) throws BeansException {
+        return bean;
+    }
 
-    Object afterInitializaion(Object bean, String beanName) throws BeansException;
+    /**
+     * @param bean
+     * @param beanName
+     * @return 替换原来的bean, 返回null时保留之前的结果并且不再调用后面的processor
+     * @throws BeansException
+     */
+    default Object afterInitialization(Object bean, String beanName) throws BeansException {
+        return bean;
+    }
+
+    /**
+     * 这个processor是否可能处理某个类型的bean, 返回false时这个类型的bean不会调用它的任何方法
+     * 结果按bean的类型缓存, 所以对同一个类型必须总是返回相同的结果
+     * @param beanClass
+     * @return
+     */
+    default boolean isApplicable(Class<?> beanClass) {
+        return true;
+    }
 }
@@ -1,5 +1,7 @@
 package org.imitatespring.beans.factory.config;
 
+import org.imitatespring.core.convert.ConversionService;
+
 import java.util.List;
 
 /**
@@ -20,6 +22,14 @@ public interface  ConfigurableBeanFactory extends AutowireCapableBeanFactory {
      */
     ClassLoader getBeanClassLoader();
 
+    /**
+     * 设置转换配置值时使用的ConversionService, 整个容器共用一个实例
+     * @param conversionService
+     */
+    void setConversionService(ConversionService conversionService);
+
+    ConversionService getConversionService();
+
     void addBeanPostProcessor(BeanPostProcessor postProcessor);
 
     List<BeanPostProcessor> getBeanPostProcessors();
@@ -4,9 +4,26 @@ import org.imitatespring.beans.BeansException;
 
 public interface InstantiationAwareBeanPostProcessor extends BeanPostProcessor {
 
-    Object beforeInstantiation(Class<?> beanClass, String beanName) throws BeansException;
+    /**
+     * @param beanClass
+     * @param beanName
+     * @return 不为null时用返回值代替bean, 跳过实例化和属性注入, 之后只调用afterInitialization
+     * @throws BeansException
+     */
+    default Object beforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+        return null;
+    }
 
-    boolean afterInstantiation(Object bean, String beanName) throws BeansException;
+    /**
+     * @param bean
+     * @param beanName
+     * @return 返回false时跳过属性注入, 包括postProcessPropertyValues
+     * @throws BeansException
+     */
+    default boolean afterInstantiation(Object bean, String beanName) throws BeansException {
+        return true;
+    }
 
-    void postProcessPropertyValues(Object bean, String beanName) throws BeansException;
+    default void postProcessPropertyValues(Object bean, String beanName) throws BeansException {
+    }
 }
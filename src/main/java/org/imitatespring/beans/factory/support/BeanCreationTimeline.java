@@ -0,0 +1,490 @@
+package org.imitatespring.beans.factory.support;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * bean创建过程的时间线: 记录每个bean的创建、实例化、属性注入以及每个BeanPostProcessor调用的耗时(纳秒)和嵌套关系,
+ * 例如A注入属性时触发了B的创建, B的创建步骤的父步骤就是A的属性注入步骤
+ * 通过{@link DefaultBeanFactory#setCreationTimeline(BeanCreationTimeline)}开启, 没有开启时工厂只多一次字段读取
+ * 嵌套关系只在同一个线程内记录, 并行创建单例时每个线程各自形成一棵树
+ * 最多保留capacity个已经结束的步骤, 超过后丢弃最早结束的步骤, 长时间开启时(例如大量prototype)内存不会无限增长
+ * @author liaocx
+ */
+public class BeanCreationTimeline {
+
+    public enum Phase {
+        /**
+         * 完整的创建过程, 包括下面的所有步骤
+         */
+        CREATE,
+        INSTANTIATE,
+        POPULATE,
+        /**
+         * 一次BeanPostProcessor调用, detail为processor的类名和方法名
+         */
+        POST_PROCESS
+    }
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private final long originNanos = System.nanoTime();
+
+    private final AtomicLong stepIdGenerator = new AtomicLong();
+
+    private final int capacity;
+
+    private final Queue<Step> completedSteps = new ConcurrentLinkedQueue<>();
+
+    /**
+     * ConcurrentLinkedQueue的size()需要遍历, 单独计数
+     */
+    private final AtomicInteger completedStepCount = new AtomicInteger();
+
+    private final AtomicLong droppedStepCount = new AtomicLong();
+
+    /**
+     * 当前线程中还没有结束的步骤
+     */
+    private final ThreadLocal<Deque<Recording>> activeRecordings = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public BeanCreationTimeline() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 最多保留多少个已经结束的步骤
+     */
+    public BeanCreationTimeline(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * 开始一个步骤, 必须在同一个线程中调用返回值的{@link Recording#end()}
+     * @param phase
+     * @param beanName
+     * @param detail 附加信息, 可以为null
+     * @return
+     */
+    Recording start(Phase phase, String beanName, String detail) {
+        Deque<Recording> stack = this.activeRecordings.get();
+        Recording parent = stack.peek();
+        Recording recording = new Recording(this.stepIdGenerator.incrementAndGet(),
+                (parent != null ? parent.id : 0L), stack.size(), phase, beanName, detail, System.nanoTime());
+        stack.push(recording);
+        return recording;
+    }
+
+    final class Recording {
+
+        private final long id;
+
+        private final long parentId;
+
+        private final int depth;
+
+        private final Phase phase;
+
+        private final String beanName;
+
+        private String detail;
+
+        private final long startNanos;
+
+        private Recording(long id, long parentId, int depth, Phase phase, String beanName, String detail, long startNanos) {
+            this.id = id;
+            this.parentId = parentId;
+            this.depth = depth;
+            this.phase = phase;
+            this.beanName = beanName;
+            this.detail = detail;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * 步骤的附加说明在开始时还无法确定时, 在end之前设置
+         */
+        void setDetail(String detail) {
+            this.detail = detail;
+        }
+
+        void end() {
+            long endNanos = System.nanoTime();
+            Deque<Recording> stack = activeRecordings.get();
+            //正常情况下栈顶就是自己, 异常路径上也保证出栈
+            while (!stack.isEmpty()) {
+                if (stack.pop() == this) {
+                    break;
+                }
+            }
+            Thread thread = Thread.currentThread();
+            addCompletedStep(new Step(this.id, this.parentId, this.depth, this.phase, this.beanName, this.detail,
+                    thread.getName(), thread.getId(), this.startNanos - originNanos, endNanos - this.startNanos));
+        }
+    }
+
+    private void addCompletedStep(Step step) {
+        this.completedSteps.add(step);
+        if (this.completedStepCount.incrementAndGet() > this.capacity) {
+            //只有成功取出步骤的线程才减少计数, 并发结束步骤时也不会多丢
+            if (this.completedSteps.poll() != null) {
+                this.completedStepCount.decrementAndGet();
+                this.droppedStepCount.incrementAndGet();
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @return 因为超过capacity而被丢弃的步骤数, clear()时归零
+     */
+    public long getDroppedStepCount() {
+        return this.droppedStepCount.get();
+    }
+
+    /**
+     * 所有已经结束的步骤, 按开始时间排序
+     * @return
+     */
+    public List<Step> getSteps() {
+        List<Step> steps = new ArrayList<>(this.completedSteps);
+        steps.sort(Comparator.comparingLong(Step::getStartNanos).thenComparingLong(Step::getId));
+        return steps;
+    }
+
+    public List<Step> getSteps(String beanName) {
+        List<Step> steps = new ArrayList<>();
+        for (Step step : getSteps()) {
+            if (step.getBeanName().equals(beanName)) {
+                steps.add(step);
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * 直接由getBean触发(而不是作为其他bean的依赖被创建)的步骤
+     * @return
+     */
+    public List<Step> getRootSteps() {
+        List<Step> roots = new ArrayList<>();
+        for (Step step : getSteps()) {
+            if (step.getParentId() == 0L) {
+                roots.add(step);
+            }
+        }
+        return roots;
+    }
+
+    public List<Step> getChildren(Step parent) {
+        List<Step> children = new ArrayList<>();
+        for (Step step : getSteps()) {
+            if (step.getParentId() == parent.getId()) {
+                children.add(step);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * 触发这个步骤的bean的创建步骤, 例如A注入属性时创建了B, B的任意步骤都返回A的CREATE步骤
+     * @param step
+     * @return 由getBean直接触发, 或者触发它的步骤已经因为超过capacity被丢弃时返回null
+     */
+    public Step getTriggeringCreation(Step step) {
+        Map<Long, Step> stepsById = indexById();
+        Step current = stepsById.get(step.getParentId());
+        while (current != null) {
+            if (current.getPhase() == Phase.CREATE && !current.getBeanName().equals(step.getBeanName())) {
+                return current;
+            }
+            current = stepsById.get(current.getParentId());
+        }
+        return null;
+    }
+
+    /**
+     * 按独占耗时(减去其中依赖bean的创建耗时)从大到小返回bean的创建步骤
+     * @param limit 最多返回多少个
+     * @return
+     */
+    public List<Step> getSlowestCreations(int limit) {
+        Map<Long, Step> stepsById = indexById();
+        Map<Long, Long> nestedNanos = nestedCreationNanos(stepsById);
+        List<Step> creations = new ArrayList<>();
+        for (Step step : stepsById.values()) {
+            if (step.getPhase() == Phase.CREATE) {
+                creations.add(step);
+            }
+        }
+        creations.sort(Comparator.comparingLong(
+                (Step step) -> step.getDurationNanos() - nestedNanos.getOrDefault(step.getId(), 0L)).reversed());
+        return new ArrayList<>(creations.subList(0, Math.min(limit, creations.size())));
+    }
+
+    /**
+     * @param creation CREATE步骤
+     * @return 创建耗时减去其中依赖bean的创建耗时
+     */
+    public long getExclusiveNanos(Step creation) {
+        return creation.getDurationNanos() - nestedCreationNanos(indexById()).getOrDefault(creation.getId(), 0L);
+    }
+
+    /**
+     * @return CREATE步骤的id --> 直接嵌套在其中的其他CREATE步骤的耗时之和
+     */
+    private Map<Long, Long> nestedCreationNanos(Map<Long, Step> stepsById) {
+        Map<Long, Long> nestedNanos = new HashMap<>();
+        for (Step step : stepsById.values()) {
+            if (step.getPhase() == Phase.CREATE) {
+                Step owner = findEnclosingCreation(stepsById, step);
+                if (owner != null) {
+                    nestedNanos.merge(owner.getId(), step.getDurationNanos(), Long::sum);
+                }
+            }
+        }
+        return nestedNanos;
+    }
+
+    private Step findEnclosingCreation(Map<Long, Step> stepsById, Step step) {
+        Step current = stepsById.get(step.getParentId());
+        while (current != null && current.getPhase() != Phase.CREATE) {
+            current = stepsById.get(current.getParentId());
+        }
+        return current;
+    }
+
+    private Map<Long, Step> indexById() {
+        Map<Long, Step> stepsById = new HashMap<>();
+        for (Step step : this.completedSteps) {
+            stepsById.put(step.getId(), step);
+        }
+        return stepsById;
+    }
+
+    public void clear() {
+        while (this.completedSteps.poll() != null) {
+            this.completedStepCount.decrementAndGet();
+        }
+        this.droppedStepCount.set(0);
+    }
+
+    /**
+     * 导出为JSON: {"steps":[{"id":..,"parentId":..,"bean":..,"phase":..,"detail":..,"thread":..,"startNanos":..,"durationNanos":..}]}
+     * @return
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\"steps\":[");
+        boolean first = true;
+        for (Step step : getSteps()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append("{\"id\":").append(step.getId())
+                    .append(",\"parentId\":").append(step.getParentId())
+                    .append(",\"depth\":").append(step.getDepth())
+                    .append(",\"bean\":");
+            appendJsonString(sb, step.getBeanName());
+            sb.append(",\"phase\":\"").append(step.getPhase().name().toLowerCase()).append('"')
+                    .append(",\"detail\":");
+            appendJsonString(sb, step.getDetail());
+            sb.append(",\"thread\":");
+            appendJsonString(sb, step.getThreadName());
+            sb.append(",\"startNanos\":").append(step.getStartNanos())
+                    .append(",\"durationNanos\":").append(step.getDurationNanos())
+                    .append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * 导出为Chrome trace格式(chrome://tracing或者Perfetto可以直接打开), 每个步骤是一个"X"(complete)事件, 时间单位为微秒
+     * @return
+     */
+    public String toChromeTrace() {
+        StringBuilder sb = new StringBuilder("{\"traceEvents\":[");
+        boolean first = true;
+        for (Step step : getSteps()) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append("{\"name\":");
+            appendJsonString(sb, step.getPhase() == Phase.CREATE ? step.getBeanName()
+                    : step.getBeanName() + " " + step.getPhase().name().toLowerCase());
+            sb.append(",\"cat\":\"").append(step.getPhase().name().toLowerCase()).append('"')
+                    .append(",\"ph\":\"X\",\"pid\":1,\"tid\":").append(step.getThreadId())
+                    .append(",\"ts\":").append(toMicros(step.getStartNanos()))
+                    .append(",\"dur\":").append(toMicros(step.getDurationNanos()))
+                    .append(",\"args\":{\"thread\":");
+            appendJsonString(sb, step.getThreadName());
+            if (step.getDetail() != null) {
+                sb.append(",\"detail\":");
+                appendJsonString(sb, step.getDetail());
+            }
+            sb.append("}}");
+        }
+        return sb.append("],\"displayTimeUnit\":\"ns\"}").toString();
+    }
+
+    private static String toMicros(long nanos) {
+        return (nanos / 1000) + "." + String.format("%03d", nanos % 1000);
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Step step : getSteps()) {
+            sb.append('\n');
+            for (int i = 0; i < step.getDepth(); i++) {
+                sb.append("  ");
+            }
+            sb.append(step);
+        }
+        return "BeanCreationTimeline[" + this.completedStepCount.get() + " steps, "
+                + this.droppedStepCount.get() + " dropped]" + sb;
+    }
+
+    public static class Step {
+
+        private final long id;
+
+        private final long parentId;
+
+        private final int depth;
+
+        private final Phase phase;
+
+        private final String beanName;
+
+        private final String detail;
+
+        private final String threadName;
+
+        private final long threadId;
+
+        private final long startNanos;
+
+        private final long durationNanos;
+
+        Step(long id, long parentId, int depth, Phase phase, String beanName, String detail,
+             String threadName, long threadId, long startNanos, long durationNanos) {
+            this.id = id;
+            this.parentId = parentId;
+            this.depth = depth;
+            this.phase = phase;
+            this.beanName = beanName;
+            this.detail = detail;
+            this.threadName = threadName;
+            this.threadId = threadId;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * @return 没有父步骤时为0
+         */
+        public long getParentId() {
+            return parentId;
+        }
+
+        /**
+         * @return 同一个线程中的嵌套层数, 根步骤为0
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public String getBeanName() {
+            return beanName;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public long getThreadId() {
+            return threadId;
+        }
+
+        /**
+         * @return 相对于时间线创建时刻的开始时间
+         */
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return this.beanName + " " + this.phase.name().toLowerCase() + (this.detail != null ? " [" + this.detail + "]" : "")
+                    + " " + (this.durationNanos / 1000) + " us on " + this.threadName;
+        }
+    }
+}
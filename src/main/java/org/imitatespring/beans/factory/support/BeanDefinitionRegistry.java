@@ -20,4 +20,10 @@ public interface BeanDefinitionRegistry {
      * @param bd
      */
     void registerBeanDefinition(String beanId, BeanDefinition bd);
+
+    /**
+     * 按注册顺序返回所有的beanId
+     * @return
+     */
+    String[] getBeanDefinitionNames();
 }
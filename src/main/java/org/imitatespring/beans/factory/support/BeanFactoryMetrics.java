@@ -0,0 +1,226 @@
+package org.imitatespring.beans.factory.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.imitatespring.core.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * bean工厂的运行时统计: 每个bean的getBean调用次数和耗时分布、创建次数以及单例缓存命中率
+ * 通过{@link DefaultBeanFactory#setMetrics(BeanFactoryMetrics)}开启, 没有开启时工厂只多一次字段读取
+ * 创建次数多、getBean耗时高的prototype bean通常应该改成singleton, 见{@link #getMostCreated(int)}
+ * @author liaocx
+ */
+public class BeanFactoryMetrics {
+
+    private static final Log logger = LogFactory.getLog(BeanFactoryMetrics.class);
+
+    private final Map<String, BeanMetrics> beanMetrics = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService dumpExecutor;
+
+    void recordGetBean(String beanName, long nanos) {
+        BeanMetrics metrics = metricsFor(beanName);
+        metrics.getBeanCount.increment();
+        metrics.getBeanLatency.record(nanos);
+    }
+
+    void recordCreation(String beanName, boolean singleton) {
+        BeanMetrics metrics = metricsFor(beanName);
+        metrics.singleton = singleton;
+        metrics.creationCount.increment();
+    }
+
+    void recordSingletonLookup(String beanName, boolean hit) {
+        BeanMetrics metrics = metricsFor(beanName);
+        if (hit) {
+            metrics.singletonHits.increment();
+        } else {
+            metrics.singletonMisses.increment();
+        }
+    }
+
+    private BeanMetrics metricsFor(String beanName) {
+        BeanMetrics metrics = this.beanMetrics.get(beanName);
+        if (metrics == null) {
+            metrics = this.beanMetrics.computeIfAbsent(beanName, BeanMetrics::new);
+        }
+        return metrics;
+    }
+
+    /**
+     * @param beanName
+     * @return 还没有记录过时返回null
+     */
+    public BeanMetrics getBeanMetrics(String beanName) {
+        return this.beanMetrics.get(beanName);
+    }
+
+    public List<BeanMetrics> getAllBeanMetrics() {
+        List<BeanMetrics> result = new ArrayList<>(this.beanMetrics.values());
+        result.sort(Comparator.comparing(BeanMetrics::getBeanName));
+        return result;
+    }
+
+    /**
+     * 按创建次数从多到少排序
+     * @param limit 最多返回的数量
+     * @return
+     */
+    public List<BeanMetrics> getMostCreated(int limit) {
+        List<BeanMetrics> result = new ArrayList<>(this.beanMetrics.values());
+        result.sort(Comparator.comparingLong(BeanMetrics::getCreationCount).reversed());
+        return (result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result);
+    }
+
+    /**
+     * 所有单例的缓存命中率
+     * @return 没有单例查询时返回0
+     */
+    public double getSingletonHitRate() {
+        long hits = 0;
+        long lookups = 0;
+        for (BeanMetrics metrics : this.beanMetrics.values()) {
+            hits += metrics.getSingletonHits();
+            lookups += metrics.getSingletonHits() + metrics.getSingletonMisses();
+        }
+        return (lookups == 0 ? 0.0 : (double) hits / lookups);
+    }
+
+    public void reset() {
+        this.beanMetrics.clear();
+    }
+
+    /**
+     * 按bean名称输出所有统计, 每个bean一行
+     * @return
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder("BeanFactoryMetrics (singleton hit rate ")
+                .append(String.format("%.2f", getSingletonHitRate())).append(')');
+        for (BeanMetrics metrics : getAllBeanMetrics()) {
+            sb.append(System.lineSeparator()).append("  ").append(metrics);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 在后台的daemon线程中定期以INFO级别输出{@link #dump()}, 重复调用时先停止之前的任务
+     * @param period
+     * @param unit
+     */
+    public synchronized void startPeriodicDump(long period, TimeUnit unit) {
+        stopPeriodicDump();
+        this.dumpExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bean-factory-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dumpExecutor.scheduleAtFixedRate(() -> {
+            if (logger.isInfoEnabled()) {
+                logger.info(dump());
+            }
+        }, period, period, unit);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (this.dumpExecutor != null) {
+            this.dumpExecutor.shutdownNow();
+            this.dumpExecutor = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return dump();
+    }
+
+    /**
+     * 单个bean的统计, 计数器都是LongAdder, 读取得到的是近似的瞬时值
+     */
+    public static class BeanMetrics {
+
+        private final String beanName;
+
+        private final LongAdder getBeanCount = new LongAdder();
+
+        private final LatencyHistogram getBeanLatency = new LatencyHistogram();
+
+        private final LongAdder creationCount = new LongAdder();
+
+        private final LongAdder singletonHits = new LongAdder();
+
+        private final LongAdder singletonMisses = new LongAdder();
+
+        private volatile boolean singleton = true;
+
+        BeanMetrics(String beanName) {
+            this.beanName = beanName;
+        }
+
+        public String getBeanName() {
+            return this.beanName;
+        }
+
+        public long getGetBeanCount() {
+            return this.getBeanCount.sum();
+        }
+
+        /**
+         * getBean的耗时(纳秒), 包括创建bean以及创建过程中注入的其他bean
+         * @return
+         */
+        public LatencyHistogram getGetBeanLatency() {
+            return this.getBeanLatency;
+        }
+
+        public long getCreationCount() {
+            return this.creationCount.sum();
+        }
+
+        public long getSingletonHits() {
+            return this.singletonHits.sum();
+        }
+
+        public long getSingletonMisses() {
+            return this.singletonMisses.sum();
+        }
+
+        /**
+         * @return 没有单例查询时返回0
+         */
+        public double getSingletonHitRate() {
+            long hits = getSingletonHits();
+            long lookups = hits + getSingletonMisses();
+            return (lookups == 0 ? 0.0 : (double) hits / lookups);
+        }
+
+        /**
+         * @return 最近一次创建时的scope, 还没有创建过时为true
+         */
+        public boolean isSingleton() {
+            return this.singleton;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(this.beanName)
+                    .append(this.singleton ? " [singleton]" : " [prototype]")
+                    .append(": getBean=").append(getGetBeanCount())
+                    .append(", created=").append(getCreationCount());
+            if (this.singleton) {
+                sb.append(", hitRate=").append(String.format("%.2f", getSingletonHitRate()));
+            }
+            return sb.append(", latency(").append(this.getBeanLatency).append(')').toString();
+        }
+    }
+}
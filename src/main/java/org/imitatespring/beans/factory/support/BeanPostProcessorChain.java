@@ -0,0 +1,124 @@
+package org.imitatespring.beans.factory.support;
+
+import org.imitatespring.beans.factory.config.BeanPostProcessor;
+import org.imitatespring.beans.factory.config.InstantiationAwareBeanPostProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按回调方法分组的BeanPostProcessor数组, 注册processor时构建一次, 创建bean时不需要再做instanceof判断:
+ * 只有覆盖了某个方法的processor才会出现在对应的数组中, 接口中的默认实现什么也不做
+ * 另外按bean的类型缓存过滤后的chain, {@link BeanPostProcessor#isApplicable(Class)}返回false的processor会被去掉,
+ * 不受任何processor影响的类型得到{@link #EMPTY}, 创建bean时直接跳过所有回调
+ * @author liaocx
+ */
+final class BeanPostProcessorChain {
+
+    private static final InstantiationAwareBeanPostProcessor[] NO_INSTANTIATION_AWARE = new InstantiationAwareBeanPostProcessor[0];
+
+    private static final BeanPostProcessor[] NO_PROCESSORS = new BeanPostProcessor[0];
+
+    static final BeanPostProcessorChain EMPTY = new BeanPostProcessorChain(new BeanPostProcessor[0]);
+
+    private final BeanPostProcessor[] processors;
+
+    final InstantiationAwareBeanPostProcessor[] beforeInstantiation;
+
+    final InstantiationAwareBeanPostProcessor[] afterInstantiation;
+
+    final InstantiationAwareBeanPostProcessor[] propertyValues;
+
+    final BeanPostProcessor[] beforeInitialization;
+
+    final BeanPostProcessor[] afterInitialization;
+
+    private final Map<Class<?>, BeanPostProcessorChain> chainsByBeanClass = new ConcurrentHashMap<>();
+
+    BeanPostProcessorChain(BeanPostProcessor[] processors) {
+        this.processors = processors;
+        List<InstantiationAwareBeanPostProcessor> beforeInstantiation = new ArrayList<>();
+        List<InstantiationAwareBeanPostProcessor> afterInstantiation = new ArrayList<>();
+        List<InstantiationAwareBeanPostProcessor> propertyValues = new ArrayList<>();
+        List<BeanPostProcessor> beforeInitialization = new ArrayList<>();
+        List<BeanPostProcessor> afterInitialization = new ArrayList<>();
+        for (BeanPostProcessor processor : processors) {
+            if (processor instanceof InstantiationAwareBeanPostProcessor) {
+                InstantiationAwareBeanPostProcessor iabpp = (InstantiationAwareBeanPostProcessor) processor;
+                if (overrides(processor, "beforeInstantiation", Class.class, String.class)) {
+                    beforeInstantiation.add(iabpp);
+                }
+                if (overrides(processor, "afterInstantiation", Object.class, String.class)) {
+                    afterInstantiation.add(iabpp);
+                }
+                if (overrides(processor, "postProcessPropertyValues", Object.class, String.class)) {
+                    propertyValues.add(iabpp);
+                }
+            }
+            if (overrides(processor, "beforeInitialization", Object.class, String.class)) {
+                beforeInitialization.add(processor);
+            }
+            if (overrides(processor, "afterInitialization", Object.class, String.class)) {
+                afterInitialization.add(processor);
+            }
+        }
+        this.beforeInstantiation = beforeInstantiation.toArray(NO_INSTANTIATION_AWARE);
+        this.afterInstantiation = afterInstantiation.toArray(NO_INSTANTIATION_AWARE);
+        this.propertyValues = propertyValues.toArray(NO_INSTANTIATION_AWARE);
+        this.beforeInitialization = beforeInitialization.toArray(NO_PROCESSORS);
+        this.afterInitialization = afterInitialization.toArray(NO_PROCESSORS);
+    }
+
+    /**
+     * 方法是否由processor自己的类实现, 而不是使用接口中的默认实现
+     */
+    private static boolean overrides(BeanPostProcessor processor, String methodName, Class<?>... parameterTypes) {
+        try {
+            Class<?> declaringClass = processor.getClass().getMethod(methodName, parameterTypes).getDeclaringClass();
+            return (declaringClass != BeanPostProcessor.class && declaringClass != InstantiationAwareBeanPostProcessor.class);
+        } catch (NoSuchMethodException ex) {
+            return true;
+        }
+    }
+
+    /**
+     * 获取某个类型的bean需要经过的chain
+     * @param beanClass
+     * @return
+     */
+    BeanPostProcessorChain forBeanClass(Class<?> beanClass) {
+        if (isEmpty()) {
+            return this;
+        }
+        BeanPostProcessorChain chain = this.chainsByBeanClass.get(beanClass);
+        if (chain == null) {
+            chain = this.chainsByBeanClass.computeIfAbsent(beanClass, this::filter);
+        }
+        return chain;
+    }
+
+    private BeanPostProcessorChain filter(Class<?> beanClass) {
+        List<BeanPostProcessor> applicable = new ArrayList<>(this.processors.length);
+        for (BeanPostProcessor processor : this.processors) {
+            if (processor.isApplicable(beanClass)) {
+                applicable.add(processor);
+            }
+        }
+        if (applicable.size() == this.processors.length) {
+            return this;
+        }
+        BeanPostProcessorChain chain = new BeanPostProcessorChain(applicable.toArray(NO_PROCESSORS));
+        return (chain.isEmpty() ? EMPTY : chain);
+    }
+
+    /**
+     * @return 没有任何需要调用的回调
+     */
+    boolean isEmpty() {
+        return this.beforeInstantiation.length == 0 && this.afterInstantiation.length == 0
+                && this.propertyValues.length == 0 && this.beforeInitialization.length == 0
+                && this.afterInitialization.length == 0;
+    }
+}
@@ -0,0 +1,22 @@
+package org.imitatespring.beans.factory.support;
+
+/**
+ * 由CompiledBeanAccessorGenerator为某个BeanDefinition生成的实现类, 直接通过字节码调用构造器和setter, 不经过反射
+ * @author liaocx
+ */
+public interface CompiledBeanAccessor {
+
+    /**
+     * 调用缓存的构造器创建实例
+     * @param args 构造器参数, 基本类型为对应的包装类
+     * @return
+     */
+    Object newInstance(Object[] args);
+
+    /**
+     * 按PropertyInjectionPlan中setter的顺序注入属性
+     * @param bean
+     * @param values 与setter一一对应的值
+     */
+    void injectProperties(Object bean, Object[] values);
+}
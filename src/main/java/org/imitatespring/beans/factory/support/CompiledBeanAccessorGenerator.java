@@ -0,0 +1,201 @@
+package org.imitatespring.beans.factory.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.imitatespring.util.ClassUtils;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 使用ASM为一个bean生成CompiledBeanAccessor的实现类, 生成的代码只有顺序执行的指令:
+ * new + 构造器调用, 以及依次调用每个setter
+ * 生成的类由单独的ClassLoader加载, 只能访问public的类、构造器和方法, 不满足条件或者生成失败时返回null, 由调用方继续使用反射
+ * @author liaocx
+ */
+final class CompiledBeanAccessorGenerator {
+
+    private static final Log logger = LogFactory.getLog(CompiledBeanAccessorGenerator.class);
+
+    private static final String ACCESSOR_INTERNAL_NAME = Type.getInternalName(CompiledBeanAccessor.class);
+
+    private static final String OBJECT_INTERNAL_NAME = Type.getInternalName(Object.class);
+
+    private static final AtomicInteger classCounter = new AtomicInteger();
+
+    private CompiledBeanAccessorGenerator() {
+    }
+
+    /**
+     * @param beanClass
+     * @param constructor 需要调用的构造器
+     * @param writeMethods 需要依次调用的setter, 可以为空数组
+     * @return 生成失败时返回null
+     */
+    static CompiledBeanAccessor generate(Class<?> beanClass, Constructor<?> constructor, Method[] writeMethods) {
+        if (!isAccessible(beanClass, constructor, writeMethods)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Skipping compiled accessor for [" + beanClass.getName() + "] because it or its parameter types are not public");
+            }
+            return null;
+        }
+        String className = "org.imitatespring.generated." + ClassUtils.getShortName(beanClass.getName()).replace('.', '$')
+                + "$$Accessor$$" + classCounter.incrementAndGet();
+        try {
+            byte[] bytes = generateClass(ClassUtils.convertClassNameToResourcePath(className), beanClass, constructor, writeMethods);
+            Class<?> accessorClass = new AccessorClassLoader(beanClass.getClassLoader()).define(className, bytes);
+            return (CompiledBeanAccessor) accessorClass.getDeclaredConstructor().newInstance();
+        } catch (Throwable ex) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("Failed to generate compiled accessor for [" + beanClass.getName() + "], falling back to reflection", ex);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 生成的类需要直接引用bean的类型以及构造器和setter的参数类型(CHECKCAST), 这些类型都必须是public的
+     */
+    private static boolean isAccessible(Class<?> beanClass, Constructor<?> constructor, Method[] writeMethods) {
+        if (!isPublicType(beanClass) || !Modifier.isPublic(constructor.getModifiers())
+                || !arePublicTypes(constructor.getParameterTypes())) {
+            return false;
+        }
+        for (Method method : writeMethods) {
+            if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+                    || !arePublicTypes(method.getParameterTypes())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean arePublicTypes(Class<?>[] types) {
+        for (Class<?> type : types) {
+            if (!isPublicType(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 类型本身以及外部类都是public, 数组看元素类型
+     */
+    private static boolean isPublicType(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] generateClass(String internalName, Class<?> beanClass, Constructor<?> constructor, Method[] writeMethods) {
+        String beanInternalName = Type.getInternalName(beanClass);
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, internalName, null,
+                OBJECT_INTERNAL_NAME, new String[]{ACCESSOR_INTERNAL_NAME});
+
+        //默认构造器
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT_INTERNAL_NAME, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        //Object newInstance(Object[] args)
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "newInstance", "([Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+        mv.visitCode();
+        mv.visitTypeInsn(Opcodes.NEW, beanInternalName);
+        mv.visitInsn(Opcodes.DUP);
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            loadArrayElement(mv, 1, i, parameterTypes[i]);
+        }
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, beanInternalName, "<init>",
+                Type.getConstructorDescriptor(constructor), false);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        //void injectProperties(Object bean, Object[] values)
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "injectProperties", "(Ljava/lang/Object;[Ljava/lang/Object;)V", null, null);
+        mv.visitCode();
+        for (int i = 0; i < writeMethods.length; i++) {
+            Method method = writeMethods[i];
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, beanInternalName);
+            loadArrayElement(mv, 2, i, method.getParameterTypes()[0]);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, beanInternalName, method.getName(),
+                    Type.getMethodDescriptor(method), false);
+            //setter有返回值时(例如链式调用)需要丢弃
+            Type returnType = Type.getReturnType(method);
+            if (returnType.getSize() == 1) {
+                mv.visitInsn(Opcodes.POP);
+            } else if (returnType.getSize() == 2) {
+                mv.visitInsn(Opcodes.POP2);
+            }
+        }
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * 取出数组中的第index个元素, 转换成targetType, 基本类型需要拆箱
+     */
+    private static void loadArrayElement(MethodVisitor mv, int arrayVar, int index, Class<?> targetType) {
+        mv.visitVarInsn(Opcodes.ALOAD, arrayVar);
+        mv.visitLdcInsn(index);
+        mv.visitInsn(Opcodes.AALOAD);
+        if (targetType.isPrimitive()) {
+            Class<?> wrapperType = ClassUtils.resolvePrimitiveWrapper(targetType);
+            mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(wrapperType));
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(wrapperType),
+                    targetType.getName() + "Value", "()" + Type.getDescriptor(targetType), false);
+        } else if (targetType != Object.class) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(targetType));
+        }
+    }
+
+    /**
+     * 每个生成类使用单独的ClassLoader, bean的ClassLoader被卸载时生成类也可以一起回收
+     */
+    private static final class AccessorClassLoader extends ClassLoader {
+
+        AccessorClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            //bean的ClassLoader不一定能看到框架自身的类
+            if (name.equals(CompiledBeanAccessor.class.getName())) {
+                return CompiledBeanAccessor.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -3,12 +3,17 @@ package org.imitatespring.beans.factory.support;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.imitatespring.beans.ConstructorArgument;
-import org.imitatespring.beans.SimpleTypeConverter;
 import org.imitatespring.beans.factory.BeanCreationException;
 import org.imitatespring.beans.factory.config.BeanDefinition;
 import org.imitatespring.beans.factory.config.ConfigurableBeanFactory;
+import org.imitatespring.beans.factory.config.RuntimeBeanReference;
+import org.imitatespring.beans.factory.config.TypedStringValue;
+import org.imitatespring.core.convert.ConversionFailedException;
+import org.imitatespring.core.convert.ConversionService;
+import org.imitatespring.util.ClassUtils;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Parameter;
 import java.util.List;
 
 /**
@@ -26,44 +31,90 @@ public class ConstructorResolver {
     }
 
     public Object autowireConstructor(final BeanDefinition bd)  {
-        Constructor<?> constructorToUse = null;
-        Object[] argsToUse = null;
+        GenericBeanDefinition gbd = (bd instanceof GenericBeanDefinition ? (GenericBeanDefinition) bd : null);
+        if (gbd != null && gbd.resolvedConstructor != null) {
+            //之前已经匹配过构造器, 只需要获取ref对应的bean
+            return instantiate(bd, gbd.resolvedConstructor, resolveCachedArguments(gbd));
+        }
         Class<?> beanClass = null;
         try {
             beanClass = bd.resolveBeanClass(beanFactory.getBeanClassLoader());
         } catch (ClassNotFoundException e) {
             throw new RuntimeException("can't load class: " + bd.getBeanClassName());
         }
-        //通过反射获取这个bean的所有Constructor
-        Constructor<?>[] candidates = beanClass.getConstructors();
-        //用于将构造器参数中的ref转换成相应的对象
-        BeanDefinitionValueResolver valueResolver = new BeanDefinitionValueResolver(this.beanFactory);
-        //用于将构造器参数中的value转换成对应的值 int/boolean
-        SimpleTypeConverter typeConverter = new SimpleTypeConverter();
         //获取当前定义的Constructor数据结构
-        ConstructorArgument cargs = bd.getConstructorArgument();
-        //遍历每个Constructor
-        for (Constructor constructor : candidates) {
+        List<ConstructorArgument.ValueHolder> valueHolders = bd.getConstructorArgument().getArgumentValues();
+        int argCount = valueHolders.size();
+        //ref对应的bean只获取一次, 在所有候选构造器之间共用
+        Object[] resolvedValues = new Object[argCount];
+        String[] refNames = new String[argCount];
+        for (int i = 0; i < argCount; i++) {
+            Object originValue = valueHolders.get(i).getValue();
+            if (originValue instanceof RuntimeBeanReference) {
+                refNames[i] = ((RuntimeBeanReference) originValue).getBeanName();
+                resolvedValues[i] = this.beanFactory.getBean(refNames[i]);
+            } else if (originValue instanceof TypedStringValue) {
+                resolvedValues[i] = ((TypedStringValue) originValue).getValue();
+            } else {
+                throw new BeanCreationException(bd.getId(), "the value " + originValue + " has not implemented");
+            }
+        }
+        //用于将构造器参数中的value转换成对应的值 int/boolean, 整个容器共用
+        ConversionService conversionService = this.beanFactory.getConversionService();
+        //通过反射获取这个bean的所有Constructor, 遍历每个Constructor
+        for (Constructor<?> constructor : beanClass.getConstructors()) {
             Class<?>[] parameterTypes = constructor.getParameterTypes();
             //比较xml中配置的构造器参数个数 和 当前取得的构造器参数个数
-            if (parameterTypes.length != cargs.getArgumentCount()) {
-                //跳出当前循环
+            if (parameterTypes.length != argCount) {
                 continue;
             }
-            //初始化 参数数组的大小
-            argsToUse = new Object[parameterTypes.length];
-
-            boolean result = valueMatchTypes(parameterTypes, cargs.getArgumentValues(), argsToUse,
-                    valueResolver, typeConverter);
-            if (result) {
-                constructorToUse = constructor;
-                break;
+            Object[] argsToUse = valueMatchTypes(constructor, valueHolders, resolvedValues, refNames, conversionService);
+            if (argsToUse != null) {
+                if (gbd != null) {
+                    //缓存匹配结果, 先写数组再写volatile的构造器, 保证其他线程看到构造器时数组已经准备好
+                    Object[] prepared = argsToUse.clone();
+                    Class<?>[] conversionTypes = new Class<?>[argCount];
+                    for (int i = 0; i < argCount; i++) {
+                        if (refNames[i] != null) {
+                            prepared[i] = null;
+                        } else if (!ClassUtils.isImmutableValue(prepared[i])) {
+                            //数组、集合等不能在多个实例之间共用, 保留字符串每次重新转换
+                            prepared[i] = resolvedValues[i];
+                            conversionTypes[i] = parameterTypes[i];
+                        }
+                    }
+                    gbd.preparedConstructorArguments = prepared;
+                    gbd.constructorArgumentConversionTypes = conversionTypes;
+                    gbd.constructorArgumentRefs = refNames;
+                    gbd.resolvedConstructor = constructor;
+                }
+                return instantiate(bd, constructor, argsToUse);
             }
         }
         //找不到合适的构造函数
-        if (constructorToUse == null) {
-            throw new BeanCreationException(bd.getId(), "can't find a appropriate constructor ");
+        throw new BeanCreationException(bd.getId(), "can't find a appropriate constructor ");
+    }
+
+    /**
+     * 使用已经缓存的匹配结果获取构造器参数, 调用前需要确保gbd.resolvedConstructor不为null
+     * @param gbd
+     * @return
+     */
+    Object[] resolveCachedArguments(GenericBeanDefinition gbd) {
+        Object[] args = gbd.preparedConstructorArguments.clone();
+        String[] refNames = gbd.constructorArgumentRefs;
+        Class<?>[] conversionTypes = gbd.constructorArgumentConversionTypes;
+        for (int i = 0; i < args.length; i++) {
+            if (refNames[i] != null) {
+                args[i] = this.beanFactory.getBean(refNames[i]);
+            } else if (conversionTypes[i] != null) {
+                args[i] = this.beanFactory.getConversionService().convert(args[i], conversionTypes[i]);
+            }
         }
+        return args;
+    }
+
+    private Object instantiate(BeanDefinition bd, Constructor<?> constructorToUse, Object[] argsToUse) {
         try {
             return constructorToUse.newInstance(argsToUse);
         } catch (Exception e) {
@@ -72,33 +123,48 @@ public class ConstructorResolver {
     }
 
     /**
-     * 检查配置的值和构造器中的是否匹配
-     * @param parameterTypes
+     * 根据参数类型检查配置的值和构造器是否匹配, 匹配时返回转换后的参数数组, 不匹配返回null
+     * @param constructor
      * @param valueHolders
-     * @param argsToUse
-     * @param valueResolver
-     * @param typeConverter
+     * @param resolvedValues ref已经获取到bean, value还是字符串
+     * @param refNames
+     * @param conversionService
      * @return
      */
-    private boolean valueMatchTypes(Class<?>[] parameterTypes, List<ConstructorArgument.ValueHolder> valueHolders,
-                                    Object[] argsToUse, BeanDefinitionValueResolver valueResolver, SimpleTypeConverter typeConverter) {
+    private Object[] valueMatchTypes(Constructor<?> constructor, List<ConstructorArgument.ValueHolder> valueHolders,
+                                     Object[] resolvedValues, String[] refNames, ConversionService conversionService) {
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        Parameter[] parameters = constructor.getParameters();
+        Object[] argsToUse = new Object[parameterTypes.length];
         for (int i = 0; i < parameterTypes.length; i++) {
             ConstructorArgument.ValueHolder valueHolder = valueHolders.get(i);
-            //获取参数的值, 可能是RuntimeBeanReference 也有可能是TypedStringValue
-            Object originValue = valueHolder.getValue();
-            try {
-                // 获取真正的值
-                Object resolvedValue = valueResolver.resolveValueIfNecessary(originValue);
-                //再进行一次校验, 如果是定义的各种bean的类型, 直接返回
-                //但如果参数类型是int, 由于bean配置的value是字符串, 还需要继续转型 转型失败, 抛出异常 说明这个构造函数不可用
-                Object convertedValue = typeConverter.convertIfNecessary(resolvedValue, parameterTypes[i]);
-                //转型成功, 将其放入存放参数的数组中
-                argsToUse[i] = convertedValue;
-            } catch (Exception e) {
-                logger.error(e);
-                return false;
+            Class<?> parameterType = parameterTypes[i];
+            //配置了type或者name(编译时保留了参数名)的时候需要一致
+            if (valueHolder.getType() != null && !valueHolder.getType().equals(parameterType.getName())) {
+                return null;
+            }
+            if (valueHolder.getName() != null && parameters[i].isNamePresent()
+                    && !valueHolder.getName().equals(parameters[i].getName())) {
+                return null;
+            }
+            Object resolvedValue = resolvedValues[i];
+            if (ClassUtils.isAssignableValue(parameterType, resolvedValue)) {
+                //ref的bean或者String类型的参数, 类型匹配直接使用
+                argsToUse[i] = resolvedValue;
+            } else if (refNames[i] == null && conversionService.canConvert(String.class, parameterType)) {
+                //类型可以转换, 只剩下字符串内容本身是否合法
+                try {
+                    argsToUse[i] = conversionService.convert(resolvedValue, parameterType);
+                } catch (ConversionFailedException e) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Skipping constructor " + constructor + ": " + e.getMessage());
+                    }
+                    return null;
+                }
+            } else {
+                return null;
             }
         }
-        return true;
+        return argsToUse;
     }
 }
@@ -1,20 +1,25 @@
 package org.imitatespring.beans.factory.support;
 
 import org.apache.commons.beanutils.BeanUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.imitatespring.beans.PropertyValue;
 import org.imitatespring.beans.SimpleTypeConverter;
 import org.imitatespring.beans.factory.config.*;
 import org.imitatespring.beans.factory.BeanCreationException;
+import org.imitatespring.beans.factory.BeanDefinitionStoreException;
+import org.imitatespring.core.convert.ConversionService;
+import org.imitatespring.core.metrics.ApplicationStartup;
+import org.imitatespring.core.metrics.ApplicationStartups;
+import org.imitatespring.core.metrics.StartupStep;
 import org.imitatespring.util.ClassUtils;
 
-import java.beans.BeanInfo;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 底层的bean工厂, 用于注册bean的Definition, 获取bean实例以及Definition
@@ -23,11 +28,58 @@ import java.util.concurrent.ConcurrentHashMap;
 public class  DefaultBeanFactory extends DefaultSingletonBeanRegistry
         implements ConfigurableBeanFactory, BeanDefinitionRegistry {
 
+    private static final Log logger = LogFactory.getLog(DefaultBeanFactory.class);
+
     private final Map<String, BeanDefinition> beanDefinitionMap = new ConcurrentHashMap<>();
 
+    /**
+     * 按注册顺序保存的beanId
+     */
+    private final List<String> beanDefinitionNames = new ArrayList<>();
+
+    /**
+     * 类型索引: 类型(包括bean的所有父类和接口) --> 可注入的beanId, 数组只替换不修改, 读取时无需加锁
+     */
+    private final Map<Class<?>, String[]> beanNamesByType = new ConcurrentHashMap<>(64);
+
+    /**
+     * 已注册但还没有加入类型索引的beanId, 等到第一次按类型查找时再加载beanClass, 避免注册阶段就去加载所有的类
+     */
+    private final Queue<String> unindexedBeanNames = new ConcurrentLinkedQueue<>();
+
     private ClassLoader beanClassLoader;
 
-    private List<BeanPostProcessor> beanPostProcessors = new ArrayList<>();
+    private final List<BeanPostProcessor> beanPostProcessors = new CopyOnWriteArrayList<>();
+
+    /**
+     * beanPostProcessors按回调方法分组的结果, 每次注册processor时重新构建
+     */
+    private volatile BeanPostProcessorChain postProcessorChain = BeanPostProcessorChain.EMPTY;
+
+    /**
+     * prototype bean通过反射创建多少次之后生成CompiledBeanAccessor, 小于等于0表示不开启
+     */
+    private volatile int compiledInstantiationThreshold = 0;
+
+    /**
+     * 所有bean共用的类型转换器, 线程安全
+     */
+    private volatile SimpleTypeConverter typeConverter = new SimpleTypeConverter();
+
+    /**
+     * 冻结配置后的BeanDefinition表, 为null表示还可以注册新的BeanDefinition
+     */
+    private volatile FrozenBeanDefinitions frozenBeanDefinitions;
+
+    /**
+     * 记录bean创建过程的时间线, 为null表示不记录
+     */
+    private volatile BeanCreationTimeline creationTimeline;
+
+    /**
+     * getBean的运行时统计, 为null表示不统计
+     */
+    private volatile BeanFactoryMetrics metrics;
 
     /**
      * BeanDefinitionRegistry
@@ -39,7 +91,30 @@ public class  DefaultBeanFactory extends DefaultSingletonBeanRegistry
 
     @Override
     public void registerBeanDefinition(String beanId, BeanDefinition bd) {
-        beanDefinitionMap.put(beanId, bd);
+        BeanDefinition oldBd;
+        //与freezeConfiguration使用同一把锁, 冻结之后不会再有BeanDefinition进入map
+        synchronized (this.beanDefinitionNames) {
+            if (this.frozenBeanDefinitions != null) {
+                throw new BeanDefinitionStoreException("Cannot register bean definition [" + beanId
+                        + "]: bean factory configuration has been frozen");
+            }
+            oldBd = beanDefinitionMap.put(beanId, bd);
+            if (oldBd == null) {
+                this.beanDefinitionNames.add(beanId);
+            }
+        }
+        if (oldBd != null) {
+            //同名覆盖, 旧的Definition对应的类型已经失效
+            removeFromTypeIndex(beanId);
+        }
+        unindexedBeanNames.add(beanId);
+    }
+
+    @Override
+    public String[] getBeanDefinitionNames() {
+        synchronized (this.beanDefinitionNames) {
+            return this.beanDefinitionNames.toArray(new String[0]);
+        }
     }
 
     /**
@@ -47,6 +122,25 @@ public class  DefaultBeanFactory extends DefaultSingletonBeanRegistry
      */
     @Override
     public Object getBean(String beanId) {
+        BeanFactoryMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return doGetBean(beanId);
+        }
+        long startTime = System.nanoTime();
+        Object bean = doGetBean(beanId);
+        metrics.recordGetBean(beanId, System.nanoTime() - startTime);
+        return bean;
+    }
+
+    private Object doGetBean(String beanId) {
+        FrozenBeanDefinitions frozen = this.frozenBeanDefinitions;
+        if (frozen != null) {
+            int index = frozen.indexOf(beanId);
+            if (index < 0) {
+                throw new BeanCreationException("BeanDefinition is not exist");
+            }
+            return getBean(frozen, index);
+        }
         BeanDefinition bd = getBeanDefinition(beanId);
         if (Objects.isNull(bd)) {
             throw new BeanCreationException("BeanDefinition is not exist");
@@ -54,25 +148,356 @@ public class  DefaultBeanFactory extends DefaultSingletonBeanRegistry
         if (bd.isSingleton()) {
             //bean的scope是singleton
             Object singletonInstance = super.getSingleton(beanId);
+            recordSingletonLookup(beanId, singletonInstance != null);
             if (singletonInstance == null) {
-                singletonInstance = this.createBean(bd);
-                super.registerSingleton(beanId, singletonInstance);
+                //多个线程同时获取时只会有一个线程创建
+                singletonInstance = super.getSingleton(beanId, () -> this.createBean(bd));
             }
             return singletonInstance;
         }
         return createBean(bd);
     }
 
+    /**
+     * 通过冻结配置时分配的编号获取bean, 已经创建的单例只需要一次数组读取
+     * @param beanIndex {@link #getBeanIndex(String)}返回的编号
+     * @return
+     */
+    public Object getBean(int beanIndex) {
+        FrozenBeanDefinitions frozen = this.frozenBeanDefinitions;
+        if (frozen == null) {
+            throw new IllegalStateException("Bean indexes are only available after freezeConfiguration()");
+        }
+        if (beanIndex < 0 || beanIndex >= frozen.size()) {
+            throw new BeanCreationException("BeanDefinition is not exist for index " + beanIndex);
+        }
+        BeanFactoryMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return getBean(frozen, beanIndex);
+        }
+        long startTime = System.nanoTime();
+        Object bean = getBean(frozen, beanIndex);
+        metrics.recordGetBean(frozen.getBeanName(beanIndex), System.nanoTime() - startTime);
+        return bean;
+    }
+
+    private Object getBean(FrozenBeanDefinitions frozen, int index) {
+        Object singletonInstance = frozen.getSingleton(index);
+        if (singletonInstance != null) {
+            recordSingletonLookup(frozen.getBeanName(index), true);
+            return singletonInstance;
+        }
+        BeanDefinition bd = frozen.getBeanDefinition(index);
+        if (bd.isSingleton()) {
+            String beanId = frozen.getBeanName(index);
+            singletonInstance = super.getSingleton(beanId);
+            recordSingletonLookup(beanId, singletonInstance != null);
+            if (singletonInstance == null) {
+                singletonInstance = super.getSingleton(beanId, () -> this.createBean(bd));
+            }
+            frozen.setSingleton(index, singletonInstance);
+            return singletonInstance;
+        }
+        return createBean(bd);
+    }
+
+    /**
+     * 冻结配置: 之后不能再注册BeanDefinition, 所有的beanId按注册顺序编号, 编号可以通过{@link #getBean(int)}获取bean
+     * 重复调用没有影响
+     */
+    public void freezeConfiguration() {
+        synchronized (this.beanDefinitionNames) {
+            if (this.frozenBeanDefinitions != null) {
+                return;
+            }
+            String[] names = this.beanDefinitionNames.toArray(new String[0]);
+            BeanDefinition[] definitions = new BeanDefinition[names.length];
+            for (int i = 0; i < names.length; i++) {
+                definitions[i] = this.beanDefinitionMap.get(names[i]);
+            }
+            this.frozenBeanDefinitions = new FrozenBeanDefinitions(names, definitions);
+        }
+    }
+
+    public boolean isConfigurationFrozen() {
+        return (this.frozenBeanDefinitions != null);
+    }
+
+    /**
+     * 获取冻结配置时分配给beanId的编号, 热点调用处可以保存编号, 之后通过{@link #getBean(int)}获取bean
+     * @param beanId
+     * @return
+     */
+    public int getBeanIndex(String beanId) {
+        FrozenBeanDefinitions frozen = this.frozenBeanDefinitions;
+        if (frozen == null) {
+            throw new IllegalStateException("Bean indexes are only available after freezeConfiguration()");
+        }
+        int index = frozen.indexOf(beanId);
+        if (index < 0) {
+            throw new BeanCreationException("BeanDefinition is not exist");
+        }
+        return index;
+    }
+
+    private void recordSingletonLookup(String beanId, boolean hit) {
+        BeanFactoryMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordSingletonLookup(beanId, hit);
+        }
+    }
+
     private Object createBean(BeanDefinition bd) {
+        BeanFactoryMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordCreation(bd.getId(), bd.isSingleton());
+        }
+        BeanCreationTimeline timeline = this.creationTimeline;
+        if (timeline == null) {
+            return doCreateBean(bd, null);
+        }
+        BeanCreationTimeline.Recording creation = timeline.start(BeanCreationTimeline.Phase.CREATE, bd.getId(), null);
+        try {
+            return doCreateBean(bd, timeline);
+        } finally {
+            creation.end();
+        }
+    }
+
+    /**
+     * 完整的创建过程: beforeInstantiation --> 实例化 --> afterInstantiation --> 属性注入 --> beforeInitialization --> afterInitialization
+     * @param bd
+     * @param timeline 为null时不记录时间线
+     * @return
+     */
+    private Object doCreateBean(BeanDefinition bd, BeanCreationTimeline timeline) {
+        BeanPostProcessorChain chain = this.postProcessorChain;
+        //类加载失败时由下面的实例化抛出BeanCreationException
+        Class<?> beanClass = (chain.isEmpty() ? null : resolveBeanClassQuietly(bd));
+        if (beanClass != null) {
+            chain = chain.forBeanClass(beanClass);
+            if (chain.beforeInstantiation.length > 0) {
+                Object bean = applyBeforeInstantiation(chain, bd, timeline);
+                if (bean != null) {
+                    //processor直接提供了bean, 例如代理, 只需要再经过afterInitialization
+                    return applyAfterInitialization(chain, bd, bean, timeline);
+                }
+            }
+        }
+        checkConversionCaches(bd);
+        CompiledBeanAccessor accessor = obtainCompiledAccessor(bd);
         // 创建实例
-        Object bean = instantiateBean(bd);
+        Object bean;
+        BeanCreationTimeline.Recording instantiation = (timeline != null ?
+                timeline.start(BeanCreationTimeline.Phase.INSTANTIATE, bd.getId(), null) : null);
+        StartupStep step = startStep(ApplicationStartup.BEAN_INSTANTIATE, bd);
+        try {
+            bean = (accessor != null ? instantiateBean(bd, accessor) : null);
+            if (bean == null) {
+                //没有生成accessor, 或者accessor在运行时无法访问需要的类型
+                accessor = null;
+                bean = instantiateBean(bd);
+            } else if (instantiation != null) {
+                //确认accessor完成了实例化之后再标记, 回退到反射时不标记
+                instantiation.setDetail("compiled");
+            }
+        } finally {
+            step.end();
+            endRecording(instantiation);
+        }
         // 设置属性,  如setter注入
-        populateBean(bd, bean);
+        BeanCreationTimeline.Recording population = (timeline != null ?
+                timeline.start(BeanCreationTimeline.Phase.POPULATE, bd.getId(), null) : null);
+        step = startStep(ApplicationStartup.BEAN_POPULATE, bd);
+        try {
+            populateBean(bd, bean, accessor, chain, timeline);
+        } finally {
+            step.end();
+            endRecording(population);
+        }
         //使用commons-beanutils封装的方法直接setproperty中声明的值
         //populateBeanUseCommonBeanUtils(bd, bean);
+        if (chain.beforeInitialization.length > 0) {
+            bean = applyBeforeInitialization(chain, bd, bean, timeline);
+        }
+        if (chain.afterInitialization.length > 0) {
+            bean = applyAfterInitialization(chain, bd, bean, timeline);
+        }
         return bean;
     }
 
+    private static StartupStep startStep(String name, BeanDefinition bd) {
+        return ApplicationStartups.get().start(name)
+                .tag(ApplicationStartup.TAG_BEAN_NAME, bd.getId())
+                .tag(ApplicationStartup.TAG_BEAN_CLASS, bd.getBeanClassName())
+                .tag(ApplicationStartup.TAG_SCOPE, bd.getScope());
+    }
+
+    private static BeanCreationTimeline.Recording startPostProcess(BeanCreationTimeline timeline, BeanDefinition bd,
+                                                                   BeanPostProcessor processor, String methodName) {
+        return (timeline != null ? timeline.start(BeanCreationTimeline.Phase.POST_PROCESS, bd.getId(),
+                processor.getClass().getName() + "." + methodName) : null);
+    }
+
+    private static void endRecording(BeanCreationTimeline.Recording recording) {
+        if (recording != null) {
+            recording.end();
+        }
+    }
+
+    private Object applyBeforeInstantiation(BeanPostProcessorChain chain, BeanDefinition bd, BeanCreationTimeline timeline) {
+        for (InstantiationAwareBeanPostProcessor processor : chain.beforeInstantiation) {
+            BeanCreationTimeline.Recording recording = startPostProcess(timeline, bd, processor, "beforeInstantiation");
+            try {
+                Object bean = processor.beforeInstantiation(bd.getBeanClass(), bd.getId());
+                if (bean != null) {
+                    return bean;
+                }
+            } finally {
+                endRecording(recording);
+            }
+        }
+        return null;
+    }
+
+    private Object applyBeforeInitialization(BeanPostProcessorChain chain, BeanDefinition bd, Object bean,
+                                             BeanCreationTimeline timeline) {
+        Object result = bean;
+        for (BeanPostProcessor processor : chain.beforeInitialization) {
+            BeanCreationTimeline.Recording recording = startPostProcess(timeline, bd, processor, "beforeInitialization");
+            Object current;
+            try {
+                current = processor.beforeInitialization(result, bd.getId());
+            } finally {
+                endRecording(recording);
+            }
+            if (current == null) {
+                return result;
+            }
+            result = current;
+        }
+        return result;
+    }
+
+    private Object applyAfterInitialization(BeanPostProcessorChain chain, BeanDefinition bd, Object bean,
+                                            BeanCreationTimeline timeline) {
+        Object result = bean;
+        for (BeanPostProcessor processor : chain.afterInitialization) {
+            BeanCreationTimeline.Recording recording = startPostProcess(timeline, bd, processor, "afterInitialization");
+            Object current;
+            try {
+                current = processor.afterInitialization(result, bd.getId());
+            } finally {
+                endRecording(recording);
+            }
+            if (current == null) {
+                return result;
+            }
+            result = current;
+        }
+        return result;
+    }
+
+    /**
+     * 开启编译模式时, prototype bean创建的次数超过阈值后生成CompiledBeanAccessor, 生成失败时返回null继续使用反射
+     * @param bd
+     * @return
+     */
+    private CompiledBeanAccessor obtainCompiledAccessor(BeanDefinition bd) {
+        int threshold = this.compiledInstantiationThreshold;
+        if (threshold <= 0 || !bd.isPrototype() || !(bd instanceof GenericBeanDefinition)) {
+            return null;
+        }
+        GenericBeanDefinition gbd = (GenericBeanDefinition) bd;
+        CompiledBeanAccessor accessor = gbd.compiledAccessor;
+        if (accessor != null || gbd.compiledAccessorUnavailable || gbd.instantiationCount.incrementAndGet() <= threshold) {
+            return accessor;
+        }
+        //之前通过反射创建时已经缓存了构造器和setter, 还没有缓存(例如之前创建失败)就等下一次
+        if (!gbd.hasBeanClass()) {
+            return null;
+        }
+        Class<?> beanClass = gbd.getBeanClass();
+        Constructor<?> constructor = gbd.resolvedConstructor;
+        if (!gbd.hasConstructorArgumentValues()) {
+            try {
+                constructor = beanClass.getConstructor();
+            } catch (NoSuchMethodException e) {
+                gbd.compiledAccessorUnavailable = true;
+                return null;
+            }
+        }
+        PropertyInjectionPlan plan = gbd.propertyInjectionPlan;
+        boolean hasPropertyValues = !gbd.getPropertyValue().isEmpty();
+        if (constructor == null || (hasPropertyValues && (plan == null || plan.getBeanClass() != beanClass))) {
+            return null;
+        }
+        synchronized (gbd) {
+            if (gbd.compiledAccessor == null && !gbd.compiledAccessorUnavailable) {
+                accessor = CompiledBeanAccessorGenerator.generate(beanClass, constructor,
+                        hasPropertyValues ? plan.getSetters() : new Method[0]);
+                if (accessor != null) {
+                    gbd.compiledAccessor = accessor;
+                } else {
+                    gbd.compiledAccessorUnavailable = true;
+                }
+            }
+            return gbd.compiledAccessor;
+        }
+    }
+
+    /**
+     * 缓存的构造器参数、注入计划和accessor都包含了转换后的值, 工厂更换ConversionService之后全部丢弃, 使用新的ConversionService重新生成
+     */
+    private void checkConversionCaches(BeanDefinition bd) {
+        if (!(bd instanceof GenericBeanDefinition)) {
+            return;
+        }
+        GenericBeanDefinition gbd = (GenericBeanDefinition) bd;
+        ConversionService conversionService = getConversionService();
+        if (gbd.cachedConversionService == conversionService) {
+            return;
+        }
+        synchronized (gbd) {
+            if (gbd.cachedConversionService != conversionService) {
+                gbd.resolvedConstructor = null;
+                gbd.propertyInjectionPlan = null;
+                gbd.compiledAccessor = null;
+                gbd.cachedConversionService = conversionService;
+            }
+        }
+    }
+
+    /**
+     * 生成的accessor在运行时访问失败(例如IllegalAccessError), 之后这个bean一直使用反射
+     */
+    private void disableCompiledAccessor(BeanDefinition bd, LinkageError error) {
+        GenericBeanDefinition gbd = (GenericBeanDefinition) bd;
+        synchronized (gbd) {
+            gbd.compiledAccessorUnavailable = true;
+            gbd.compiledAccessor = null;
+        }
+        if (logger.isWarnEnabled()) {
+            logger.warn("Compiled accessor for bean [" + bd.getId() + "] failed, falling back to reflection", error);
+        }
+    }
+
+    /**
+     * @return accessor无法使用时返回null
+     */
+    private Object instantiateBean(BeanDefinition bd, CompiledBeanAccessor accessor) {
+        Object[] args = (bd.hasConstructorArgumentValues() ?
+                new ConstructorResolver(this).resolveCachedArguments((GenericBeanDefinition) bd) : new Object[0]);
+        try {
+            return accessor.newInstance(args);
+        } catch (LinkageError e) {
+            disableCompiledAccessor(bd, e);
+            return null;
+        } catch (Exception e) {
+            throw new BeanCreationException(bd.getId(), "create bean for " + bd.getBeanClassName() + " failed", e);
+        }
+    }
+
     private Object instantiateBean(BeanDefinition bd) {
         if (bd.hasConstructorArgumentValues()) {
             //存在有参构造器
@@ -93,11 +518,25 @@ public class  DefaultBeanFactory extends DefaultSingletonBeanRegistry
         }
     }
 
-    private void populateBean(BeanDefinition bd, Object bean) {
-
-        for (BeanPostProcessor processor : this.getBeanPostProcessors()) {
-            if (processor instanceof InstantiationAwareBeanPostProcessor) {
-                ((InstantiationAwareBeanPostProcessor) processor).postProcessPropertyValues(bean, bd.getId());
+    private void populateBean(BeanDefinition bd, Object bean, CompiledBeanAccessor accessor, BeanPostProcessorChain chain,
+                              BeanCreationTimeline timeline) {
+        for (InstantiationAwareBeanPostProcessor processor : chain.afterInstantiation) {
+            BeanCreationTimeline.Recording recording = startPostProcess(timeline, bd, processor, "afterInstantiation");
+            try {
+                if (!processor.afterInstantiation(bean, bd.getId())) {
+                    //processor已经自己完成了属性注入
+                    return;
+                }
+            } finally {
+                endRecording(recording);
+            }
+        }
+        for (InstantiationAwareBeanPostProcessor processor : chain.propertyValues) {
+            BeanCreationTimeline.Recording recording = startPostProcess(timeline, bd, processor, "postProcessPropertyValues");
+            try {
+                processor.postProcessPropertyValues(bean, bd.getId());
+            } finally {
+                endRecording(recording);
             }
         }
 
@@ -106,30 +545,44 @@ public class  DefaultBeanFactory extends DefaultSingletonBeanRegistry
         if (pvs == null || pvs.isEmpty()) {
             return;
         }
-        BeanDefinitionValueResolver resolver = new BeanDefinitionValueResolver(this);
-        SimpleTypeConverter converter = new SimpleTypeConverter();
         try {
-            for (PropertyValue pv : pvs) {
-                String propertyName = pv.getName();
-                Object assembleValue = pv.getValue();
-                //value or ref对应的bean
-                Object resolvedValue = resolver.resolveValueIfNecessary(assembleValue);
-                BeanInfo beanInfo = Introspector.getBeanInfo(bean.getClass());
-                //属性的描述器, 每次循环都会获取bean中声明的所有属性, 将其和propertyName进行匹配, 命中就通过反射set值
-                PropertyDescriptor[] pds = beanInfo.getPropertyDescriptors();
-                for (PropertyDescriptor pd : pds) {
-                    if (pd.getName().equals(propertyName)) {
-                        Object convertedValue = converter.convertIfNecessary(resolvedValue, pd.getPropertyType());
-                        pd.getWriteMethod().invoke(bean, convertedValue);
-                        break;
-                    }
+            if (accessor != null) {
+                PropertyInjectionPlan plan = ((GenericBeanDefinition) bd).propertyInjectionPlan;
+                Object[] values = plan.resolveValues(this);
+                try {
+                    accessor.injectProperties(bean, values);
+                    return;
+                } catch (LinkageError e) {
+                    disableCompiledAccessor(bd, e);
                 }
             }
-        } catch (Exception ex) {
-            throw new BeanCreationException("Failed to obtain BeanInfo for class [" + bd.getBeanClassName() + "]", ex);
+            getPropertyInjectionPlan(bd, bean.getClass()).inject(bean, this);
+        } catch (Error err) {
+            throw err;
+        } catch (Throwable ex) {
+            throw new BeanCreationException(bd.getId(), "Failed to set property values for class [" + bd.getBeanClassName() + "]", ex);
         }
     }
 
+    /**
+     * 获取bean的setter注入计划, GenericBeanDefinition会缓存生成的计划, 之后同一个bean的创建不再需要内省和类型转换
+     * @param bd
+     * @param beanClass
+     * @return
+     * @throws Exception
+     */
+    private PropertyInjectionPlan getPropertyInjectionPlan(BeanDefinition bd, Class<?> beanClass) throws Exception {
+        GenericBeanDefinition gbd = (bd instanceof GenericBeanDefinition ? (GenericBeanDefinition) bd : null);
+        PropertyInjectionPlan plan = (gbd != null ? gbd.propertyInjectionPlan : null);
+        if (plan == null || plan.getBeanClass() != beanClass) {
+            plan = PropertyInjectionPlan.build(bd, beanClass, getTypeConverter());
+            if (gbd != null) {
+                gbd.propertyInjectionPlan = plan;
+            }
+        }
+        return plan;
+    }
+
     private void populateBeanUseCommonBeanUtils(BeanDefinition bd, Object bean) {
         //取出这个bean中所有的propertyValue, 也有可能没有
         List<PropertyValue> pvs = bd.getPropertyValue();
@@ -151,6 +604,60 @@ public class  DefaultBeanFactory extends DefaultSingletonBeanRegistry
     }
 
 
+    /**
+     * 开启或关闭bean创建时间线, 开启后每个bean的创建、实例化、属性注入以及BeanPostProcessor调用都会记录耗时
+     * @param creationTimeline 为null时关闭
+     */
+    public void setCreationTimeline(BeanCreationTimeline creationTimeline) {
+        this.creationTimeline = creationTimeline;
+    }
+
+    public BeanCreationTimeline getCreationTimeline() {
+        return this.creationTimeline;
+    }
+
+    /**
+     * 开启或关闭getBean的运行时统计, 开启后记录每个bean的调用次数、耗时分布、创建次数和单例缓存命中率
+     * @param metrics 为null时关闭
+     */
+    public void setMetrics(BeanFactoryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public BeanFactoryMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * 开启编译模式: prototype bean通过反射创建threshold次之后, 为其生成直接调用构造器和setter的字节码
+     * @param threshold 小于等于0表示关闭
+     */
+    public void setCompiledInstantiationThreshold(int threshold) {
+        this.compiledInstantiationThreshold = threshold;
+    }
+
+    public int getCompiledInstantiationThreshold() {
+        return this.compiledInstantiationThreshold;
+    }
+
+    /**
+     * 已经创建过的bean在下一次创建时使用新的ConversionService重新生成缓存的构造器参数和注入计划
+     * @param conversionService
+     */
+    @Override
+    public void setConversionService(ConversionService conversionService) {
+        this.typeConverter = new SimpleTypeConverter(conversionService);
+    }
+
+    @Override
+    public ConversionService getConversionService() {
+        return this.typeConverter.getConversionService();
+    }
+
+    SimpleTypeConverter getTypeConverter() {
+        return this.typeConverter;
+    }
+
     @Override
     public void setBeanClassLoader(ClassLoader classLoader) {
         this.beanClassLoader = classLoader;
@@ -169,16 +676,125 @@ public class  DefaultBeanFactory extends DefaultSingletonBeanRegistry
     @Override
     public Object resolveDependency(DependencyDescriptor descriptor) {
         Class<?> typeToMatch = descriptor.getDependencyType();
-        for (BeanDefinition bd : this.beanDefinitionMap.values()) {
-            //确保BeanDefinition对象中 有beanClass对象
-            resolveBeanClass(bd);
-            Class<?> beanClass = bd.getBeanClass();
-            //默认要依赖注入的bean已经提前缓存到BeanFactory中
-            if (typeToMatch.isAssignableFrom(beanClass)) {
-                return this.getBean(bd.getId());
+        StartupStep step = ApplicationStartups.get().start(ApplicationStartup.BEAN_AUTOWIRE)
+                .tag(ApplicationStartup.TAG_DEPENDENCY_TYPE, typeToMatch.getName());
+        try {
+            String[] candidateNames = getBeanNamesForType(typeToMatch);
+            if (candidateNames.length == 0) {
+                return null;
             }
+            step.tag(ApplicationStartup.TAG_BEAN_NAME, candidateNames[0]);
+            //默认取第一个注册的候选bean
+            return this.getBean(candidateNames[0]);
+        } finally {
+            step.end();
+        }
+    }
+
+    /**
+     * 通过类型索引获取所有能赋值给该类型的beanId, 按注册顺序返回
+     * @param type
+     * @return 不会返回null
+     */
+    public String[] getBeanNamesForType(Class<?> type) {
+        indexPendingBeanDefinitions();
+        String[] beanNames = this.beanNamesByType.get(type);
+        return beanNames != null ? beanNames : new String[0];
+    }
+
+    /**
+     * 将还未索引的BeanDefinition加入类型索引, 同一批次的新增beanId合并后一次性替换数组
+     */
+    private void indexPendingBeanDefinitions() {
+        if (this.unindexedBeanNames.isEmpty()) {
+            return;
+        }
+        synchronized (this.beanNamesByType) {
+            Map<Class<?>, List<String>> additions = new LinkedHashMap<>();
+            List<String> indexed = new ArrayList<>();
+            for (String beanName : this.unindexedBeanNames) {
+                BeanDefinition bd = this.beanDefinitionMap.get(beanName);
+                Class<?> beanClass = (bd != null ? resolveBeanClassQuietly(bd) : null);
+                if (beanClass != null) {
+                    for (Class<?> type : getTypeHierarchy(beanClass)) {
+                        additions.computeIfAbsent(type, k -> new ArrayList<>()).add(beanName);
+                    }
+                }
+                indexed.add(beanName);
+            }
+            mergeIntoTypeIndex(additions);
+            //索引合并完成之后再出队, 保证其他线程看到队列为空时索引已经是完整的
+            for (int i = 0; i < indexed.size(); i++) {
+                this.unindexedBeanNames.poll();
+            }
+        }
+    }
+
+    private void mergeIntoTypeIndex(Map<Class<?>, List<String>> additions) {
+        for (Map.Entry<Class<?>, List<String>> entry : additions.entrySet()) {
+            String[] existing = this.beanNamesByType.get(entry.getKey());
+            int oldLength = (existing != null ? existing.length : 0);
+            String[] merged = (existing != null ? Arrays.copyOf(existing, oldLength + entry.getValue().size())
+                    : new String[entry.getValue().size()]);
+            for (String name : entry.getValue()) {
+                merged[oldLength++] = name;
+            }
+            this.beanNamesByType.put(entry.getKey(), merged);
+        }
+    }
+
+    private void removeFromTypeIndex(String beanName) {
+        synchronized (this.beanNamesByType) {
+            this.unindexedBeanNames.remove(beanName);
+            for (Map.Entry<Class<?>, String[]> entry : this.beanNamesByType.entrySet()) {
+                String[] names = entry.getValue();
+                for (int i = 0; i < names.length; i++) {
+                    if (names[i].equals(beanName)) {
+                        String[] removed = new String[names.length - 1];
+                        System.arraycopy(names, 0, removed, 0, i);
+                        System.arraycopy(names, i + 1, removed, i, names.length - i - 1);
+                        entry.setValue(removed);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取一个类本身及其所有的父类和接口
+     * @param beanClass
+     * @return
+     */
+    private Set<Class<?>> getTypeHierarchy(Class<?> beanClass) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        Deque<Class<?>> toVisit = new ArrayDeque<>();
+        toVisit.add(beanClass);
+        while (!toVisit.isEmpty()) {
+            Class<?> type = toVisit.poll();
+            if (!types.add(type)) {
+                continue;
+            }
+            if (type.getSuperclass() != null) {
+                toVisit.add(type.getSuperclass());
+            }
+            Collections.addAll(toVisit, type.getInterfaces());
+        }
+        return types;
+    }
+
+    /**
+     * 类加载失败的bean不参与类型匹配, 真正getBean时才会报错
+     * @param bd
+     * @return
+     */
+    private Class<?> resolveBeanClassQuietly(BeanDefinition bd) {
+        try {
+            resolveBeanClass(bd);
+            return bd.getBeanClass();
+        } catch (RuntimeException e) {
+            return null;
         }
-        return null;
     }
 
     private void resolveBeanClass(BeanDefinition bd) {
@@ -196,11 +812,17 @@ public class  DefaultBeanFactory extends DefaultSingletonBeanRegistry
 
     @Override
     public void addBeanPostProcessor(BeanPostProcessor postProcessor) {
-        this.beanPostProcessors.add(postProcessor);
+        synchronized (this.beanPostProcessors) {
+            this.beanPostProcessors.add(postProcessor);
+            this.postProcessorChain = new BeanPostProcessorChain(this.beanPostProcessors.toArray(new BeanPostProcessor[0]));
+        }
     }
 
+    /**
+     * @return 只读的列表, 注册processor需要通过{@link #addBeanPostProcessor(BeanPostProcessor)}
+     */
     @Override
     public List<BeanPostProcessor> getBeanPostProcessors() {
-        return this.beanPostProcessors;
+        return Collections.unmodifiableList(this.beanPostProcessors);
     }
 }
\ No newline at end of file
@@ -1,32 +1,146 @@
 package org.imitatespring.beans.factory.support;
 
+import org.imitatespring.beans.factory.BeanCreationException;
+import org.imitatespring.beans.factory.BeanCurrentlyInCreationException;
 import org.imitatespring.beans.factory.config.SingletonBeanRegistry;
 import org.imitatespring.util.Assert;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * 注册获取scope为singleton的bean
+ * 已经创建好的单例直接从ConcurrentHashMap中读取, 不加锁; 创建单例时每个beanName使用单独的锁, 不同的单例可以并行创建
  * @author liaocx
  */
 public class DefaultSingletonBeanRegistry implements SingletonBeanRegistry {
 
+    /**
+     * 等待单例创建锁时, 每隔多久检查一次是否出现了线程之间的互相等待
+     */
+    private static final long DEADLOCK_CHECK_INTERVAL_MILLIS = 50;
+
     private final Map<String, Object> singletonObjs = new ConcurrentHashMap<>(64);
 
+    /**
+     * 正在创建的单例的锁, 单例注册完成后移除
+     */
+    private final Map<String, ReentrantLock> singletonLocks = new ConcurrentHashMap<>(16);
+
+    /**
+     * 正在创建的单例 --> 创建它的线程
+     */
+    private final Map<String, Thread> singletonsCurrentlyInCreation = new ConcurrentHashMap<>(16);
+
+    /**
+     * 正在等待创建锁的线程 --> 它在等待的单例
+     */
+    private final Map<Thread, String> threadsWaitingForSingleton = new ConcurrentHashMap<>(16);
+
     @Override
     public void registerSingleton(String beanName, Object singletonObj) {
         Assert.notNull(beanName, "'beanName' must not be null");
-        Object oldObj = getSingleton(beanName);
+        Object oldObj = singletonObjs.putIfAbsent(beanName, singletonObj);
         if (oldObj != null) {
             throw new IllegalStateException("Could not register object [" + singletonObj +
                     "] under bean name '" + beanName + "': there is already object [" + oldObj + "] bound");
         }
-        singletonObjs.put(beanName, singletonObj);
     }
 
     @Override
     public Object getSingleton(String beanName) {
         return singletonObjs.get(beanName);
     }
+
+    /**
+     * 获取单例, 不存在时通过singletonFactory创建并注册, 多个线程同时获取时只会创建一次
+     * @param beanName
+     * @param singletonFactory
+     * @return
+     */
+    public Object getSingleton(String beanName, Supplier<?> singletonFactory) {
+        Assert.notNull(beanName, "'beanName' must not be null");
+        Object singletonObj = this.singletonObjs.get(beanName);
+        if (singletonObj != null) {
+            return singletonObj;
+        }
+        ReentrantLock lock = this.singletonLocks.computeIfAbsent(beanName, k -> new ReentrantLock());
+        acquireCreationLock(beanName, lock);
+        try {
+            //拿到锁之后再检查一次, 可能已经被其他线程创建
+            singletonObj = this.singletonObjs.get(beanName);
+            if (singletonObj != null) {
+                return singletonObj;
+            }
+            //锁是可重入的, 已经存在说明是当前线程在创建过程中又依赖了自己
+            if (this.singletonsCurrentlyInCreation.putIfAbsent(beanName, Thread.currentThread()) != null) {
+                throw new BeanCurrentlyInCreationException(beanName);
+            }
+            try {
+                singletonObj = singletonFactory.get();
+                this.singletonObjs.put(beanName, singletonObj);
+            } finally {
+                this.singletonsCurrentlyInCreation.remove(beanName);
+            }
+            return singletonObj;
+        } finally {
+            lock.unlock();
+            if (this.singletonObjs.containsKey(beanName)) {
+                //之后的线程都会走无锁的读取, 还在等待的线程拿到锁后会重新检查
+                this.singletonLocks.remove(beanName, lock);
+            }
+        }
+    }
+
+    public boolean isSingletonCurrentlyInCreation(String beanName) {
+        return this.singletonsCurrentlyInCreation.containsKey(beanName);
+    }
+
+    private void acquireCreationLock(String beanName, ReentrantLock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+        Thread current = Thread.currentThread();
+        this.threadsWaitingForSingleton.put(current, beanName);
+        try {
+            while (!lock.tryLock(DEADLOCK_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (isWaitingForItself(current, beanName)) {
+                    throw new BeanCurrentlyInCreationException(beanName, "Deadlock detected: thread '" +
+                            current.getName() + "' and the thread creating this bean are waiting for each other");
+                }
+            }
+        } catch (InterruptedException ex) {
+            current.interrupt();
+            throw new BeanCreationException(beanName, "Interrupted while waiting for singleton creation", ex);
+        } finally {
+            this.threadsWaitingForSingleton.remove(current);
+        }
+    }
+
+    /**
+     * 沿着 "单例 --> 创建它的线程 --> 该线程等待的单例" 查找, 回到当前线程说明出现了死锁
+     * @param current
+     * @param beanName
+     * @return
+     */
+    private boolean isWaitingForItself(Thread current, String beanName) {
+        Set<Thread> visited = new HashSet<>();
+        Thread owner = this.singletonsCurrentlyInCreation.get(beanName);
+        while (owner != null && visited.add(owner)) {
+            if (owner == current) {
+                return true;
+            }
+            String next = this.threadsWaitingForSingleton.get(owner);
+            if (next == null) {
+                return false;
+            }
+            owner = this.singletonsCurrentlyInCreation.get(next);
+        }
+        return false;
+    }
 }
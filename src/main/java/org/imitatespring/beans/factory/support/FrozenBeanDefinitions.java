@@ -0,0 +1,87 @@
+package org.imitatespring.beans.factory.support;
+
+import org.imitatespring.beans.factory.config.BeanDefinition;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 冻结配置后不可变的BeanDefinition表, beanId按注册顺序编号:
+ * beanId --> 编号使用开放寻址的散列表(数组长度为2的幂, 线性探测), 编号 --> BeanDefinition和单例都是数组下标访问
+ * @author liaocx
+ */
+final class FrozenBeanDefinitions {
+
+    private final String[] beanNames;
+
+    private final BeanDefinition[] beanDefinitions;
+
+    /**
+     * 已经创建的单例, 与beanNames一一对应, 通过AtomicReferenceArray保证其他线程看到的是完整创建的对象
+     */
+    private final AtomicReferenceArray<Object> singletons;
+
+    private final String[] hashedNames;
+
+    private final int[] hashedIndexes;
+
+    private final int mask;
+
+    FrozenBeanDefinitions(String[] beanNames, BeanDefinition[] beanDefinitions) {
+        this.beanNames = beanNames;
+        this.beanDefinitions = beanDefinitions;
+        this.singletons = new AtomicReferenceArray<>(beanNames.length);
+        //装载因子不超过0.5, 探测序列很短
+        int capacity = Integer.highestOneBit(Math.max(beanNames.length, 1) * 2 - 1) << 1;
+        this.hashedNames = new String[capacity];
+        this.hashedIndexes = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < beanNames.length; i++) {
+            int slot = spread(beanNames[i].hashCode()) & this.mask;
+            while (this.hashedNames[slot] != null) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.hashedNames[slot] = beanNames[i];
+            this.hashedIndexes[slot] = i;
+        }
+    }
+
+    /**
+     * @param beanName
+     * @return 不存在时返回-1
+     */
+    int indexOf(String beanName) {
+        int slot = spread(beanName.hashCode()) & this.mask;
+        String candidate;
+        while ((candidate = this.hashedNames[slot]) != null) {
+            if (candidate.equals(beanName)) {
+                return this.hashedIndexes[slot];
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    int size() {
+        return this.beanNames.length;
+    }
+
+    String getBeanName(int index) {
+        return this.beanNames[index];
+    }
+
+    BeanDefinition getBeanDefinition(int index) {
+        return this.beanDefinitions[index];
+    }
+
+    Object getSingleton(int index) {
+        return this.singletons.get(index);
+    }
+
+    void setSingleton(int index, Object singleton) {
+        this.singletons.lazySet(index, singleton);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
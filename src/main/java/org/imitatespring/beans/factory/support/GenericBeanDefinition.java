@@ -4,10 +4,13 @@ import org.imitatespring.beans.ConstructorArgument;
 import org.imitatespring.beans.PropertyValue;
 import org.imitatespring.beans.factory.BeanCreationException;
 import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.core.convert.ConversionService;
 
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * bean在spring容器中的数据结构
@@ -21,6 +24,8 @@ public class GenericBeanDefinition implements BeanDefinition {
 
     private String scope = SCOPE_DEFAULT;
 
+    private boolean lazyInit = false;
+
     private List<PropertyValue> propertyValues = new ArrayList<>();
 
     //最开始这个属性没有初始化, 导致通过它addArgumentValue时报NullPoint异常
@@ -28,6 +33,48 @@ public class GenericBeanDefinition implements BeanDefinition {
 
     private Class<?> beanClass;
 
+    /**
+     * 生成下面这些缓存时工厂使用的ConversionService, 工厂更换ConversionService后缓存需要重新生成
+     */
+    volatile ConversionService cachedConversionService;
+
+    /**
+     * 缓存的setter注入计划, 由DefaultBeanFactory在第一次populateBean时生成
+     */
+    volatile PropertyInjectionPlan propertyInjectionPlan;
+
+    /**
+     * ConstructorResolver第一次匹配成功后缓存的构造器, 不为null时下面三个数组已经准备好
+     */
+    volatile Constructor<?> resolvedConstructor;
+
+    /**
+     * 预先转换好的构造器参数, ref对应的位置为null, 转换结果是可变对象的位置存放原始字符串
+     */
+    Object[] preparedConstructorArguments;
+
+    /**
+     * 需要每次创建时重新转换的构造器参数(数组、集合等可变对象)的参数类型, 其他位置为null
+     */
+    Class<?>[] constructorArgumentConversionTypes;
+
+    /**
+     * 构造器参数中ref对应的beanId, value对应的位置为null
+     */
+    String[] constructorArgumentRefs;
+
+    /**
+     * 通过DefaultBeanFactory创建的次数, 用于判断是否需要生成CompiledBeanAccessor
+     */
+    final AtomicInteger instantiationCount = new AtomicInteger();
+
+    volatile CompiledBeanAccessor compiledAccessor;
+
+    /**
+     * 生成CompiledBeanAccessor失败之后不再重试, 一直使用反射
+     */
+    volatile boolean compiledAccessorUnavailable;
+
     public GenericBeanDefinition(String id, String beanClassName) {
         this.id = id;
         this.beanClassName = beanClassName;
@@ -55,6 +102,16 @@ public class GenericBeanDefinition implements BeanDefinition {
         this.scope = scope;
     }
 
+    @Override
+    public boolean isLazyInit() {
+        return this.lazyInit;
+    }
+
+    @Override
+    public void setLazyInit(boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
     @Override
     public List<PropertyValue> getPropertyValue() {
         return this.propertyValues;
@@ -0,0 +1,344 @@
+package org.imitatespring.beans.factory.support;
+
+import org.imitatespring.beans.PropertyValue;
+import org.imitatespring.beans.TypeConverter;
+import org.imitatespring.beans.factory.BeanCreationException;
+import org.imitatespring.beans.factory.BeanFactory;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.RuntimeBeanReference;
+import org.imitatespring.beans.factory.config.TypedStringValue;
+import org.imitatespring.util.ClassUtils;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * setter注入的执行计划, 每个BeanDefinition只生成一次:
+ * 预先找到每个property的setter并转成MethodHandle, value属性预先转换成目标类型, ref属性只记录需要获取的beanId
+ * @author liaocx
+ */
+final class PropertyInjectionPlan {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> beanClass;
+
+    private final MethodHandle[] writeMethods;
+
+    /**
+     * 与writeMethods对应的原始setter, 用于生成CompiledBeanAccessor
+     */
+    private final Method[] setters;
+
+    /**
+     * 与writeMethods一一对应, value属性存放转换后的值, ref属性为null
+     * 转换结果是数组、集合等可变对象时存放原始字符串, 每次注入时重新转换, 避免prototype实例之间共用同一个对象
+     */
+    private final Object[] literalValues;
+
+    /**
+     * 与writeMethods一一对应, 需要每次注入时重新转换的value属性存放setter的参数类型, 其他为null
+     */
+    private final Class<?>[] conversionTypes;
+
+    private final TypeConverter converter;
+
+    /**
+     * 与writeMethods一一对应, ref属性存放依赖的beanId, value属性为null
+     */
+    private final String[] refNames;
+
+    /**
+     * 与writeMethods一一对应, setter参数是基本类型的value属性存放持有基本类型值的writer, 注入时不需要拆箱
+     */
+    private final PrimitiveWriter[] primitiveWriters;
+
+    private PropertyInjectionPlan(Class<?> beanClass, Method[] setters, MethodHandle[] writeMethods,
+                                  Object[] literalValues, Class<?>[] conversionTypes, TypeConverter converter,
+                                  String[] refNames, PrimitiveWriter[] primitiveWriters) {
+        this.beanClass = beanClass;
+        this.setters = setters;
+        this.writeMethods = writeMethods;
+        this.literalValues = literalValues;
+        this.conversionTypes = conversionTypes;
+        this.converter = converter;
+        this.refNames = refNames;
+        this.primitiveWriters = primitiveWriters;
+    }
+
+    static PropertyInjectionPlan build(BeanDefinition bd, Class<?> beanClass, TypeConverter converter) throws Exception {
+        PropertyDescriptor[] pds = Introspector.getBeanInfo(beanClass).getPropertyDescriptors();
+        List<PropertyValue> pvs = bd.getPropertyValue();
+        List<Method> setters = new ArrayList<>(pvs.size());
+        List<MethodHandle> writeMethods = new ArrayList<>(pvs.size());
+        List<Object> literalValues = new ArrayList<>(pvs.size());
+        List<Class<?>> conversionTypes = new ArrayList<>(pvs.size());
+        List<String> refNames = new ArrayList<>(pvs.size());
+        List<PrimitiveWriter> primitiveWriters = new ArrayList<>(pvs.size());
+        for (PropertyValue pv : pvs) {
+            PropertyDescriptor pd = findPropertyDescriptor(pds, pv.getName());
+            if (pd == null || pd.getWriteMethod() == null) {
+                //配置的property写错或者只有getter, 不能静默忽略
+                throw new BeanCreationException(bd.getId(), "Property '" + pv.getName() + "' of bean class ["
+                        + beanClass.getName() + "] is not writable or has no setter");
+            }
+            setters.add(pd.getWriteMethod());
+            writeMethods.add(toMethodHandle(pd.getWriteMethod()));
+            Object value = pv.getValue();
+            if (value instanceof RuntimeBeanReference) {
+                literalValues.add(null);
+                conversionTypes.add(null);
+                refNames.add(((RuntimeBeanReference) value).getBeanName());
+                primitiveWriters.add(null);
+            } else if (value instanceof TypedStringValue) {
+                String source = ((TypedStringValue) value).getValue();
+                Object converted = converter.convertIfNecessary(source, pd.getPropertyType());
+                if (ClassUtils.isImmutableValue(converted)) {
+                    literalValues.add(converted);
+                    conversionTypes.add(null);
+                } else {
+                    literalValues.add(source);
+                    conversionTypes.add(pd.getPropertyType());
+                }
+                refNames.add(null);
+                primitiveWriters.add(PrimitiveWriter.forValue(pd.getWriteMethod(), converted));
+            } else {
+                throw new BeanCreationException(bd.getId(), "the value " + value + " has not implemented");
+            }
+        }
+        return new PropertyInjectionPlan(beanClass, setters.toArray(new Method[0]),
+                writeMethods.toArray(new MethodHandle[0]), literalValues.toArray(), conversionTypes.toArray(new Class<?>[0]),
+                converter, refNames.toArray(new String[0]),
+                primitiveWriters.toArray(new PrimitiveWriter[0]));
+    }
+
+    private static PropertyDescriptor findPropertyDescriptor(PropertyDescriptor[] pds, String propertyName) {
+        for (PropertyDescriptor pd : pds) {
+            if (pd.getName().equals(propertyName)) {
+                return pd;
+            }
+        }
+        return null;
+    }
+
+    private static MethodHandle toMethodHandle(Method writeMethod) throws IllegalAccessException {
+        //统一成(Object, Object)void, 调用时不需要再关心具体类型, 装箱拆箱也由asType处理
+        return unreflect(writeMethod).asType(SETTER_TYPE);
+    }
+
+    private static MethodHandle unreflect(Method writeMethod) throws IllegalAccessException {
+        try {
+            return MethodHandles.lookup().unreflect(writeMethod);
+        } catch (IllegalAccessException ex) {
+            //例如public的setter声明在非public的类中
+            writeMethod.setAccessible(true);
+            return MethodHandles.lookup().unreflect(writeMethod);
+        }
+    }
+
+    Class<?> getBeanClass() {
+        return this.beanClass;
+    }
+
+    Method[] getSetters() {
+        return this.setters;
+    }
+
+    /**
+     * 获取每个setter需要注入的值, 供CompiledBeanAccessor使用
+     * @param beanFactory
+     * @return
+     */
+    Object[] resolveValues(BeanFactory beanFactory) {
+        Object[] values = this.literalValues.clone();
+        for (int i = 0; i < values.length; i++) {
+            if (this.refNames[i] != null) {
+                values[i] = beanFactory.getBean(this.refNames[i]);
+            } else if (this.conversionTypes[i] != null) {
+                values[i] = this.converter.convertIfNecessary(values[i], this.conversionTypes[i]);
+            }
+        }
+        return values;
+    }
+
+    void inject(Object bean, BeanFactory beanFactory) throws Throwable {
+        for (int i = 0; i < this.writeMethods.length; i++) {
+            PrimitiveWriter primitiveWriter = this.primitiveWriters[i];
+            if (primitiveWriter != null) {
+                primitiveWriter.write(bean);
+                continue;
+            }
+            String refName = this.refNames[i];
+            Object value;
+            if (refName != null) {
+                value = beanFactory.getBean(refName);
+            } else if (this.conversionTypes[i] != null) {
+                value = this.converter.convertIfNecessary(this.literalValues[i], this.conversionTypes[i]);
+            } else {
+                value = this.literalValues[i];
+            }
+            this.writeMethods[i].invokeExact(bean, value);
+        }
+    }
+
+    /**
+     * 持有基本类型值的setter调用, MethodHandle的类型是(Object, 基本类型)void, invokeExact时不会装箱拆箱
+     */
+    abstract static class PrimitiveWriter {
+
+        final MethodHandle handle;
+
+        PrimitiveWriter(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        abstract void write(Object bean) throws Throwable;
+
+        /**
+         * @return setter参数不是基本类型或者值为null时返回null
+         */
+        static PrimitiveWriter forValue(Method writeMethod, Object value) throws IllegalAccessException {
+            Class<?> type = writeMethod.getParameterTypes()[0];
+            if (!type.isPrimitive() || value == null) {
+                return null;
+            }
+            MethodHandle handle = unreflect(writeMethod).asType(MethodType.methodType(void.class, Object.class, type));
+            if (type == int.class) {
+                return new IntWriter(handle, (Integer) value);
+            } else if (type == long.class) {
+                return new LongWriter(handle, (Long) value);
+            } else if (type == double.class) {
+                return new DoubleWriter(handle, (Double) value);
+            } else if (type == float.class) {
+                return new FloatWriter(handle, (Float) value);
+            } else if (type == boolean.class) {
+                return new BooleanWriter(handle, (Boolean) value);
+            } else if (type == short.class) {
+                return new ShortWriter(handle, (Short) value);
+            } else if (type == byte.class) {
+                return new ByteWriter(handle, (Byte) value);
+            } else if (type == char.class) {
+                return new CharWriter(handle, (Character) value);
+            }
+            return null;
+        }
+    }
+
+    private static final class IntWriter extends PrimitiveWriter {
+        private final int value;
+
+        IntWriter(MethodHandle handle, int value) {
+            super(handle);
+            this.value = value;
+        }
+
+        @Override
+        void write(Object bean) throws Throwable {
+            this.handle.invokeExact(bean, this.value);
+        }
+    }
+
+    private static final class LongWriter extends PrimitiveWriter {
+        private final long value;
+
+        LongWriter(MethodHandle handle, long value) {
+            super(handle);
+            this.value = value;
+        }
+
+        @Override
+        void write(Object bean) throws Throwable {
+            this.handle.invokeExact(bean, this.value);
+        }
+    }
+
+    private static final class DoubleWriter extends PrimitiveWriter {
+        private final double value;
+
+        DoubleWriter(MethodHandle handle, double value) {
+            super(handle);
+            this.value = value;
+        }
+
+        @Override
+        void write(Object bean) throws Throwable {
+            this.handle.invokeExact(bean, this.value);
+        }
+    }
+
+    private static final class FloatWriter extends PrimitiveWriter {
+        private final float value;
+
+        FloatWriter(MethodHandle handle, float value) {
+            super(handle);
+            this.value = value;
+        }
+
+        @Override
+        void write(Object bean) throws Throwable {
+            this.handle.invokeExact(bean, this.value);
+        }
+    }
+
+    private static final class BooleanWriter extends PrimitiveWriter {
+        private final boolean value;
+
+        BooleanWriter(MethodHandle handle, boolean value) {
+            super(handle);
+            this.value = value;
+        }
+
+        @Override
+        void write(Object bean) throws Throwable {
+            this.handle.invokeExact(bean, this.value);
+        }
+    }
+
+    private static final class ShortWriter extends PrimitiveWriter {
+        private final short value;
+
+        ShortWriter(MethodHandle handle, short value) {
+            super(handle);
+            this.value = value;
+        }
+
+        @Override
+        void write(Object bean) throws Throwable {
+            this.handle.invokeExact(bean, this.value);
+        }
+    }
+
+    private static final class ByteWriter extends PrimitiveWriter {
+        private final byte value;
+
+        ByteWriter(MethodHandle handle, byte value) {
+            super(handle);
+            this.value = value;
+        }
+
+        @Override
+        void write(Object bean) throws Throwable {
+            this.handle.invokeExact(bean, this.value);
+        }
+    }
+
+    private static final class CharWriter extends PrimitiveWriter {
+        private final char value;
+
+        CharWriter(MethodHandle handle, char value) {
+            super(handle);
+            this.value = value;
+        }
+
+        @Override
+        void write(Object bean) throws Throwable {
+            this.handle.invokeExact(bean, this.value);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.imitatespring.beans.factory.support;
+
+import org.imitatespring.beans.factory.config.BeanDefinition;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 只保存BeanDefinition的注册表, 不能创建bean, 可以作为解析配置文件时的临时注册表
+ * 非线程安全, 每个线程使用自己的实例
+ * @author liaocx
+ */
+public class SimpleBeanDefinitionRegistry implements BeanDefinitionRegistry {
+
+    /**
+     * 同名覆盖时保留最初注册的位置, 和DefaultBeanFactory一致
+     */
+    private final Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+
+    @Override
+    public BeanDefinition getBeanDefinition(String beanId) {
+        return this.beanDefinitionMap.get(beanId);
+    }
+
+    @Override
+    public void registerBeanDefinition(String beanId, BeanDefinition bd) {
+        this.beanDefinitionMap.put(beanId, bd);
+    }
+
+    @Override
+    public String[] getBeanDefinitionNames() {
+        return this.beanDefinitionMap.keySet().toArray(new String[0]);
+    }
+}
@@ -2,10 +2,6 @@ package org.imitatespring.beans.factory.xml;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Element;
-import org.dom4j.io.SAXReader;
 import org.imitatespring.beans.ConstructorArgument;
 import org.imitatespring.beans.PropertyValue;
 import org.imitatespring.beans.factory.BeanDefinitionStoreException;
@@ -16,14 +12,25 @@ import org.imitatespring.beans.factory.support.BeanDefinitionRegistry;
 import org.imitatespring.beans.factory.support.GenericBeanDefinition;
 import org.imitatespring.context.annotation.ClassPathBeanDefinitionScanner;
 import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.metrics.ApplicationStartup;
+import org.imitatespring.core.metrics.ApplicationStartups;
+import org.imitatespring.core.metrics.StartupStep;
 import org.imitatespring.util.StringUtils;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * 读取xml配置文件, 注册生成bean的Definition对象
+ * 使用StAX流式解析, 每个bean标签结束时立即注册, 不会在内存中构建整个文档
  * @author liaocx
  */
 public class XmlBeanDefinitionReader {
@@ -35,6 +42,8 @@ public class XmlBeanDefinitionReader {
     public static final String CLASS_ATTRIBUTE = "class";
 
     public static final String SCOPE_ATTRIBUTE = "scope";
+
+    public static final String LAZY_INIT_ATTRIBUTE = "lazy-init";
     /**
      * property和constructor-arg相关的属性值
      */
@@ -56,10 +65,24 @@ public class XmlBeanDefinitionReader {
 
     private static final String BASE_PACKAGE_ATTRIBUTE = "base-package";
 
+    private static final String SCAN_PARALLELISM_ATTRIBUTE = "scan-parallelism";
+
     private BeanDefinitionRegistry registry;
 
+    private final XMLInputFactory inputFactory;
+
+    /**
+     * 通过context:component-scan扫描过的包名
+     */
+    private final Set<String> scannedBasePackages = new LinkedHashSet<>();
+
     public XmlBeanDefinitionReader(BeanDefinitionRegistry registry) {
         this.registry = registry;
+        this.inputFactory = XMLInputFactory.newInstance();
+        this.inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        //配置文件不需要DTD和外部实体
+        this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
     }
 
     /**
@@ -67,62 +90,104 @@ public class XmlBeanDefinitionReader {
      * @param resource
      */
     public void loadBeanDefinitions(Resource resource) {
-        InputStream is = null;
+        InputStream is;
         try {
-            try {
-                is = resource.getInputStream();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            //利用dom4j的方法将InputStream对象变成Document
-            SAXReader reader = new SAXReader();
-            Document doc = reader.read(is);
-            //对doc中的rootElement进行遍历 即遍历beans标签
-            Element beans = doc.getRootElement();
-            Iterator<Element> iterator = beans.elementIterator();
-            while (iterator.hasNext()) {
-                //为每个bean创建对应的BeanDefinition对象
-                Element bean = iterator.next();
-                String namespaceUri = bean.getNamespaceURI();
-                if(this.isDefaultNamespace(namespaceUri)) {
-                    //普通的bean配置
-                    parseDefaultElement(bean);
-                } else if(this.isContextNamespace(namespaceUri)) {
-                    //例如<context:component-scan>
-                    parseComponentElement(bean);
+            is = resource.getInputStream();
+        } catch (IOException e) {
+            throw new BeanDefinitionStoreException("IOException parsing XML document from " + resource.getDescription(), e);
+        }
+        XMLStreamReader reader = null;
+        StartupStep step = ApplicationStartups.get().start(ApplicationStartup.XML_LOAD)
+                .tag(ApplicationStartup.TAG_RESOURCE, resource.getDescription());
+        int beanCount = 0;
+        try {
+            reader = this.inputFactory.createXMLStreamReader(is);
+            //depth: 1为beans标签, 2为bean等标签, 3为property和constructor-arg
+            int depth = 0;
+            BeanDefinition bd = null;
+            boolean skipProperties = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if (depth == 2) {
+                        String namespaceUri = reader.getNamespaceURI();
+                        if (this.isDefaultNamespace(namespaceUri)) {
+                            //普通的bean配置, 标签结束时再注册
+                            bd = parseBeanElement(reader);
+                            skipProperties = false;
+                        } else if (this.isContextNamespace(namespaceUri)) {
+                            //例如<context:component-scan>
+                            beanCount += parseComponentElement(reader);
+                        }
+                    } else if (depth == 3 && bd != null) {
+                        String localName = reader.getLocalName();
+                        if (CONSTRUCTOR_ARG_ELEMENT.equals(localName)) {
+                            //解析bean中的constructor
+                            parseConstructorArgElement(reader, bd);
+                        } else if (PROPERTY_ELEMENT.equals(localName) && !skipProperties) {
+                            //解析bean中的property, 缺少name时忽略后面所有的property
+                            skipProperties = !parsePropertyElement(reader, bd);
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 2 && bd != null) {
+                        registry.registerBeanDefinition(bd.getId(), bd);
+                        beanCount++;
+                        bd = null;
+                    }
+                    depth--;
                 }
             }
-        } catch (DocumentException e) {
-            throw new BeanDefinitionStoreException("IOException parsing XML document from class path resource", e);
+        } catch (XMLStreamException e) {
+            throw new BeanDefinitionStoreException("IOException parsing XML document from " + resource.getDescription(), e);
         } finally {
-            if (is != null) {
+            step.tag(ApplicationStartup.TAG_BEAN_COUNT, String.valueOf(beanCount)).end();
+            if (reader != null) {
                 try {
-                    is.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    logger.debug("Could not close XMLStreamReader", e);
                 }
             }
+            try {
+                is.close();
+            } catch (IOException e) {
+                logger.debug("Could not close InputStream", e);
+            }
         }
     }
 
-    private void parseComponentElement(Element bean) {
-        String basePackages = bean.attributeValue(BASE_PACKAGE_ATTRIBUTE);
+    private int parseComponentElement(XMLStreamReader ele) {
+        String basePackages = attributeValue(ele, BASE_PACKAGE_ATTRIBUTE);
         ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(this.registry);
-        scanner.doScan(basePackages);
+        String scanParallelism = attributeValue(ele, SCAN_PARALLELISM_ATTRIBUTE);
+        if (StringUtils.hasText(scanParallelism)) {
+            scanner.setScanParallelism(Integer.parseInt(scanParallelism.trim()));
+        }
+        int count = scanner.doScan(basePackages).size();
+        this.scannedBasePackages.addAll(Arrays.asList(StringUtils.tokenizeToStringArray(basePackages, ",")));
+        return count;
     }
 
-    private void parseDefaultElement(Element bean) {
-        String id = bean.attributeValue(ID_ATTRIBUTE);
-        String beanClassName = bean.attributeValue(CLASS_ATTRIBUTE);
+    /**
+     * 获取已经扫描过的包名, 按照配置文件中出现的顺序
+     * @return
+     */
+    public Set<String> getScannedBasePackages() {
+        return Collections.unmodifiableSet(this.scannedBasePackages);
+    }
+
+    private BeanDefinition parseBeanElement(XMLStreamReader ele) {
+        String id = attributeValue(ele, ID_ATTRIBUTE);
+        String beanClassName = attributeValue(ele, CLASS_ATTRIBUTE);
         BeanDefinition bd = new GenericBeanDefinition(id, beanClassName);
-        if (bean.attribute(SCOPE_ATTRIBUTE)!=null) {
-            bd.setScope(bean.attributeValue(SCOPE_ATTRIBUTE));
+        String scope = attributeValue(ele, SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            bd.setScope(scope);
         }
-        //解析bean中的constructor
-        parseConstructorArgElements(bean, bd);
-        //解析bean中的所有property
-        parsePropertyElement(bean, bd);
-        registry.registerBeanDefinition(id, bd);
+        bd.setLazyInit("true".equals(attributeValue(ele, LAZY_INIT_ATTRIBUTE)));
+        return bd;
     }
 
     public boolean isDefaultNamespace(String namespaceUri) {
@@ -133,28 +198,14 @@ public class XmlBeanDefinitionReader {
         return (!StringUtils.hasLength(namespaceUri) || CONTEXT_NAMESPACE_URI.equals(namespaceUri));
     }
 
-    /**
-     * 解析bean中构造器的所有constructor-arg
-     * @param bean
-     * @param bd
-     */
-    private void parseConstructorArgElements(Element bean, BeanDefinition bd) {
-        //获取一个bean中所有的constructor-arg
-        Iterator args = bean.elementIterator(CONSTRUCTOR_ARG_ELEMENT);
-        while (args.hasNext()) {
-            Element arg = (Element) args.next();
-            parseConstructorArgElement(arg, bd);
-        }
-    }
-
     /**
      * 将constructor-arg中的参数组装成ConstructorArgument对象
      * @param arg
      * @param bd
      */
-    private void parseConstructorArgElement(Element arg, BeanDefinition bd) {
-        String typeAttr = arg.attributeValue(TYPE_ATTRIBUTE);
-        String nameAttr = arg.attributeValue(NAME_ATTRIBUTE);
+    private void parseConstructorArgElement(XMLStreamReader arg, BeanDefinition bd) {
+        String typeAttr = attributeValue(arg, TYPE_ATTRIBUTE);
+        String nameAttr = attributeValue(arg, NAME_ATTRIBUTE);
         Object value = parsePropertyValue(arg, null);
         ConstructorArgument.ValueHolder valueHolder = new ConstructorArgument.ValueHolder(value);
         if (StringUtils.hasLength(typeAttr)) {
@@ -168,26 +219,23 @@ public class XmlBeanDefinitionReader {
     }
 
     /**
-     * 解析bean的所有property
-     * @param beanElem
+     * 解析bean的一个property
+     * @param propElem
      * @param bd
+     * @return property没有name属性时返回false
      */
-    private void parsePropertyElement(Element beanElem, BeanDefinition bd) {
-        //取一个bean中所有的property
-        Iterator propertys = beanElem.elementIterator(PROPERTY_ELEMENT);
-        while (propertys.hasNext()) {
-            Element propElem = (Element) propertys.next();
-            String propertyName = propElem.attributeValue(NAME_ATTRIBUTE);
-            if (!StringUtils.hasLength(propertyName)) {
-                //name不能为空
-                logger.fatal("Tag 'property' must have a 'name' attribute");
-                return;
-            }
-            //将ref或者value属性封装成PropertyValue对象
-            Object value = parsePropertyValue(propElem, propertyName);
-            PropertyValue pv = new PropertyValue(propertyName, value);
-            bd.getPropertyValue().add(pv);
+    private boolean parsePropertyElement(XMLStreamReader propElem, BeanDefinition bd) {
+        String propertyName = attributeValue(propElem, NAME_ATTRIBUTE);
+        if (!StringUtils.hasLength(propertyName)) {
+            //name不能为空
+            logger.fatal("Tag 'property' must have a 'name' attribute");
+            return false;
         }
+        //将ref或者value属性封装成PropertyValue对象
+        Object value = parsePropertyValue(propElem, propertyName);
+        PropertyValue pv = new PropertyValue(propertyName, value);
+        bd.getPropertyValue().add(pv);
+        return true;
     }
 
     /**
@@ -196,26 +244,32 @@ public class XmlBeanDefinitionReader {
      * @param propertyName
      * @return
      */
-    private Object parsePropertyValue(Element ele, String propertyName) {
+    private Object parsePropertyValue(XMLStreamReader ele, String propertyName) {
         String elementName = (propertyName != null) ? "<property> element for property '" + propertyName + "'" :
                             "<constructor-arg> element";
 
-        boolean hasRefAttribute = (ele.attribute(REF_ATTRIBUTE) != null);
-        boolean hasValueAttribute = (ele.attribute(VALUE_ATTRIBUTE) != null);
+        String refName = attributeValue(ele, REF_ATTRIBUTE);
+        String value = attributeValue(ele, VALUE_ATTRIBUTE);
 
-        if (hasRefAttribute) {
-            String refName = ele.attributeValue(REF_ATTRIBUTE);
+        if (refName != null) {
             if (!StringUtils.hasText(refName)) {
                 logger.error(elementName + " contains empty 'ref' attribute");
             }
             RuntimeBeanReference ref = new RuntimeBeanReference(refName);
             return ref;
-        } else if (hasValueAttribute) {
-            TypedStringValue valueHolder = new TypedStringValue(ele.attributeValue(VALUE_ATTRIBUTE));
+        } else if (value != null) {
+            TypedStringValue valueHolder = new TypedStringValue(value);
             return valueHolder;
         } else {
             throw new RuntimeException(elementName + " must specify a ref or value");
         }
     }
 
+    /**
+     * 获取当前标签上没有命名空间前缀的属性, 不存在时返回null
+     */
+    private String attributeValue(XMLStreamReader ele, String name) {
+        return ele.getAttributeValue(null, name);
+    }
+
 }
@@ -2,29 +2,99 @@ package org.imitatespring.context.annotation;
 
 import org.imitatespring.beans.factory.BeanDefinitionStoreException;
 import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.ConfigurableBeanFactory;
 import org.imitatespring.beans.factory.support.BeanDefinitionRegistry;
 import org.imitatespring.beans.factory.support.BeanNameGenerator;
+import org.imitatespring.context.index.CandidateComponentsIndex;
 import org.imitatespring.core.io.Resource;
 import org.imitatespring.core.io.support.PackageResourceLoader;
+import org.imitatespring.core.type.AnnotationMetadata;
+import org.imitatespring.core.type.ClassMetadata;
+import org.imitatespring.core.type.classreading.CachingMetadataReaderFactory;
 import org.imitatespring.core.type.classreading.MetadataReader;
-import org.imitatespring.core.type.classreading.SimpleMetadataReader;
+import org.imitatespring.core.type.classreading.MetadataReaderFactory;
+import org.imitatespring.core.type.classreading.MetaAnnotationResolver;
 import org.imitatespring.stereotype.Component;
+import org.imitatespring.util.ClassUtils;
 import org.imitatespring.util.StringUtils;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class ClassPathBeanDefinitionScanner {
 
     private final BeanDefinitionRegistry registry;
 
-    private PackageResourceLoader resourceLoader = new PackageResourceLoader();
+    private final PackageResourceLoader resourceLoader;
 
     private BeanNameGenerator beanNameGenerator = new AnnotationBeanNameGenerator();
 
+    /**
+     * 默认使用共享的缓存, 多个scanner、多个context重复扫描同一个包时不再重新解析class文件
+     */
+    private MetadataReaderFactory metadataReaderFactory = CachingMetadataReaderFactory.getSharedInstance();
+
+    /**
+     * 加载bean的ClassLoader, 扫描class文件和解析元注解都使用它
+     */
+    private final ClassLoader classLoader;
+
+    /**
+     * 判断类上的注解是否在任意层级被@Component标注, 例如@Service、@Repository以及自定义的组合注解
+     * 使用共享的metadataReaderFactory时与其他scanner共用同一个resolver
+     */
+    private MetaAnnotationResolver metaAnnotationResolver;
+
+    /**
+     * 编译期生成的组件索引, 为null时退回到扫描class文件
+     */
+    private CandidateComponentsIndex componentsIndex;
+
+    /**
+     * 读取class元数据的并行度, 小于等于1时在当前线程中顺序读取
+     */
+    private int scanParallelism = 1;
+
     public ClassPathBeanDefinitionScanner(BeanDefinitionRegistry registry) {
         this.registry = registry;
+        this.classLoader = (registry instanceof ConfigurableBeanFactory ?
+                ((ConfigurableBeanFactory) registry).getBeanClassLoader() : ClassUtils.getDefaultClassLoader());
+        this.resourceLoader = new PackageResourceLoader(this.classLoader);
+        this.metaAnnotationResolver = MetaAnnotationResolver.getSharedInstance(this.classLoader);
+        this.componentsIndex = CandidateComponentsIndex.loadIndex(this.classLoader);
+    }
+
+    public void setComponentsIndex(CandidateComponentsIndex componentsIndex) {
+        this.componentsIndex = componentsIndex;
+    }
+
+    public CandidateComponentsIndex getComponentsIndex() {
+        return this.componentsIndex;
+    }
+
+    public void setMetadataReaderFactory(MetadataReaderFactory metadataReaderFactory) {
+        this.metadataReaderFactory = metadataReaderFactory;
+        this.metaAnnotationResolver = (metadataReaderFactory == CachingMetadataReaderFactory.getSharedInstance() ?
+                MetaAnnotationResolver.getSharedInstance(this.classLoader) :
+                new MetaAnnotationResolver(metadataReaderFactory, this.classLoader));
+    }
+
+    public MetadataReaderFactory getMetadataReaderFactory() {
+        return this.metadataReaderFactory;
+    }
+
+    public void setScanParallelism(int scanParallelism) {
+        this.scanParallelism = scanParallelism;
+    }
+
+    public int getScanParallelism() {
+        return this.scanParallelism;
     }
 
     public Set<BeanDefinition> doScan(String packagesToScan) {
@@ -41,21 +111,40 @@ public class ClassPathBeanDefinitionScanner {
     }
 
     private Set<BeanDefinition> findCandidateComponents(String basePackage) {
+        if (this.componentsIndex != null) {
+            List<AnnotationMetadata> indexed = this.componentsIndex.getCandidateComponents(basePackage);
+            //索引中没有这个包时可能是包所在的jar没有生成索引, 退回到扫描
+            if (!indexed.isEmpty()) {
+                return addCandidateComponentsFromIndex(indexed);
+            }
+        }
+        return scanCandidateComponents(basePackage);
+    }
+
+    private Set<BeanDefinition> addCandidateComponentsFromIndex(List<AnnotationMetadata> indexed) {
+        Set<BeanDefinition> candidates = new LinkedHashSet<>();
+        for (AnnotationMetadata metadata : indexed) {
+            candidates.add(createCandidate(metadata));
+        }
+        return candidates;
+    }
+
+    private ScannedGenericBeanDefinition createCandidate(AnnotationMetadata metadata) {
+        ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadata);
+        String beanName = this.beanNameGenerator.generateBeanName(sbd, this.registry);
+        sbd.setId(beanName);
+        return sbd;
+    }
+
+    private Set<BeanDefinition> scanCandidateComponents(String basePackage) {
         Set<BeanDefinition> candidates = new LinkedHashSet<>();
         try {
             Resource[] resources = this.resourceLoader.getResources(basePackage);
-            for (Resource resource : resources) {
-                try {
-                    MetadataReader metadataReader = new SimpleMetadataReader(resource);
-                    if (metadataReader.getAnnotationMetadata().hasAnnotation(Component.class.getName())) {
-                        ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader.getAnnotationMetadata());
-                        String beanName = this.beanNameGenerator.generateBeanName(sbd, this.registry);
-                        sbd.setId(beanName);
-                        candidates.add(sbd);
-                    }
-                } catch (Throwable ex) {
-                    throw new BeanDefinitionStoreException(
-                            "Failed to read candidate component class: " + resource, ex);
+            AnnotationMetadata[] candidateMetadata = readCandidateMetadata(resources);
+            //按照resource的顺序合并结果, 保证并行读取时bean的注册顺序和顺序读取一致
+            for (AnnotationMetadata metadata : candidateMetadata) {
+                if (metadata != null) {
+                    candidates.add(createCandidate(metadata));
                 }
             }
         } catch (IOException ex) {
@@ -64,4 +153,66 @@ public class ClassPathBeanDefinitionScanner {
         return candidates;
     }
 
+    /**
+     * 与组件索引一致, 只有具体类才是候选组件, 被@Component标注的注解(例如@Service)本身不是
+     */
+    private boolean isCandidateComponent(MetadataReader metadataReader) {
+        ClassMetadata classMetadata = metadataReader.getClassMetadata();
+        return !classMetadata.isInterface() && !classMetadata.isAbstract()
+                && this.metaAnnotationResolver.isAnnotated(metadataReader.getAnnotationTypes(), Component.class.getName());
+    }
+
+    /**
+     * 读取类头、判断候选组件和解析注解属性都在同一个任务中完成, 并行读取时都不占用扫描线程
+     * @return 与resources一一对应, 不是候选组件的位置为null
+     */
+    private AnnotationMetadata[] readCandidateMetadata(Resource[] resources) {
+        AnnotationMetadata[] candidateMetadata = new AnnotationMetadata[resources.length];
+        if (this.scanParallelism <= 1 || resources.length < 2) {
+            for (int i = 0; i < resources.length; i++) {
+                candidateMetadata[i] = readCandidateMetadata(resources[i]);
+            }
+            return candidateMetadata;
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.min(this.scanParallelism, resources.length));
+        try {
+            List<Future<AnnotationMetadata>> futures = new ArrayList<>(resources.length);
+            for (Resource resource : resources) {
+                futures.add(pool.submit(() -> readCandidateMetadata(resource)));
+            }
+            for (int i = 0; i < resources.length; i++) {
+                candidateMetadata[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanDefinitionStoreException("Interrupted during classpath scanning", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof BeanDefinitionStoreException) {
+                throw (BeanDefinitionStoreException) cause;
+            }
+            throw new BeanDefinitionStoreException("Failed to read candidate component class", cause);
+        } finally {
+            pool.shutdown();
+        }
+        return candidateMetadata;
+    }
+
+    /**
+     * 先用类头中的注解类型判断, 只有候选组件才用读取类头时保留的class文件解析完整的注解属性
+     */
+    private AnnotationMetadata readCandidateMetadata(Resource resource) {
+        try {
+            MetadataReader metadataReader = this.metadataReaderFactory.getMetadataReader(resource);
+            if (isCandidateComponent(metadataReader)) {
+                return metadataReader.getAnnotationMetadata();
+            }
+            metadataReader.releaseClassContent();
+            return null;
+        } catch (Throwable ex) {
+            throw new BeanDefinitionStoreException(
+                    "Failed to read candidate component class: " + resource, ex);
+        }
+    }
+
 }
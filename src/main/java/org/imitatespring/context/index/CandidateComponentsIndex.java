@@ -0,0 +1,111 @@
+package org.imitatespring.context.index;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.imitatespring.core.type.AnnotationMetadata;
+import org.imitatespring.util.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * 编译期由{@link CandidateComponentsIndexer}生成的组件索引, 存在索引时扫描不再需要读取和解析每个class文件
+ * @author liaocx
+ */
+public class CandidateComponentsIndex {
+
+    /**
+     * 索引文件的位置, 可能有多个jar各自包含一份
+     */
+    public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/imitatespring.components";
+
+    private static final Log logger = LogFactory.getLog(CandidateComponentsIndex.class);
+
+    /**
+     * 按ClassLoader缓存加载的索引, 不存在索引时缓存null
+     * 索引只弱引用ClassLoader, 否则value引用key, WeakHashMap中的ClassLoader永远不会被回收
+     */
+    private static final Map<ClassLoader, Optional<CandidateComponentsIndex>> cache = new WeakHashMap<>();
+
+    /**
+     * 类名 --> 注解类型[,beanName]
+     */
+    private final SortedMap<String, String> entries;
+
+    private final WeakReference<ClassLoader> classLoader;
+
+    public CandidateComponentsIndex(Properties properties, ClassLoader classLoader) {
+        Assert.notNull(classLoader, "classLoader must not be null");
+        this.entries = new TreeMap<>();
+        for (String className : properties.stringPropertyNames()) {
+            this.entries.put(className, properties.getProperty(className));
+        }
+        this.classLoader = new WeakReference<>(classLoader);
+    }
+
+    /**
+     * 加载ClassLoader下所有的索引文件
+     * @param classLoader
+     * @return 没有索引文件时返回null
+     */
+    public static CandidateComponentsIndex loadIndex(ClassLoader classLoader) {
+        synchronized (cache) {
+            Optional<CandidateComponentsIndex> index = cache.get(classLoader);
+            if (index == null) {
+                index = Optional.ofNullable(doLoadIndex(classLoader));
+                cache.put(classLoader, index);
+            }
+            return index.orElse(null);
+        }
+    }
+
+    private static CandidateComponentsIndex doLoadIndex(ClassLoader classLoader) {
+        try {
+            Enumeration<URL> urls = classLoader.getResources(COMPONENTS_RESOURCE_LOCATION);
+            if (!urls.hasMoreElements()) {
+                return null;
+            }
+            Properties properties = new Properties();
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                try (InputStream is = url.openStream()) {
+                    properties.load(is);
+                }
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("Loaded " + properties.size() + " candidate components from index");
+            }
+            return new CandidateComponentsIndex(properties, classLoader);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to load indexes from location [" + COMPONENTS_RESOURCE_LOCATION + "]", ex);
+        }
+    }
+
+    /**
+     * 获取包名下所有的组件
+     * @param basePackage
+     * @return 索引中没有这个包下的组件时返回空集合, 调用方需要自己决定是否退回到扫描
+     */
+    public List<AnnotationMetadata> getCandidateComponents(String basePackage) {
+        String prefix = basePackage + ".";
+        ClassLoader classLoader = this.classLoader.get();
+        if (classLoader == null) {
+            //加载索引的ClassLoader已经被回收, 索引中的类也不可能再被加载
+            return Collections.emptyList();
+        }
+        List<AnnotationMetadata> candidates = new ArrayList<>();
+        //TreeMap按类名排序, 同一个包下的类是连续的
+        for (Map.Entry<String, String> entry : this.entries.tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            String[] value = entry.getValue().split(",", 2);
+            candidates.add(new IndexedAnnotationMetadata(entry.getKey(), value[0].trim(),
+                    value.length > 1 ? value[1].trim() : "", classLoader));
+        }
+        return candidates;
+    }
+}
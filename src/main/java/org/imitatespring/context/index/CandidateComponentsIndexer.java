@@ -0,0 +1,118 @@
+package org.imitatespring.context.index;
+
+import org.imitatespring.stereotype.Component;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * 编译期生成组件索引的注解处理器, 把所有标注了@Component(或者被@Component元注解标注的注解)的具体类写入
+ * {@link CandidateComponentsIndex#COMPONENTS_RESOURCE_LOCATION}, 格式为 "类名=注解类型[,beanName]"
+ * 没有通过META-INF/services自动注册, 需要在编译时显式开启, 例如maven-compiler-plugin中配置
+ * &lt;annotationProcessors&gt;org.imitatespring.context.index.CandidateComponentsIndexer&lt;/annotationProcessors&gt;
+ * @author liaocx
+ */
+@SupportedAnnotationTypes("*")
+public class CandidateComponentsIndexer extends AbstractProcessor {
+
+    private static final String COMPONENT_ANNOTATION = Component.class.getName();
+
+    private final SortedMap<String, String> entries = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            processType(type);
+        }
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+        //不占用任何注解, 其他处理器照常执行
+        return false;
+    }
+
+    private void processType(TypeElement type) {
+        if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT)) {
+            for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+                TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+                if (isStereotype(annotationType, new HashSet<>())) {
+                    String className = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+                    String beanName = getValueAttribute(annotation);
+                    this.entries.put(className, annotationType.getQualifiedName()
+                            + (beanName != null ? "," + beanName : ""));
+                    break;
+                }
+            }
+        }
+        //静态内部类同样可以作为组件
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            if (nested.getModifiers().contains(Modifier.STATIC)) {
+                processType(nested);
+            }
+        }
+    }
+
+    /**
+     * 注解本身是@Component, 或者在任意层级上被@Component标注
+     */
+    private boolean isStereotype(TypeElement annotationType, Set<String> visited) {
+        String name = annotationType.getQualifiedName().toString();
+        if (COMPONENT_ANNOTATION.equals(name)) {
+            return true;
+        }
+        if (!visited.add(name) || name.startsWith("java.lang.annotation.")) {
+            return false;
+        }
+        for (AnnotationMirror metaAnnotation : annotationType.getAnnotationMirrors()) {
+            if (isStereotype((TypeElement) metaAnnotation.getAnnotationType().asElement(), visited)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getValueAttribute(AnnotationMirror annotation) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value") && entry.getValue().getValue() instanceof String) {
+                String value = (String) entry.getValue().getValue();
+                return (value.isEmpty() ? null : value);
+            }
+        }
+        return null;
+    }
+
+    private void writeIndex() {
+        if (this.entries.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    CandidateComponentsIndex.COMPONENTS_RESOURCE_LOCATION);
+            try (OutputStream out = file.openOutputStream()) {
+                StringBuilder sb = new StringBuilder();
+                for (Map.Entry<String, String> entry : this.entries.entrySet()) {
+                    sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+                }
+                out.write(sb.toString().getBytes("UTF-8"));
+            }
+        } catch (IOException ex) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write component index: " + ex);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.imitatespring.context.index;
+
+import org.imitatespring.core.annotation.AnnotationAttributes;
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.core.type.AnnotationMetadata;
+import org.imitatespring.core.type.ClassMetadata;
+import org.imitatespring.core.type.classreading.SimpleMetadataReader;
+import org.imitatespring.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 根据索引构建的AnnotationMetadata, 类名和组件注解直接来自索引,
+ * 其他类级别的信息在第一次用到时才通过ASM读取class文件
+ * @author liaocx
+ */
+class IndexedAnnotationMetadata implements AnnotationMetadata {
+
+    private final String className;
+
+    private final String stereotype;
+
+    private final AnnotationAttributes attributes;
+
+    private final ClassLoader classLoader;
+
+    private volatile ClassMetadata classMetadata;
+
+    IndexedAnnotationMetadata(String className, String stereotype, String beanName, ClassLoader classLoader) {
+        this.className = className;
+        this.stereotype = stereotype;
+        this.attributes = new AnnotationAttributes(1);
+        this.attributes.put("value", beanName);
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public Set<String> getAnnotationTypes() {
+        return Collections.singleton(this.stereotype);
+    }
+
+    @Override
+    public boolean hasAnnotation(String annotationType) {
+        return this.stereotype.equals(annotationType);
+    }
+
+    @Override
+    public AnnotationAttributes getAnnotationAttributes(String annotationType) {
+        return (hasAnnotation(annotationType) ? this.attributes : null);
+    }
+
+    @Override
+    public String getClassName() {
+        return this.className;
+    }
+
+    @Override
+    public boolean isInterface() {
+        return getClassMetadata().isInterface();
+    }
+
+    @Override
+    public boolean isAbstract() {
+        return getClassMetadata().isAbstract();
+    }
+
+    @Override
+    public boolean isFinal() {
+        return getClassMetadata().isFinal();
+    }
+
+    @Override
+    public boolean hasSuperClass() {
+        return getClassMetadata().hasSuperClass();
+    }
+
+    @Override
+    public String getSuperClassName() {
+        return getClassMetadata().getSuperClassName();
+    }
+
+    @Override
+    public String[] getInterfaceNames() {
+        return getClassMetadata().getInterfaceNames();
+    }
+
+    private ClassMetadata getClassMetadata() {
+        ClassMetadata metadata = this.classMetadata;
+        if (metadata == null) {
+            String path = ClassUtils.convertClassNameToResourcePath(this.className) + ".class";
+            try {
+                metadata = new SimpleMetadataReader(new ClassPathResource(path, this.classLoader)).getClassMetadata();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed to read class file of indexed component " + this.className, ex);
+            }
+            this.classMetadata = metadata;
+        }
+        return metadata;
+    }
+}
@@ -1,13 +1,25 @@
 package org.imitatespring.context.support;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.imitatespring.beans.factory.annotation.AutowiredAnnotationProcessor;
 import org.imitatespring.beans.factory.config.ConfigurableBeanFactory;
+import org.imitatespring.beans.factory.support.BeanCreationTimeline;
+import org.imitatespring.beans.factory.support.BeanFactoryMetrics;
 import org.imitatespring.beans.factory.support.DefaultBeanFactory;
 import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
 import org.imitatespring.context.ApplicationContext;
 import org.imitatespring.core.io.Resource;
+import org.imitatespring.util.Assert;
 import org.imitatespring.util.ClassUtils;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * 抽象类, 模版方法设计模式, 具体实现类只需要重写获取Resource的方法
  * @author liaocx
@@ -18,14 +30,114 @@ public abstract class AbstractApplicationContext implements ApplicationContext {
 
     private ClassLoader beanClassLoader;
 
+    private volatile PreInstantiationReport preInstantiationReport;
+
+    private ConfigurationLoadReport configurationLoadReport;
+
+    protected final Log logger = LogFactory.getLog(getClass());
+
     public AbstractApplicationContext(String configFile) {
+        this(configFile, 0);
+    }
+
+    /**
+     * @param configFile
+     * @param preInstantiationParallelism 大于0时在启动阶段使用该并行度提前创建所有非延迟初始化的单例
+     */
+    public AbstractApplicationContext(String configFile, int preInstantiationParallelism) {
+        this(configFile, preInstantiationParallelism, null);
+    }
+
+    /**
+     * @param configFile
+     * @param preInstantiationParallelism 大于0时在启动阶段使用该并行度提前创建所有非延迟初始化的单例
+     * @param definitionSnapshotFile 不为null时优先从该快照中恢复BeanDefinition, 快照无效时解析配置文件并重新生成快照
+     */
+    public AbstractApplicationContext(String configFile, int preInstantiationParallelism, File definitionSnapshotFile) {
+        this(configFile, preInstantiationParallelism, definitionSnapshotFile, null, null);
+    }
+
+    /**
+     * 构造器中提前创建单例, 创建后再调用setCreationTimeline/setMetrics已经无法记录启动过程, 需要在这里传入
+     * @param configFile
+     * @param preInstantiationParallelism 大于0时在启动阶段使用该并行度提前创建所有非延迟初始化的单例
+     * @param definitionSnapshotFile 不为null时优先从该快照中恢复BeanDefinition, 快照无效时解析配置文件并重新生成快照
+     * @param creationTimeline 不为null时记录包括提前创建单例在内的所有bean创建过程
+     * @param metrics 不为null时统计包括提前创建单例在内的所有getBean调用
+     */
+    public AbstractApplicationContext(String configFile, int preInstantiationParallelism, File definitionSnapshotFile,
+                                      BeanCreationTimeline creationTimeline, BeanFactoryMetrics metrics) {
         factory = new DefaultBeanFactory();
-        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(factory);
-        Resource resource = getResourceByPath(configFile);
-        reader.loadBeanDefinitions(resource);
+        factory.setCreationTimeline(creationTimeline);
+        factory.setMetrics(metrics);
         //Spring中也是这样处理, 没有提供set ClassLoader的入口, 取得是默认ClassLoader
+        //在加载BeanDefinition之前设置, component-scan使用同一个ClassLoader
         factory.setBeanClassLoader(getBeanClassLoader());
+        Resource[] resources = getResourcesByPattern(configFile);
+        if (resources.length == 1) {
+            loadBeanDefinitions(factory, resources[0], definitionSnapshotFile);
+        } else {
+            //通配符匹配到多个配置文件
+            if (definitionSnapshotFile != null && logger.isWarnEnabled()) {
+                logger.warn("Bean definition snapshot is not supported for pattern [" + configFile + "], ignoring it");
+            }
+            loadBeanDefinitions(factory, Arrays.asList(resources));
+        }
         registerBeanPostProcessors(factory);
+        if (preInstantiationParallelism > 0) {
+            preInstantiateSingletons(preInstantiationParallelism);
+        }
+    }
+
+    /**
+     * 从多个配置文件创建容器, 路径中可以使用通配符, 例如 "config/beans-*.xml"
+     * 所有配置文件并行解析, 按路径的顺序合并, 后面的配置文件覆盖前面同名的bean
+     * @param configLocations
+     */
+    public AbstractApplicationContext(String... configLocations) {
+        Assert.isTrue(configLocations.length > 0, "at least one config location is required");
+        factory = new DefaultBeanFactory();
+        factory.setBeanClassLoader(getBeanClassLoader());
+        List<Resource> resources = new ArrayList<>();
+        Set<String> descriptions = new HashSet<>();
+        for (String location : configLocations) {
+            for (Resource resource : getResourcesByPattern(location)) {
+                //同一个文件被多个路径匹配到时只加载一次
+                if (descriptions.add(resource.getDescription())) {
+                    resources.add(resource);
+                }
+            }
+        }
+        loadBeanDefinitions(factory, resources);
+        registerBeanPostProcessors(factory);
+    }
+
+    private void loadBeanDefinitions(DefaultBeanFactory factory, List<Resource> resources) {
+        int parallelism = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), resources.size()));
+        this.configurationLoadReport = new ParallelBeanDefinitionLoader(factory).loadBeanDefinitions(resources, parallelism);
+        if (logger.isDebugEnabled()) {
+            logger.debug(this.configurationLoadReport);
+        }
+        if (this.configurationLoadReport.hasConflicts() && logger.isWarnEnabled()) {
+            for (ConfigurationLoadReport.Conflict conflict : this.configurationLoadReport.getConflicts()) {
+                logger.warn(conflict);
+            }
+        }
+    }
+
+    private void loadBeanDefinitions(DefaultBeanFactory factory, Resource resource, File definitionSnapshotFile) {
+        BeanDefinitionSnapshot snapshot = null;
+        if (definitionSnapshotFile != null) {
+            snapshot = new BeanDefinitionSnapshot(definitionSnapshotFile, getBeanClassLoader());
+            if (snapshot.load(factory, resource)) {
+                return;
+            }
+        }
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(factory);
+        reader.loadBeanDefinitions(resource);
+        if (snapshot != null) {
+            snapshot.save(factory, resource, reader.getScannedBasePackages());
+        }
     }
 
     @Override
@@ -33,6 +145,81 @@ public abstract class AbstractApplicationContext implements ApplicationContext {
         return factory.getBean(beanId);
     }
 
+    /**
+     * 开启或关闭bean创建时间线
+     * 使用preInstantiationParallelism大于0的构造器时单例已经在构造器中创建, 需要通过构造器参数传入时间线才能记录启动过程,
+     * 或者传入并行度0, 调用本方法之后再自己调用{@link #preInstantiateSingletons(int)}
+     * @param creationTimeline 为null时关闭
+     * @see DefaultBeanFactory#setCreationTimeline(BeanCreationTimeline)
+     */
+    public void setCreationTimeline(BeanCreationTimeline creationTimeline) {
+        this.factory.setCreationTimeline(creationTimeline);
+    }
+
+    public BeanCreationTimeline getCreationTimeline() {
+        return this.factory.getCreationTimeline();
+    }
+
+    /**
+     * 开启或关闭getBean的运行时统计, 与{@link #setCreationTimeline(BeanCreationTimeline)}一样, 需要统计启动过程时通过构造器参数传入
+     * @param metrics 为null时关闭
+     * @see DefaultBeanFactory#setMetrics(BeanFactoryMetrics)
+     */
+    public void setMetrics(BeanFactoryMetrics metrics) {
+        this.factory.setMetrics(metrics);
+    }
+
+    public BeanFactoryMetrics getMetrics() {
+        return this.factory.getMetrics();
+    }
+
+    /**
+     * 冻结bean工厂的配置, 之后可以通过编号获取bean
+     * @see DefaultBeanFactory#freezeConfiguration()
+     */
+    public void freezeConfiguration() {
+        this.factory.freezeConfiguration();
+    }
+
+    public int getBeanIndex(String beanId) {
+        return this.factory.getBeanIndex(beanId);
+    }
+
+    public Object getBean(int beanIndex) {
+        return this.factory.getBean(beanIndex);
+    }
+
+    /**
+     * 提前创建所有非延迟初始化的单例, 没有依赖关系的单例会并行创建
+     * @param parallelism ForkJoinPool的并行度
+     * @return 每个单例的创建耗时
+     */
+    public PreInstantiationReport preInstantiateSingletons(int parallelism) {
+        Assert.isTrue(parallelism > 0, "parallelism must be greater than 0");
+        PreInstantiationReport report = new SingletonPreInstantiator(this.factory).preInstantiateSingletons(parallelism);
+        this.preInstantiationReport = report;
+        if (logger.isDebugEnabled()) {
+            logger.debug(report);
+        }
+        return report;
+    }
+
+    /**
+     * 最近一次提前创建单例的报告, 没有执行过时返回null
+     * @return
+     */
+    public PreInstantiationReport getPreInstantiationReport() {
+        return this.preInstantiationReport;
+    }
+
+    /**
+     * 通过多个配置文件(或者匹配到多个文件的通配符)创建容器时的加载报告, 只有一个配置文件时返回null
+     * @return
+     */
+    public ConfigurationLoadReport getConfigurationLoadReport() {
+        return this.configurationLoadReport;
+    }
+
     /**
      * 不同实现类根据不同文件路径获取Resource对象
      * @param path
@@ -40,6 +227,15 @@ public abstract class AbstractApplicationContext implements ApplicationContext {
      */
     protected abstract Resource getResourceByPath(String path);
 
+    /**
+     * 解析可能带有通配符的路径, 默认不支持通配符
+     * @param locationPattern
+     * @return
+     */
+    protected Resource[] getResourcesByPattern(String locationPattern) {
+        return new Resource[]{getResourceByPath(locationPattern)};
+    }
+
     public void setBeanClassLoader(ClassLoader classLoader) {
         this.beanClassLoader = classLoader;
     }
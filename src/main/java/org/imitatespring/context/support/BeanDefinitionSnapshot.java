@@ -0,0 +1,407 @@
+package org.imitatespring.context.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.imitatespring.beans.ConstructorArgument;
+import org.imitatespring.beans.PropertyValue;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.RuntimeBeanReference;
+import org.imitatespring.beans.factory.config.TypedStringValue;
+import org.imitatespring.beans.factory.support.BeanDefinitionRegistry;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.imitatespring.context.annotation.ScannedGenericBeanDefinition;
+import org.imitatespring.core.annotation.AnnotationAttributes;
+import org.imitatespring.core.io.FileSystemResource;
+import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.io.support.PackageResourceLoader;
+import org.imitatespring.core.type.AnnotationMetadata;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * 把注册表中的BeanDefinition保存成二进制快照, 下次启动时如果配置文件和扫描的class文件都没有变化,
+ * 直接从快照中恢复BeanDefinition, 不需要再解析xml和扫描包
+ * 快照一次读入堆内数组, 不使用内存映射, 过期时可以立即被新的快照替换(Windows下映射中的文件无法替换)
+ * 快照的有效性由配置文件内容的CRC32以及扫描包下每个class文件的路径和修改时间决定
+ * @author liaocx
+ */
+public class BeanDefinitionSnapshot {
+
+    private static final Log logger = LogFactory.getLog(BeanDefinitionSnapshot.class);
+
+    private static final int MAGIC = 0x494D5350;
+
+    private static final int VERSION = 1;
+
+    private static final byte GENERIC_DEFINITION = 0;
+
+    private static final byte SCANNED_DEFINITION = 1;
+
+    private static final byte REFERENCE_VALUE = 0;
+
+    private static final byte STRING_VALUE = 1;
+
+    private static final byte ATTRIBUTE_STRING = 0;
+
+    private static final byte ATTRIBUTE_STRING_ARRAY = 1;
+
+    private static final byte ATTRIBUTE_BOOLEAN = 2;
+
+    private static final byte ATTRIBUTE_INT = 3;
+
+    private static final byte ATTRIBUTE_LONG = 4;
+
+    private final Path snapshotFile;
+
+    private final PackageResourceLoader resourceLoader;
+
+    public BeanDefinitionSnapshot(File snapshotFile, ClassLoader classLoader) {
+        this.snapshotFile = snapshotFile.toPath();
+        this.resourceLoader = new PackageResourceLoader(classLoader);
+    }
+
+    /**
+     * 快照有效时把其中所有的BeanDefinition注册到registry中
+     * @param registry
+     * @param configResource 生成快照时使用的配置文件
+     * @return 快照不存在、已经过期或者无法读取时返回false, 此时不会注册任何BeanDefinition
+     */
+    public boolean load(BeanDefinitionRegistry registry, Resource configResource) {
+        if (!Files.isRegularFile(this.snapshotFile)) {
+            return false;
+        }
+        List<BeanDefinition> definitions;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(new FileSystemResource(this.snapshotFile.toFile()).getContentAsByteArray());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.warn("Ignoring bean definition snapshot [" + this.snapshotFile + "] with unknown format");
+                return false;
+            }
+            if (!isUpToDate(buffer, configResource)) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Bean definition snapshot [" + this.snapshotFile + "] is stale");
+                }
+                return false;
+            }
+            int count = readCount(buffer);
+            definitions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                definitions.add(readDefinition(buffer));
+            }
+        } catch (IOException | RuntimeException ex) {
+            //损坏的快照(例如BufferUnderflowException)只当作无效, 退回到解析配置文件
+            logger.warn("Failed to read bean definition snapshot [" + this.snapshotFile + "]", ex);
+            return false;
+        }
+        for (BeanDefinition bd : definitions) {
+            registry.registerBeanDefinition(bd.getId(), bd);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Loaded " + definitions.size() + " bean definitions from snapshot [" + this.snapshotFile + "]");
+        }
+        return true;
+    }
+
+    /**
+     * 把registry中所有的BeanDefinition写入快照, 无法写入时只记录日志, 不影响容器启动
+     * @param registry
+     * @param configResource 读取BeanDefinition的配置文件
+     * @param scannedBasePackages 配置文件中扫描过的包名
+     */
+    public void save(BeanDefinitionRegistry registry, Resource configResource, Collection<String> scannedBasePackages) {
+        Path tempFile = null;
+        try {
+            Path dir = this.snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            tempFile = Files.createTempFile(dir, this.snapshotFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(checksum(configResource));
+                out.writeInt(scannedBasePackages.size());
+                for (String basePackage : scannedBasePackages) {
+                    writeString(out, basePackage);
+                    writeClassFiles(out, this.resourceLoader.getResources(basePackage));
+                }
+                String[] beanNames = registry.getBeanDefinitionNames();
+                out.writeInt(beanNames.length);
+                for (String beanName : beanNames) {
+                    writeDefinition(out, registry.getBeanDefinition(beanName));
+                }
+            }
+            try {
+                Files.move(tempFile, this.snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, this.snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+        } catch (IOException ex) {
+            logger.warn("Failed to write bean definition snapshot [" + this.snapshotFile + "]", ex);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ex) {
+                    //ignore
+                }
+            }
+        }
+    }
+
+    private boolean isUpToDate(ByteBuffer buffer, Resource configResource) throws IOException {
+        if (buffer.getLong() != checksum(configResource)) {
+            return false;
+        }
+        int packageCount = readCount(buffer);
+        for (int i = 0; i < packageCount; i++) {
+            //只列出class文件并比较修改时间, 不读取class文件的内容
+            Resource[] resources = this.resourceLoader.getResources(readString(buffer));
+            int fileCount = buffer.getInt();
+            if (fileCount != resources.length) {
+                return false;
+            }
+            for (Resource resource : resources) {
+                if (!resource.getDescription().equals(readString(buffer)) || buffer.getLong() != resource.lastModified()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 通过FileChannel读入堆内数组计算, 不使用readByteBuffer的内存映射, 避免配置文件在GC之前一直处于映射(Windows下被锁定)状态
+     */
+    private long checksum(Resource resource) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(resource.getContentAsByteArray());
+        return crc.getValue();
+    }
+
+    private void writeClassFiles(DataOutputStream out, Resource[] resources) throws IOException {
+        out.writeInt(resources.length);
+        for (Resource resource : resources) {
+            writeString(out, resource.getDescription());
+            out.writeLong(resource.lastModified());
+        }
+    }
+
+    private void writeDefinition(DataOutputStream out, BeanDefinition bd) throws IOException {
+        if (bd.getClass() == ScannedGenericBeanDefinition.class) {
+            out.writeByte(SCANNED_DEFINITION);
+            writeMetadata(out, ((ScannedGenericBeanDefinition) bd).getMetadata());
+        } else if (bd.getClass() == GenericBeanDefinition.class) {
+            out.writeByte(GENERIC_DEFINITION);
+            writeString(out, bd.getBeanClassName());
+        } else {
+            throw new NotSerializableException(bd.getClass().getName());
+        }
+        writeString(out, bd.getId());
+        writeString(out, bd.getScope());
+        out.writeBoolean(bd.isLazyInit());
+        List<ConstructorArgument.ValueHolder> args = bd.getConstructorArgument().getArgumentValues();
+        out.writeInt(args.size());
+        for (ConstructorArgument.ValueHolder holder : args) {
+            writeString(out, holder.getType());
+            writeString(out, holder.getName());
+            writeValue(out, holder.getValue());
+        }
+        List<PropertyValue> pvs = bd.getPropertyValue();
+        out.writeInt(pvs.size());
+        for (PropertyValue pv : pvs) {
+            writeString(out, pv.getName());
+            writeValue(out, pv.getValue());
+        }
+    }
+
+    private BeanDefinition readDefinition(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        GenericBeanDefinition bd;
+        if (kind == SCANNED_DEFINITION) {
+            bd = new ScannedGenericBeanDefinition(readMetadata(buffer));
+        } else if (kind == GENERIC_DEFINITION) {
+            bd = new GenericBeanDefinition();
+            bd.setBeanClassName(readString(buffer));
+        } else {
+            throw new IllegalArgumentException("Unknown bean definition kind " + kind);
+        }
+        bd.setId(readString(buffer));
+        bd.setScope(readString(buffer));
+        bd.setLazyInit(buffer.get() != 0);
+        int argCount = readCount(buffer);
+        for (int i = 0; i < argCount; i++) {
+            String type = readString(buffer);
+            String name = readString(buffer);
+            bd.getConstructorArgument().addArgumentValue(new ConstructorArgument.ValueHolder(readValue(buffer), type, name));
+        }
+        int propertyCount = readCount(buffer);
+        for (int i = 0; i < propertyCount; i++) {
+            String name = readString(buffer);
+            bd.getPropertyValue().add(new PropertyValue(name, readValue(buffer)));
+        }
+        return bd;
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof RuntimeBeanReference) {
+            out.writeByte(REFERENCE_VALUE);
+            writeString(out, ((RuntimeBeanReference) value).getBeanName());
+        } else if (value instanceof TypedStringValue) {
+            out.writeByte(STRING_VALUE);
+            writeString(out, ((TypedStringValue) value).getValue());
+        } else {
+            throw new NotSerializableException(value != null ? value.getClass().getName() : "null");
+        }
+    }
+
+    private Object readValue(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        if (kind == REFERENCE_VALUE) {
+            return new RuntimeBeanReference(readString(buffer));
+        } else if (kind == STRING_VALUE) {
+            return new TypedStringValue(readString(buffer));
+        }
+        throw new IllegalArgumentException("Unknown value kind " + kind);
+    }
+
+    private void writeMetadata(DataOutputStream out, AnnotationMetadata metadata) throws IOException {
+        writeString(out, metadata.getClassName());
+        out.writeBoolean(metadata.isInterface());
+        out.writeBoolean(metadata.isAbstract());
+        out.writeBoolean(metadata.isFinal());
+        writeString(out, metadata.hasSuperClass() ? metadata.getSuperClassName() : null);
+        writeStringArray(out, metadata.getInterfaceNames());
+        Set<String> annotationTypes = metadata.getAnnotationTypes();
+        out.writeInt(annotationTypes.size());
+        for (String annotationType : annotationTypes) {
+            writeString(out, annotationType);
+            AnnotationAttributes attributes = metadata.getAnnotationAttributes(annotationType);
+            out.writeInt(attributes.size());
+            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                writeString(out, entry.getKey());
+                writeAttribute(out, entry.getValue());
+            }
+        }
+    }
+
+    private AnnotationMetadata readMetadata(ByteBuffer buffer) {
+        String className = readString(buffer);
+        boolean isInterface = buffer.get() != 0;
+        boolean isAbstract = buffer.get() != 0;
+        boolean isFinal = buffer.get() != 0;
+        String superClassName = readString(buffer);
+        String[] interfaceNames = readStringArray(buffer);
+        int annotationCount = readCount(buffer);
+        Map<String, AnnotationAttributes> attributesMap = new LinkedHashMap<>(annotationCount);
+        for (int i = 0; i < annotationCount; i++) {
+            String annotationType = readString(buffer);
+            int attributeCount = readCount(buffer);
+            AnnotationAttributes attributes = new AnnotationAttributes(attributeCount);
+            for (int j = 0; j < attributeCount; j++) {
+                String name = readString(buffer);
+                attributes.put(name, readAttribute(buffer));
+            }
+            attributesMap.put(annotationType, attributes);
+        }
+        return new SnapshotAnnotationMetadata(className, isInterface, isAbstract, isFinal,
+                superClassName, interfaceNames, attributesMap);
+    }
+
+    private void writeAttribute(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof String) {
+            out.writeByte(ATTRIBUTE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof String[]) {
+            out.writeByte(ATTRIBUTE_STRING_ARRAY);
+            writeStringArray(out, (String[]) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(ATTRIBUTE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(ATTRIBUTE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(ATTRIBUTE_LONG);
+            out.writeLong((Long) value);
+        } else {
+            throw new NotSerializableException(value != null ? value.getClass().getName() : "null");
+        }
+    }
+
+    private Object readAttribute(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        switch (kind) {
+            case ATTRIBUTE_STRING:
+                return readString(buffer);
+            case ATTRIBUTE_STRING_ARRAY:
+                return readStringArray(buffer);
+            case ATTRIBUTE_BOOLEAN:
+                return buffer.get() != 0;
+            case ATTRIBUTE_INT:
+                return buffer.getInt();
+            case ATTRIBUTE_LONG:
+                return buffer.getLong();
+            default:
+                throw new IllegalArgumentException("Unknown attribute kind " + kind);
+        }
+    }
+
+    private void writeStringArray(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private String[] readStringArray(ByteBuffer buffer) {
+        String[] values = new String[readCount(buffer)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(buffer);
+        }
+        return values;
+    }
+
+    /**
+     * 字符串写成长度 + UTF-8字节, 长度为-1表示null
+     */
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        checkLength(buffer, length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取元素个数, 每个元素至少占一个字节, 超过剩余字节数说明快照已经损坏, 避免按损坏的长度分配数组
+     */
+    private int readCount(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        checkLength(buffer, count);
+        return count;
+    }
+
+    private void checkLength(ByteBuffer buffer, int length) {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Corrupt length " + length + " with " + buffer.remaining() + " bytes remaining");
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package org.imitatespring.context.support;
 
+import org.imitatespring.beans.factory.BeanDefinitionStoreException;
+import org.imitatespring.beans.factory.support.BeanCreationTimeline;
+import org.imitatespring.beans.factory.support.BeanFactoryMetrics;
 import org.imitatespring.core.io.ClassPathResource;
 import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.io.support.PathMatchingResourceResolver;
+
+import java.io.File;
+import java.io.IOException;
 
 /**
  * @author liaocx
@@ -12,8 +19,37 @@ public class ClassPathXmlApplicationContext extends AbstractApplicationContext{
         super(configFile);
     }
 
+    public ClassPathXmlApplicationContext(String... configLocations) {
+        super(configLocations);
+    }
+
+    public ClassPathXmlApplicationContext(String configFile, int preInstantiationParallelism) {
+        super(configFile, preInstantiationParallelism);
+    }
+
+    public ClassPathXmlApplicationContext(String configFile, int preInstantiationParallelism, File definitionSnapshotFile) {
+        super(configFile, preInstantiationParallelism, definitionSnapshotFile);
+    }
+
+    public ClassPathXmlApplicationContext(String configFile, int preInstantiationParallelism, File definitionSnapshotFile,
+                                          BeanCreationTimeline creationTimeline, BeanFactoryMetrics metrics) {
+        super(configFile, preInstantiationParallelism, definitionSnapshotFile, creationTimeline, metrics);
+    }
+
     @Override
     protected Resource getResourceByPath(String path) {
         return new ClassPathResource(path, super.getBeanClassLoader());
     }
+
+    @Override
+    protected Resource[] getResourcesByPattern(String locationPattern) {
+        if (!PathMatchingResourceResolver.isPattern(locationPattern)) {
+            return super.getResourcesByPattern(locationPattern);
+        }
+        try {
+            return new PathMatchingResourceResolver(super.getBeanClassLoader()).getClassPathResources(locationPattern);
+        } catch (IOException ex) {
+            throw new BeanDefinitionStoreException("Could not resolve config location pattern [" + locationPattern + "]", ex);
+        }
+    }
 }
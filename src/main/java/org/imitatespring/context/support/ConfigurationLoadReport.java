@@ -0,0 +1,122 @@
+package org.imitatespring.context.support;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 并行加载多个配置文件的报告, 包括不同配置文件之间同名bean的冲突
+ * @author liaocx
+ */
+public class ConfigurationLoadReport {
+
+    private final List<String> resourceDescriptions;
+
+    private final int beanDefinitionCount;
+
+    private final int parallelism;
+
+    private final long totalNanos;
+
+    private final List<Conflict> conflicts;
+
+    ConfigurationLoadReport(List<String> resourceDescriptions, int beanDefinitionCount, int parallelism,
+                            long totalNanos, List<Conflict> conflicts) {
+        this.resourceDescriptions = Collections.unmodifiableList(resourceDescriptions);
+        this.beanDefinitionCount = beanDefinitionCount;
+        this.parallelism = parallelism;
+        this.totalNanos = totalNanos;
+        this.conflicts = Collections.unmodifiableList(conflicts);
+    }
+
+    /**
+     * 按合并顺序排列的配置文件
+     * @return
+     */
+    public List<String> getResourceDescriptions() {
+        return resourceDescriptions;
+    }
+
+    public int getBeanDefinitionCount() {
+        return beanDefinitionCount;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * 被后面的配置文件覆盖的bean, 按发生的顺序排列
+     * @return
+     */
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    public boolean hasConflicts() {
+        return !this.conflicts.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Loaded ").append(this.beanDefinitionCount).append(" bean definitions from ")
+                .append(this.resourceDescriptions.size()).append(" resources in ").append(this.totalNanos / 1000000)
+                .append(" ms with parallelism ").append(this.parallelism);
+        for (Conflict conflict : this.conflicts) {
+            sb.append("\n  ").append(conflict);
+        }
+        return sb.toString();
+    }
+
+    public static class Conflict {
+
+        private final String beanName;
+
+        private final String overriddenResource;
+
+        private final String overriddenClassName;
+
+        private final String overridingResource;
+
+        private final String overridingClassName;
+
+        Conflict(String beanName, String overriddenResource, String overriddenClassName,
+                 String overridingResource, String overridingClassName) {
+            this.beanName = beanName;
+            this.overriddenResource = overriddenResource;
+            this.overriddenClassName = overriddenClassName;
+            this.overridingResource = overridingResource;
+            this.overridingClassName = overridingClassName;
+        }
+
+        public String getBeanName() {
+            return beanName;
+        }
+
+        public String getOverriddenResource() {
+            return overriddenResource;
+        }
+
+        public String getOverriddenClassName() {
+            return overriddenClassName;
+        }
+
+        public String getOverridingResource() {
+            return overridingResource;
+        }
+
+        public String getOverridingClassName() {
+            return overridingClassName;
+        }
+
+        @Override
+        public String toString() {
+            return "Bean '" + this.beanName + "' [" + this.overriddenClassName + "] from " + this.overriddenResource
+                    + " overridden by [" + this.overridingClassName + "] from " + this.overridingResource;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.imitatespring.context.support;
+
+import org.imitatespring.beans.factory.BeanDefinitionStoreException;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.support.BeanDefinitionRegistry;
+import org.imitatespring.beans.factory.support.SimpleBeanDefinitionRegistry;
+import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.imitatespring.context.annotation.ScannedGenericBeanDefinition;
+import org.imitatespring.core.io.Resource;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * 并行解析多个配置文件, 每个文件解析到自己的临时注册表中, 全部成功后按配置文件的顺序合并
+ * 合并规则: 后面的配置文件覆盖前面同名的bean并记录冲突; 多个文件扫描到同一个组件类时不算冲突
+ * @author liaocx
+ */
+class ParallelBeanDefinitionLoader {
+
+    private final BeanDefinitionRegistry registry;
+
+    ParallelBeanDefinitionLoader(BeanDefinitionRegistry registry) {
+        this.registry = registry;
+    }
+
+    ConfigurationLoadReport loadBeanDefinitions(List<Resource> resources, int parallelism) {
+        long start = System.nanoTime();
+        List<BeanDefinitionRegistry> stagingRegistries = parse(resources, parallelism);
+        Map<String, Resource> origins = new HashMap<>();
+        List<ConfigurationLoadReport.Conflict> conflicts = new ArrayList<>();
+        for (int i = 0; i < resources.size(); i++) {
+            Resource resource = resources.get(i);
+            BeanDefinitionRegistry staging = stagingRegistries.get(i);
+            for (String beanName : staging.getBeanDefinitionNames()) {
+                BeanDefinition bd = staging.getBeanDefinition(beanName);
+                Resource origin = origins.get(beanName);
+                if (origin != null) {
+                    BeanDefinition existing = this.registry.getBeanDefinition(beanName);
+                    if (isSameComponent(existing, bd)) {
+                        continue;
+                    }
+                    conflicts.add(new ConfigurationLoadReport.Conflict(beanName, origin.getDescription(),
+                            existing.getBeanClassName(), resource.getDescription(), bd.getBeanClassName()));
+                }
+                origins.put(beanName, resource);
+                this.registry.registerBeanDefinition(beanName, bd);
+            }
+        }
+        List<String> descriptions = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            descriptions.add(resource.getDescription());
+        }
+        return new ConfigurationLoadReport(descriptions, origins.size(), parallelism,
+                System.nanoTime() - start, conflicts);
+    }
+
+    private List<BeanDefinitionRegistry> parse(List<Resource> resources, int parallelism) {
+        List<BeanDefinitionRegistry> stagingRegistries = new ArrayList<>(resources.size());
+        if (parallelism <= 1 || resources.size() < 2) {
+            for (Resource resource : resources) {
+                stagingRegistries.add(parse(resource));
+            }
+            return stagingRegistries;
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.min(parallelism, resources.size()));
+        try {
+            List<Future<BeanDefinitionRegistry>> futures = new ArrayList<>(resources.size());
+            for (Resource resource : resources) {
+                futures.add(pool.submit(() -> parse(resource)));
+            }
+            //按配置文件的顺序等待, 第一个失败的文件决定抛出的异常
+            for (Future<BeanDefinitionRegistry> future : futures) {
+                stagingRegistries.add(future.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanDefinitionStoreException("Interrupted while loading bean definitions", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BeanDefinitionStoreException("Failed to load bean definitions", cause);
+        } finally {
+            pool.shutdownNow();
+        }
+        return stagingRegistries;
+    }
+
+    private BeanDefinitionRegistry parse(Resource resource) {
+        SimpleBeanDefinitionRegistry staging = new SimpleBeanDefinitionRegistry();
+        new XmlBeanDefinitionReader(staging).loadBeanDefinitions(resource);
+        return staging;
+    }
+
+    private boolean isSameComponent(BeanDefinition existing, BeanDefinition bd) {
+        return existing instanceof ScannedGenericBeanDefinition && bd instanceof ScannedGenericBeanDefinition
+                && Objects.equals(existing.getBeanClassName(), bd.getBeanClassName());
+    }
+}
@@ -0,0 +1,87 @@
+package org.imitatespring.context.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 提前创建单例的耗时报告
+ * @author liaocx
+ */
+public class PreInstantiationReport {
+
+    private final int parallelism;
+
+    private final long totalNanos;
+
+    private final List<BeanTiming> beanTimings;
+
+    PreInstantiationReport(int parallelism, long totalNanos, List<BeanTiming> beanTimings) {
+        this.parallelism = parallelism;
+        this.totalNanos = totalNanos;
+        List<BeanTiming> sorted = new ArrayList<>(beanTimings);
+        //耗时最长的排在前面
+        sorted.sort(Comparator.comparingLong(BeanTiming::getNanos).reversed());
+        this.beanTimings = Collections.unmodifiableList(sorted);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * 每个单例的创建耗时, 按耗时从大到小排列
+     * @return
+     */
+    public List<BeanTiming> getBeanTimings() {
+        return beanTimings;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Pre-instantiated ").append(this.beanTimings.size()).append(" singletons in ")
+                .append(this.totalNanos / 1000000).append(" ms with parallelism ").append(this.parallelism);
+        for (BeanTiming timing : this.beanTimings) {
+            sb.append("\n  ").append(timing);
+        }
+        return sb.toString();
+    }
+
+    public static class BeanTiming {
+
+        private final String beanName;
+
+        private final String threadName;
+
+        private final long nanos;
+
+        BeanTiming(String beanName, String threadName, long nanos) {
+            this.beanName = beanName;
+            this.threadName = threadName;
+            this.nanos = nanos;
+        }
+
+        public String getBeanName() {
+            return beanName;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return this.beanName + ": " + (this.nanos / 1000) + " us [" + this.threadName + "]";
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.imitatespring.context.support;
+
+import org.imitatespring.beans.ConstructorArgument;
+import org.imitatespring.beans.PropertyValue;
+import org.imitatespring.beans.factory.BeanCreationException;
+import org.imitatespring.beans.factory.annotation.AutowiredAnnotationProcessor;
+import org.imitatespring.beans.factory.annotation.AutowiredFieldElement;
+import org.imitatespring.beans.factory.annotation.InjectionElement;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.BeanPostProcessor;
+import org.imitatespring.beans.factory.config.RuntimeBeanReference;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在容器启动时提前创建所有非延迟初始化的单例
+ * 根据ref(property和constructor-arg)以及@Autowired属性建立依赖关系, 依赖都创建完成的单例会被提交到ForkJoinPool中并行创建,
+ * 相互之间没有依赖的部分可以同时进行
+ * @author liaocx
+ */
+class SingletonPreInstantiator {
+
+    private final DefaultBeanFactory beanFactory;
+
+    /**
+     * beanId --> 它依赖的、同样需要提前创建的单例
+     */
+    private final Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+
+    /**
+     * beanId --> 依赖它的单例
+     */
+    private final Map<String, List<String>> dependents = new HashMap<>();
+
+    private final Map<String, AtomicInteger> pendingDependencies = new HashMap<>();
+
+    private final List<PreInstantiationReport.BeanTiming> timings = Collections.synchronizedList(new ArrayList<>());
+
+    private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+    SingletonPreInstantiator(DefaultBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    PreInstantiationReport preInstantiateSingletons(int parallelism) {
+        long start = System.nanoTime();
+        buildDependencyGraph();
+        //依赖关系中存在环的单例不能参与调度, 最后在当前线程中按顺序创建
+        Set<String> schedulable = findSchedulableBeans();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            CountDownLatch latch = new CountDownLatch(schedulable.size());
+            //先确定没有依赖的单例再提交, 否则提交过程中计数可能已经被工作线程减到0, 导致同一个单例被提交两次
+            List<String> initial = new ArrayList<>();
+            for (String beanName : schedulable) {
+                if (this.dependencies.get(beanName).isEmpty()) {
+                    initial.add(beanName);
+                }
+            }
+            for (String beanName : initial) {
+                pool.execute(() -> instantiate(beanName, pool, latch));
+            }
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanCreationException("Interrupted while pre-instantiating singletons", ex);
+        } finally {
+            pool.shutdown();
+        }
+        for (String beanName : this.dependencies.keySet()) {
+            if (!schedulable.contains(beanName)) {
+                createAndRecord(beanName);
+            }
+        }
+        //按注册顺序报告第一个创建失败的单例
+        for (String beanName : this.dependencies.keySet()) {
+            Throwable failure = this.failures.get(beanName);
+            if (failure != null) {
+                throw new BeanCreationException(beanName, "Pre-instantiation of singleton failed", failure);
+            }
+        }
+        return new PreInstantiationReport(parallelism, System.nanoTime() - start, this.timings);
+    }
+
+    private void instantiate(String beanName, ForkJoinPool pool, CountDownLatch latch) {
+        try {
+            createAndRecord(beanName);
+            //依赖全部创建完成的单例可以开始创建, 失败的依赖也照样放行, 由getBean自己报告错误
+            for (String dependent : this.dependents.getOrDefault(beanName, Collections.emptyList())) {
+                if (this.pendingDependencies.get(dependent).decrementAndGet() == 0) {
+                    pool.execute(() -> instantiate(dependent, pool, latch));
+                }
+            }
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    private void createAndRecord(String beanName) {
+        long start = System.nanoTime();
+        try {
+            this.beanFactory.getBean(beanName);
+        } catch (Throwable ex) {
+            this.failures.put(beanName, ex);
+        }
+        this.timings.add(new PreInstantiationReport.BeanTiming(beanName, Thread.currentThread().getName(),
+                System.nanoTime() - start));
+    }
+
+    private void buildDependencyGraph() {
+        AutowiredAnnotationProcessor autowiredProcessor = findAutowiredProcessor();
+        for (String beanName : this.beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition bd = this.beanFactory.getBeanDefinition(beanName);
+            if (bd.isSingleton() && !bd.isLazyInit()) {
+                this.dependencies.put(beanName, new LinkedHashSet<>());
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : this.dependencies.entrySet()) {
+            BeanDefinition bd = this.beanFactory.getBeanDefinition(entry.getKey());
+            Set<String> refs = new LinkedHashSet<>();
+            for (PropertyValue pv : bd.getPropertyValue()) {
+                addReference(pv.getValue(), refs);
+            }
+            for (ConstructorArgument.ValueHolder holder : bd.getConstructorArgument().getArgumentValues()) {
+                addReference(holder.getValue(), refs);
+            }
+            if (autowiredProcessor != null) {
+                addAutowiredReferences(bd, autowiredProcessor, refs);
+            }
+            for (String ref : refs) {
+                //只有同样需要提前创建的单例才参与调度, prototype会在getBean时直接创建
+                if (!ref.equals(entry.getKey()) && this.dependencies.containsKey(ref)) {
+                    entry.getValue().add(ref);
+                    this.dependents.computeIfAbsent(ref, k -> new ArrayList<>()).add(entry.getKey());
+                }
+            }
+            this.pendingDependencies.put(entry.getKey(), new AtomicInteger(entry.getValue().size()));
+        }
+    }
+
+    private void addReference(Object value, Set<String> refs) {
+        if (value instanceof RuntimeBeanReference) {
+            refs.add(((RuntimeBeanReference) value).getBeanName());
+        }
+    }
+
+    private void addAutowiredReferences(BeanDefinition bd, AutowiredAnnotationProcessor processor, Set<String> refs) {
+        Class<?> beanClass;
+        try {
+            beanClass = bd.hasBeanClass() ? bd.getBeanClass() : bd.resolveBeanClass(this.beanFactory.getBeanClassLoader());
+        } catch (ClassNotFoundException ex) {
+            //类加载失败的bean在创建时报错
+            return;
+        }
+        if (beanClass == null) {
+            return;
+        }
+        for (InjectionElement element : processor.findAutowiringMetadata(beanClass).getInjectionElements()) {
+            if (element instanceof AutowiredFieldElement) {
+                String[] candidates = this.beanFactory.getBeanNamesForType(((AutowiredFieldElement) element).getField().getType());
+                //与resolveDependency一致, 取第一个候选bean
+                if (candidates.length > 0) {
+                    refs.add(candidates[0]);
+                }
+            }
+        }
+    }
+
+    private AutowiredAnnotationProcessor findAutowiredProcessor() {
+        for (BeanPostProcessor processor : this.beanFactory.getBeanPostProcessors()) {
+            if (processor instanceof AutowiredAnnotationProcessor) {
+                return (AutowiredAnnotationProcessor) processor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在依赖图上做一次拓扑排序, 能够排序的单例才可以通过计数调度
+     * @return
+     */
+    private Set<String> findSchedulableBeans() {
+        Map<String, Integer> inDegree = new HashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+        for (Map.Entry<String, Set<String>> entry : this.dependencies.entrySet()) {
+            inDegree.put(entry.getKey(), entry.getValue().size());
+            if (entry.getValue().isEmpty()) {
+                ready.add(entry.getKey());
+            }
+        }
+        Set<String> schedulable = new LinkedHashSet<>();
+        while (!ready.isEmpty()) {
+            String beanName = ready.poll();
+            schedulable.add(beanName);
+            for (String dependent : this.dependents.getOrDefault(beanName, Collections.emptyList())) {
+                if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        return schedulable;
+    }
+}
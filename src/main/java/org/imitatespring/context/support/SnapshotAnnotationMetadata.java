@@ -0,0 +1,91 @@
+package org.imitatespring.context.support;
+
+import org.imitatespring.core.annotation.AnnotationAttributes;
+import org.imitatespring.core.type.AnnotationMetadata;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 从BeanDefinitionSnapshot中恢复的扫描类元数据, 不需要再读取class文件
+ * @author liaocx
+ */
+class SnapshotAnnotationMetadata implements AnnotationMetadata {
+
+    private final String className;
+
+    private final boolean isInterface;
+
+    private final boolean isAbstract;
+
+    private final boolean isFinal;
+
+    private final String superClassName;
+
+    private final String[] interfaceNames;
+
+    private final Map<String, AnnotationAttributes> attributesMap;
+
+    SnapshotAnnotationMetadata(String className, boolean isInterface, boolean isAbstract, boolean isFinal,
+                               String superClassName, String[] interfaceNames,
+                               Map<String, AnnotationAttributes> attributesMap) {
+        this.className = className;
+        this.isInterface = isInterface;
+        this.isAbstract = isAbstract;
+        this.isFinal = isFinal;
+        this.superClassName = superClassName;
+        this.interfaceNames = interfaceNames;
+        this.attributesMap = attributesMap;
+    }
+
+    @Override
+    public Set<String> getAnnotationTypes() {
+        return Collections.unmodifiableSet(this.attributesMap.keySet());
+    }
+
+    @Override
+    public boolean hasAnnotation(String annotationType) {
+        return this.attributesMap.containsKey(annotationType);
+    }
+
+    @Override
+    public AnnotationAttributes getAnnotationAttributes(String annotationType) {
+        return this.attributesMap.get(annotationType);
+    }
+
+    @Override
+    public String getClassName() {
+        return this.className;
+    }
+
+    @Override
+    public boolean isInterface() {
+        return this.isInterface;
+    }
+
+    @Override
+    public boolean isAbstract() {
+        return this.isAbstract;
+    }
+
+    @Override
+    public boolean isFinal() {
+        return this.isFinal;
+    }
+
+    @Override
+    public boolean hasSuperClass() {
+        return this.superClassName != null;
+    }
+
+    @Override
+    public String getSuperClassName() {
+        return this.superClassName;
+    }
+
+    @Override
+    public String[] getInterfaceNames() {
+        return this.interfaceNames.clone();
+    }
+}
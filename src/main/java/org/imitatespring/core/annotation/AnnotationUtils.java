@@ -2,14 +2,39 @@ package org.imitatespring.core.annotation;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public abstract class AnnotationUtils {
 
+    /**
+     * 注解类型在任意层级上的元注解, 按广度优先的顺序, 同一类型只保留最近的一个
+     * 结果保存在注解类型自身上, 元注解只能来自同一个或者父ClassLoader, 不会阻止注解类型所在的ClassLoader被卸载
+     */
+    private static final ClassValue<Map<Class<? extends Annotation>, Annotation>> metaAnnotationCache =
+            new ClassValue<Map<Class<? extends Annotation>, Annotation>>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                protected Map<Class<? extends Annotation>, Annotation> computeValue(Class<?> type) {
+                    return resolveMetaAnnotations((Class<? extends Annotation>) type);
+                }
+            };
+
+    /**
+     * 先查找直接声明的注解, 找不到时在直接声明的注解上按任意层级查找元注解
+     * @param ae
+     * @param annotationType
+     * @param <T>
+     * @return 找不到时返回null
+     */
     public static <T extends Annotation> T getAnnotation(AnnotatedElement ae, Class<T> annotationType) {
         T ann = ae.getAnnotation(annotationType);
         if (ann == null) {
-            for (Annotation metaAnn : ae.getAnnotations()) {
-                ann = metaAnn.annotationType().getAnnotation(annotationType);
+            for (Annotation declared : ae.getAnnotations()) {
+                ann = annotationType.cast(getMetaAnnotations(declared.annotationType()).get(annotationType));
                 if (ann != null) {
                     break;
                 }
@@ -17,4 +42,34 @@ public abstract class AnnotationUtils {
         }
         return ann;
     }
+
+    public static boolean isAnnotated(AnnotatedElement ae, Class<? extends Annotation> annotationType) {
+        return (getAnnotation(ae, annotationType) != null);
+    }
+
+    /**
+     * @param annotationType
+     * @return 任意层级上的元注解, 不包含自身以及java.lang.annotation包下的注解
+     */
+    static Map<Class<? extends Annotation>, Annotation> getMetaAnnotations(Class<? extends Annotation> annotationType) {
+        return metaAnnotationCache.get(annotationType);
+    }
+
+    private static Map<Class<? extends Annotation>, Annotation> resolveMetaAnnotations(Class<? extends Annotation> annotationType) {
+        Map<Class<? extends Annotation>, Annotation> result = new LinkedHashMap<>();
+        Deque<Class<? extends Annotation>> queue = new ArrayDeque<>();
+        queue.add(annotationType);
+        while (!queue.isEmpty()) {
+            for (Annotation metaAnn : queue.poll().getAnnotations()) {
+                Class<? extends Annotation> metaType = metaAnn.annotationType();
+                //已经访问过的注解不再处理, 避免注解之间互相标注时死循环
+                if (metaType != annotationType && !metaType.getName().startsWith("java.lang.annotation.")
+                        && !result.containsKey(metaType)) {
+                    result.put(metaType, metaAnn);
+                    queue.add(metaType);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
 }
@@ -0,0 +1,27 @@
+package org.imitatespring.core.convert;
+
+/**
+ * 类型转换失败
+ * @author liaocx
+ */
+public class ConversionFailedException extends RuntimeException {
+
+    private final transient Object value;
+
+    private final Class<?> targetType;
+
+    public ConversionFailedException(Object value, Class<?> targetType, String msg, Throwable cause) {
+        super("Failed to convert value [" + value + "] to type [" + targetType.getName() + "]"
+                + (msg != null ? ": " + msg : ""), cause);
+        this.value = value;
+        this.targetType = targetType;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public Class<?> getTargetType() {
+        return targetType;
+    }
+}
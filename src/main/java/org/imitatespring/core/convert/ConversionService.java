@@ -0,0 +1,25 @@
+package org.imitatespring.core.convert;
+
+/**
+ * 线程安全的类型转换服务, 可以在整个容器中共用一个实例
+ * @author liaocx
+ */
+public interface ConversionService {
+
+    /**
+     * 判断sourceType类型的对象能否转换成targetType
+     * @param sourceType 为null时表示null值
+     * @param targetType
+     * @return
+     */
+    boolean canConvert(Class<?> sourceType, Class<?> targetType);
+
+    /**
+     * 把source转换成targetType, 类型已经匹配时直接返回source
+     * @param source
+     * @param targetType
+     * @return
+     * @exception ConversionFailedException 不支持该转换或者source的内容无法转换
+     */
+    <T> T convert(Object source, Class<T> targetType);
+}
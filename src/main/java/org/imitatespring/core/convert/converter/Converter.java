@@ -0,0 +1,16 @@
+package org.imitatespring.core.convert.converter;
+
+/**
+ * 把S类型的对象转换成T类型, 实现类必须是无状态、线程安全的
+ * @author liaocx
+ */
+@FunctionalInterface
+public interface Converter<S, T> {
+
+    /**
+     * @param source 不为null
+     * @return 转换后的对象, 可以是null
+     * @exception IllegalArgumentException source的内容无法转换
+     */
+    T convert(S source);
+}
@@ -0,0 +1,340 @@
+package org.imitatespring.core.convert.support;
+
+import org.imitatespring.core.convert.ConversionFailedException;
+import org.imitatespring.core.convert.ConversionService;
+import org.imitatespring.util.Assert;
+import org.imitatespring.util.ClassUtils;
+import org.imitatespring.util.NumberUtils;
+import org.imitatespring.util.StringUtils;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 默认的类型转换服务, 支持:
+ * String --> 基本类型及其包装类、BigDecimal/BigInteger、枚举、Class、数组和集合(逗号分隔)
+ * Number --> 其他Number类型, 任意对象 --> String, 数组/集合 --> 数组/集合(逐个元素转换)
+ * 每个(sourceType, targetType)对应的转换只查找一次, 之后从缓存中获取; 所有转换都是无状态的, 可以多线程共用
+ * 缓存保存在目标类型上(ClassValue), 源类型只被弱引用, 共享实例不会阻止应用类及其ClassLoader被卸载
+ * @author liaocx
+ */
+public class DefaultConversionService implements ConversionService {
+
+    private static final String VALUE_TRUE = "true";
+    private static final String VALUE_ON = "on";
+    private static final String VALUE_YES = "yes";
+    private static final String VALUE_1 = "1";
+    private static final String VALUE_FALSE = "false";
+    private static final String VALUE_OFF = "off";
+    private static final String VALUE_NO = "no";
+    private static final String VALUE_0 = "0";
+
+    /**
+     * 缓存中表示没有合适转换的占位符
+     */
+    private static final TypeConversion NO_MATCH = (service, source) -> {
+        throw new IllegalStateException("NO_MATCH conversion must not be invoked");
+    };
+
+    private static final Set<Class<?>> NUMBER_TYPES = new HashSet<>(Arrays.asList(
+            Byte.class, Short.class, Integer.class, Long.class, BigInteger.class,
+            Float.class, Double.class, BigDecimal.class, Number.class));
+
+    private static volatile DefaultConversionService sharedInstance;
+
+    /**
+     * key=目标类型 value=从各个源类型转换到该类型的TypeConversion
+     * 缓存的转换只引用目标类型(或者它的元素类型), 不引用源类型和当前实例, 值中没有指回ClassValue的引用
+     */
+    private final ClassValue<TargetTypeConversions> conversionCache = new ClassValue<TargetTypeConversions>() {
+        @Override
+        protected TargetTypeConversions computeValue(Class<?> targetType) {
+            return new TargetTypeConversions(findConversion(String.class, targetType));
+        }
+    };
+
+    /**
+     * 共享的实例, 第一次使用时创建
+     * @return
+     */
+    public static DefaultConversionService getSharedInstance() {
+        DefaultConversionService instance = sharedInstance;
+        if (instance == null) {
+            synchronized (DefaultConversionService.class) {
+                instance = sharedInstance;
+                if (instance == null) {
+                    instance = new DefaultConversionService();
+                    sharedInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public boolean canConvert(Class<?> sourceType, Class<?> targetType) {
+        Assert.notNull(targetType, "Target type must not be null");
+        if (sourceType == null) {
+            return !targetType.isPrimitive();
+        }
+        return ClassUtils.isAssignable(targetType, sourceType) || getConversion(sourceType, targetType) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T convert(Object source, Class<T> targetType) {
+        Assert.notNull(targetType, "Target type must not be null");
+        if (source == null) {
+            if (targetType.isPrimitive()) {
+                throw new ConversionFailedException(null, targetType, "null can not be assigned to a primitive type", null);
+            }
+            return null;
+        }
+        if (ClassUtils.isAssignableValue(targetType, source)) {
+            return (T) source;
+        }
+        TypeConversion conversion = getConversion(source.getClass(), targetType);
+        if (conversion == null) {
+            throw new ConversionFailedException(source, targetType, "no converter found", null);
+        }
+        Object result;
+        try {
+            result = conversion.convert(this, source);
+        } catch (ConversionFailedException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new ConversionFailedException(source, targetType, ex.getMessage(), ex);
+        }
+        if (result == null && targetType.isPrimitive()) {
+            throw new ConversionFailedException(source, targetType, "empty value can not be assigned to a primitive type", null);
+        }
+        return (T) result;
+    }
+
+    private TypeConversion getConversion(Class<?> sourceType, Class<?> targetType) {
+        TargetTypeConversions conversions = this.conversionCache.get(targetType);
+        TypeConversion conversion;
+        if (sourceType == String.class) {
+            //最常见的String转换不需要加锁
+            conversion = conversions.fromString;
+        } else {
+            synchronized (conversions.fromOtherTypes) {
+                conversion = conversions.fromOtherTypes.get(sourceType);
+            }
+            if (conversion == null) {
+                conversion = findConversion(sourceType, targetType);
+                if (conversion == null) {
+                    conversion = NO_MATCH;
+                }
+                synchronized (conversions.fromOtherTypes) {
+                    conversions.fromOtherTypes.put(sourceType, conversion);
+                }
+            }
+        }
+        return (conversion != NO_MATCH ? conversion : null);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static TypeConversion findConversion(Class<?> sourceType, Class<?> rawTargetType) {
+        Class<?> targetType = ClassUtils.resolvePrimitiveWrapper(rawTargetType);
+        if (sourceType == String.class) {
+            if (targetType == Boolean.class) {
+                return (service, source) -> parseBoolean((String) source);
+            }
+            if (targetType == Character.class) {
+                return (service, source) -> parseCharacter((String) source);
+            }
+            if (NUMBER_TYPES.contains(targetType)) {
+                Class<? extends Number> numberType = (Class<? extends Number>) targetType;
+                return (service, source) -> (StringUtils.hasText((String) source) ? NumberUtils.parseNumber((String) source, numberType) : null);
+            }
+            if (Enum.class.isAssignableFrom(targetType)) {
+                Class<? extends Enum> enumType = getEnumType(targetType);
+                return (service, source) -> {
+                    String name = ((String) source).trim();
+                    return (name.isEmpty() ? null : Enum.valueOf(enumType, name));
+                };
+            }
+            if (targetType == Class.class) {
+                return (service, source) -> parseClass((String) source);
+            }
+            if (targetType.isArray()) {
+                Class<?> componentType = targetType.getComponentType();
+                return (service, source) -> toArray(service, Arrays.asList(StringUtils.commaDelimitedListToStringArray((String) source)),
+                        componentType, true);
+            }
+            if (Collection.class.isAssignableFrom(targetType) && canCreateCollection(targetType)) {
+                return (service, source) -> toCollection(Arrays.asList(StringUtils.commaDelimitedListToStringArray((String) source)),
+                        targetType, true);
+            }
+            return null;
+        }
+        if (targetType == String.class) {
+            if (sourceType.isEnum() || Enum.class.isAssignableFrom(sourceType)) {
+                return (service, source) -> ((Enum<?>) source).name();
+            }
+            if (sourceType == Class.class) {
+                return (service, source) -> ((Class<?>) source).getName();
+            }
+            return (service, source) -> source.toString();
+        }
+        if (Number.class.isAssignableFrom(sourceType) && NUMBER_TYPES.contains(targetType)) {
+            Class<? extends Number> numberType = (Class<? extends Number>) targetType;
+            return (service, source) -> NumberUtils.convertNumberToTargetClass((Number) source, numberType);
+        }
+        if (sourceType.isArray() || Collection.class.isAssignableFrom(sourceType)) {
+            if (targetType.isArray()) {
+                Class<?> componentType = targetType.getComponentType();
+                return (service, source) -> toArray(service, asList(source), componentType, false);
+            }
+            if (Collection.class.isAssignableFrom(targetType) && canCreateCollection(targetType)) {
+                return (service, source) -> toCollection(asList(source), targetType, false);
+            }
+        }
+        return null;
+    }
+
+    private static Boolean parseBoolean(String source) {
+        String input = source.trim();
+        if (input.isEmpty()) {
+            return null;
+        }
+        if (VALUE_TRUE.equalsIgnoreCase(input) || VALUE_ON.equalsIgnoreCase(input)
+                || VALUE_YES.equalsIgnoreCase(input) || VALUE_1.equals(input)) {
+            return Boolean.TRUE;
+        }
+        if (VALUE_FALSE.equalsIgnoreCase(input) || VALUE_OFF.equalsIgnoreCase(input)
+                || VALUE_NO.equalsIgnoreCase(input) || VALUE_0.equals(input)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Invalid boolean value [" + source + "]");
+    }
+
+    private static Character parseCharacter(String source) {
+        if (source.isEmpty()) {
+            return null;
+        }
+        if (source.length() != 1) {
+            throw new IllegalArgumentException("Can only convert a String with length of 1 to a Character");
+        }
+        return source.charAt(0);
+    }
+
+    private static Class<?> parseClass(String source) {
+        String className = source.trim();
+        if (className.isEmpty()) {
+            return null;
+        }
+        try {
+            return Class.forName(className, false, ClassUtils.getDefaultClassLoader());
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalArgumentException("Class not found: " + className, ex);
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Class<? extends Enum> getEnumType(Class<?> targetType) {
+        Class<?> enumType = targetType;
+        //带有方法体的枚举常量是枚举类的匿名子类
+        while (enumType != null && !enumType.isEnum()) {
+            enumType = enumType.getSuperclass();
+        }
+        return (Class<? extends Enum>) enumType;
+    }
+
+    private static List<?> asList(Object source) {
+        if (source instanceof Collection) {
+            return new ArrayList<>((Collection<?>) source);
+        }
+        int length = Array.getLength(source);
+        List<Object> list = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            list.add(Array.get(source, i));
+        }
+        return list;
+    }
+
+    private static Object toArray(DefaultConversionService service, List<?> elements, Class<?> componentType, boolean trim) {
+        Object array = Array.newInstance(componentType, elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            Object element = elements.get(i);
+            if (trim && element instanceof String) {
+                element = ((String) element).trim();
+            }
+            Array.set(array, i, service.convert(element, componentType));
+        }
+        return array;
+    }
+
+    private static boolean canCreateCollection(Class<?> collectionType) {
+        if (collectionType.isInterface()) {
+            return List.class == collectionType || Collection.class == collectionType || Set.class == collectionType
+                    || SortedSet.class == collectionType || NavigableSet.class == collectionType
+                    || Queue.class == collectionType || Deque.class == collectionType;
+        }
+        try {
+            collectionType.getConstructor();
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> toCollection(List<?> elements, Class<?> collectionType, boolean trim) {
+        Collection<Object> collection = createCollection(collectionType, elements.size());
+        for (Object element : elements) {
+            collection.add(trim && element instanceof String ? ((String) element).trim() : element);
+        }
+        return collection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> createCollection(Class<?> collectionType, int capacity) {
+        if (collectionType.isInterface()) {
+            if (Set.class == collectionType) {
+                return new LinkedHashSet<>(capacity);
+            }
+            if (SortedSet.class == collectionType || NavigableSet.class == collectionType) {
+                return new TreeSet<>();
+            }
+            if (Queue.class == collectionType || Deque.class == collectionType) {
+                return new ArrayDeque<>(Math.max(capacity, 1));
+            }
+            return new ArrayList<>(capacity);
+        }
+        try {
+            return (Collection<Object>) collectionType.getConstructor().newInstance();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalArgumentException("Could not instantiate collection type " + collectionType.getName(), ex);
+        }
+    }
+
+    /**
+     * 缓存的转换, 需要转换元素(数组、集合)时使用传入的ConversionService, 不持有创建它的实例
+     */
+    @FunctionalInterface
+    private interface TypeConversion {
+
+        Object convert(DefaultConversionService service, Object source);
+    }
+
+    /**
+     * 转换到同一个目标类型的TypeConversion
+     */
+    private static final class TargetTypeConversions {
+
+        private final TypeConversion fromString;
+
+        /**
+         * 源类型可能来自其他ClassLoader, 使用弱引用
+         */
+        private final Map<Class<?>, TypeConversion> fromOtherTypes = new WeakHashMap<>();
+
+        TargetTypeConversions(TypeConversion fromString) {
+            this.fromString = (fromString != null ? fromString : NO_MATCH);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import org.imitatespring.util.ClassUtils;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 /**
@@ -34,8 +36,31 @@ public class ClassPathResource implements Resource {
         return is;
     }
 
+    @Override
+    public byte[] getContentAsByteArray() throws IOException {
+        return ResourceUtils.getContentAsByteArray(getURL());
+    }
+
+    @Override
+    public ByteBuffer readByteBuffer() throws IOException {
+        return ResourceUtils.readByteBuffer(getURL());
+    }
+
     @Override
     public String getDescription() {
         return this.path;
     }
+
+    @Override
+    public long lastModified() throws IOException {
+        return ResourceUtils.getLastModified(getURL());
+    }
+
+    private URL getURL() throws FileNotFoundException {
+        URL url = this.classLoader.getResource(this.path);
+        if (Objects.isNull(url)) {
+            throw new FileNotFoundException(this.path + " can not be opened");
+        }
+        return url;
+    }
 }
@@ -4,8 +4,10 @@ import org.imitatespring.util.Assert;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * @author liaocx
@@ -32,8 +34,27 @@ public class FileSystemResource implements Resource {
         return new FileInputStream(file);
     }
 
+    @Override
+    public byte[] getContentAsByteArray() throws IOException {
+        return ResourceUtils.readFile(this.file);
+    }
+
+    @Override
+    public ByteBuffer readByteBuffer() throws IOException {
+        return ResourceUtils.readFileBuffer(this.file);
+    }
+
     @Override
     public String getDescription() {
         return "file [" + this.file.getAbsolutePath() + "]";
     }
+
+    @Override
+    public long lastModified() throws IOException {
+        long lastModified = this.file.lastModified();
+        if (lastModified == 0L && !this.file.exists()) {
+            throw new FileNotFoundException(getDescription() + " does not exist");
+        }
+        return lastModified;
+    }
 }
@@ -2,6 +2,7 @@ package org.imitatespring.core.io;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * @author liaocx
@@ -15,9 +16,32 @@ public interface Resource {
      */
     InputStream getInputStream() throws IOException;
 
+    /**
+     * 一次性读取资源的全部内容, 文件系统中的资源直接通过FileChannel读到目标数组中
+     * @return byte[]
+     * @exception IOException
+     */
+    byte[] getContentAsByteArray() throws IOException;
+
+    /**
+     * 以ByteBuffer读取资源的全部内容, 较大的文件使用内存映射, 其他情况返回包装了byte[]的堆内ByteBuffer
+     * 映射由调用方持有, 没有办法主动解除, 在ByteBuffer被GC回收之前文件一直处于映射状态(Windows下无法删除或替换),
+     * 只需要读取一次内容时应该使用getContentAsByteArray
+     * @return 从position 0开始的ByteBuffer
+     * @exception IOException
+     */
+    ByteBuffer readByteBuffer() throws IOException;
+
     /**
      * 获取资源路径的描述
      * @return String
      */
     String getDescription();
+
+    /**
+     * 获取资源最后修改的时间戳
+     * @return long
+     * @exception IOException 资源不存在或者无法访问
+     */
+    long lastModified() throws IOException;
 }
@@ -0,0 +1,166 @@
+package org.imitatespring.core.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Resource实现类共用的URL处理方法
+ * @author liaocx
+ */
+abstract class ResourceUtils {
+
+    private static final String URL_PROTOCOL_FILE = "file";
+
+    /**
+     * 超过这个大小的文件使用内存映射读取, 小文件建立映射的开销比直接read更大
+     */
+    static final long MAPPING_THRESHOLD = 256 * 1024;
+
+    /**
+     * file协议直接读取文件的修改时间, 其他协议(例如jar)通过URLConnection获取
+     * @param url
+     * @return
+     */
+    static long getLastModified(URL url) throws IOException {
+        File file = getFile(url);
+        if (file != null) {
+            return file.lastModified();
+        }
+        URLConnection con = url.openConnection();
+        try {
+            return con.getLastModified();
+        } finally {
+            //getLastModified可能已经打开了连接, 需要关闭输入流
+            try {
+                con.getInputStream().close();
+            } catch (IOException ex) {
+                //ignore
+            }
+        }
+    }
+
+    /**
+     * file协议的URL转换成File, 其他协议返回null
+     * @param url
+     * @return
+     */
+    static File getFile(URL url) {
+        if (!URL_PROTOCOL_FILE.equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException ex) {
+            return new File(url.getFile());
+        }
+    }
+
+    /**
+     * 按文件大小分配数组, 通过FileChannel直接读入, 不经过中间缓冲区
+     * @param file
+     * @return
+     */
+    static byte[] readFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File [" + file + "] is too large to be read into a byte array");
+            }
+            byte[] content = new byte[(int) size];
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of file [" + file + "]");
+                }
+            }
+            return content;
+        }
+    }
+
+    /**
+     * 大文件使用只读的内存映射, 小文件读入堆内数组
+     * 返回的MappedByteBuffer不会被主动解除映射, 由调用方持有直到被GC回收
+     * @param file
+     * @return
+     */
+    static ByteBuffer readFileBuffer(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAPPING_THRESHOLD) {
+                //映射建立后关闭channel不影响MappedByteBuffer的使用
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        return ByteBuffer.wrap(readFile(file));
+    }
+
+    /**
+     * file协议直接读文件, 其他协议(例如jar)根据URLConnection给出的长度一次读入
+     * @param url
+     * @return
+     */
+    static byte[] getContentAsByteArray(URL url) throws IOException {
+        File file = getFile(url);
+        if (file != null) {
+            return readFile(file);
+        }
+        URLConnection con = url.openConnection();
+        try (InputStream is = con.getInputStream()) {
+            return readFully(is, con.getContentLength());
+        }
+    }
+
+    static ByteBuffer readByteBuffer(URL url) throws IOException {
+        File file = getFile(url);
+        if (file != null) {
+            return readFileBuffer(file);
+        }
+        return ByteBuffer.wrap(getContentAsByteArray(url));
+    }
+
+    /**
+     * @param is
+     * @param expectedLength 已知的长度, 未知时为-1
+     * @return
+     */
+    static byte[] readFully(InputStream is, int expectedLength) throws IOException {
+        ByteArrayOutputStream out;
+        if (expectedLength >= 0) {
+            byte[] content = new byte[expectedLength];
+            int offset = 0;
+            int n;
+            while (offset < expectedLength && (n = is.read(content, offset, expectedLength - offset)) >= 0) {
+                offset += n;
+            }
+            if (offset < expectedLength) {
+                return Arrays.copyOf(content, offset);
+            }
+            int next = is.read();
+            if (next < 0) {
+                return content;
+            }
+            //实际内容比给出的长度更长, 退化为按未知长度读取
+            out = new ByteArrayOutputStream(expectedLength * 2 + 1);
+            out.write(content);
+            out.write(next);
+        } else {
+            out = new ByteArrayOutputStream(4096);
+        }
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = is.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
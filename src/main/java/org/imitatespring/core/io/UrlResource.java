@@ -0,0 +1,51 @@
+package org.imitatespring.core.io;
+
+import org.imitatespring.util.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+
+/**
+ * 以URL表示的资源, 例如jar包中的某个class文件: jar:file:/xxx.jar!/org/xxx/Xxx.class
+ * @author liaocx
+ */
+public class UrlResource implements Resource {
+
+    private final URL url;
+
+    public UrlResource(URL url) {
+        Assert.notNull(url, "URL must not be null");
+        this.url = url;
+    }
+
+    public URL getURL() {
+        return this.url;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return this.url.openConnection().getInputStream();
+    }
+
+    @Override
+    public byte[] getContentAsByteArray() throws IOException {
+        return ResourceUtils.getContentAsByteArray(this.url);
+    }
+
+    @Override
+    public ByteBuffer readByteBuffer() throws IOException {
+        return ResourceUtils.readByteBuffer(this.url);
+    }
+
+    @Override
+    public String getDescription() {
+        return "URL [" + this.url + "]";
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return ResourceUtils.getLastModified(this.url);
+    }
+}
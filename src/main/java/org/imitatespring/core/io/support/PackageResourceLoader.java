@@ -4,15 +4,20 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.imitatespring.core.io.FileSystemResource;
 import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.io.UrlResource;
 import org.imitatespring.util.Assert;
 import org.imitatespring.util.ClassUtils;
 
-import java.io.File;
 import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.net.URLConnection;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 /**
  * 解析Java包下的所有类
@@ -22,6 +27,14 @@ public class PackageResourceLoader {
 
     private static final Log logger = LogFactory.getLog(PackageResourceLoader.class);
 
+    private static final String URL_PROTOCOL_FILE = "file";
+
+    private static final String JAR_URL_PREFIX = "jar:";
+
+    private static final String JAR_URL_SEPARATOR = "!/";
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
     private ClassLoader classLoader;
 
     public PackageResourceLoader(ClassLoader classLoader) {
@@ -40,6 +53,8 @@ public class PackageResourceLoader {
 
     /**
      * 解析某个包名下的类,将其封装成Resource返回
+     * 包名可能同时存在于多个classpath根目录以及jar包中, 所有位置下的class文件都会被返回
+     * 注意jar包中需要包含目录条目(maven和jar命令默认都会生成), 否则ClassLoader无法找到包所在的位置
      * @param basePackage
      * @return
      */
@@ -47,86 +62,132 @@ public class PackageResourceLoader {
         Assert.notNull(basePackage, "basePackage must not be null");
         //ex. org.imitatespring.dao.v4 --> "org/imitatespring/dao/v4"
         String location = ClassUtils.convertClassNameToResourcePath(basePackage);
-        URL url = this.classLoader.getResource(location);
-        //用包名所在的路径创建一个file对象, 是一个目录
-        File rootDir = new File(url.getFile());
-        Set<File> matchingFiles = retrieveMatchingFiles(rootDir);
-        Resource[] result = new Resource[matchingFiles.size()];
-        int i = 0;
-        for (File file : matchingFiles) {
-            result[i++] = new FileSystemResource(file);
+        List<Resource> result = new ArrayList<>();
+        Enumeration<URL> roots = this.classLoader.getResources(location);
+        while (roots.hasMoreElements()) {
+            URL rootUrl = roots.nextElement();
+            URLConnection con = rootUrl.openConnection();
+            if (con instanceof JarURLConnection) {
+                result.addAll(retrieveMatchingJarEntries((JarURLConnection) con));
+            } else if (URL_PROTOCOL_FILE.equals(rootUrl.getProtocol())) {
+                for (Path file : retrieveMatchingFiles(toPath(rootUrl))) {
+                    result.add(new FileSystemResource(file.toFile()));
+                }
+            } else if (logger.isWarnEnabled()) {
+                logger.warn("Skipping [" + rootUrl + "] because its protocol is not supported");
+            }
         }
-        return result;
+        return result.toArray(new Resource[0]);
     }
 
     /**
-     * 首先判断传入的包名所对应的目录是否存在、以及权限是否可读, 然后通过递归解析包名所在目录下的所有的类, 将其放在Set中
+     * 把ClassLoader返回的单个class文件URL封装成与getResources相同类型的Resource,
+     * 两者的描述一致, 以描述作为key的元数据缓存中同一个class只保留一份
+     * @param url class文件的URL
+     * @return
+     */
+    public static Resource getClassFileResource(URL url) {
+        if (URL_PROTOCOL_FILE.equals(url.getProtocol())) {
+            return new FileSystemResource(toPath(url).toFile());
+        }
+        return new UrlResource(url);
+    }
+
+    private static Path toPath(URL url) {
+        try {
+            //使用URI解析, 防止路径中的空格等字符被编码成%20
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException ex) {
+            return Paths.get(url.getFile());
+        }
+    }
+
+    /**
+     * 枚举jar包中包名所对应目录下的所有class文件
+     * @param con
+     * @return
+     */
+    private List<Resource> retrieveMatchingJarEntries(JarURLConnection con) throws IOException {
+        //不使用缓存, 以便扫描结束后关闭JarFile
+        con.setUseCaches(false);
+        String rootEntryPath = con.getEntryName();
+        if (rootEntryPath == null) {
+            rootEntryPath = "";
+        } else if (!rootEntryPath.endsWith("/")) {
+            rootEntryPath = rootEntryPath + "/";
+        }
+        URL jarFileUrl = con.getJarFileURL();
+        List<String> entryNames = new ArrayList<>();
+        try (JarFile jarFile = con.getJarFile()) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String entryName = entry.getName();
+                if (!entry.isDirectory() && entryName.startsWith(rootEntryPath) && entryName.endsWith(CLASS_FILE_SUFFIX)) {
+                    entryNames.add(entryName);
+                }
+            }
+        }
+        //按名字排序, 保证每次扫描的顺序一致
+        Collections.sort(entryNames);
+        List<Resource> resources = new ArrayList<>(entryNames.size());
+        for (String entryName : entryNames) {
+            resources.add(new UrlResource(new URL(JAR_URL_PREFIX + jarFileUrl + JAR_URL_SEPARATOR + entryName)));
+        }
+        return resources;
+    }
+
+    /**
+     * 首先判断传入的包名所对应的目录是否存在、以及权限是否可读, 然后遍历包名所在目录下的所有的class文件
      * @param rootDir
      * @return
      */
-    private Set<File> retrieveMatchingFiles(File rootDir) throws IOException {
+    private List<Path> retrieveMatchingFiles(Path rootDir) throws IOException {
         //下面三个if判断为了确保rootDir是存在的、是一个目录以及可读
-        if (!rootDir.exists()) {
+        if (!Files.exists(rootDir)) {
             //Silently skip non-existing directories
             if (logger.isDebugEnabled()) {
-                logger.debug("Skipping [" + rootDir.getAbsolutePath() + "] because it dose not exist");
+                logger.debug("Skipping [" + rootDir.toAbsolutePath() + "] because it dose not exist");
             }
-            return Collections.EMPTY_SET;
+            return Collections.emptyList();
         }
-        if (!rootDir.isDirectory()) {
+        if (!Files.isDirectory(rootDir)) {
             //Complain louder if it exists but is no directory
             if (logger.isWarnEnabled()) {
-                logger.warn("Skipping [" + rootDir.getAbsolutePath() + "] because it dose not denote a directory");
+                logger.warn("Skipping [" + rootDir.toAbsolutePath() + "] because it dose not denote a directory");
             }
-            return Collections.EMPTY_SET;
+            return Collections.emptyList();
         }
-        if (!rootDir.canRead()) {
+        if (!Files.isReadable(rootDir)) {
             //can not read
             if (logger.isWarnEnabled()) {
-                logger.warn("Cannot search for matching files underneath directory [" + rootDir.getAbsolutePath() +
+                logger.warn("Cannot search for matching files underneath directory [" + rootDir.toAbsolutePath() +
                         "] because the application is not allowed to read the directory");
             }
-            return Collections.EMPTY_SET;
+            return Collections.emptyList();
         }
-        Set<File> matchingClassFiles = new LinkedHashSet<>(8);
-        doRecursionMatchingFiles(rootDir, matchingClassFiles);
-        return matchingClassFiles;
-    }
-
-    /**
-     * 组装包名所对应目录下的所有class文件, 将其存放在Set中
-     * @param rootDir
-     * @param classSets
-     * @throws IOException
-     */
-    private void doRecursionMatchingFiles(File rootDir, Set<File> classSets) throws IOException {
-        //File类中 list()返回的是一个String类型数组，它只是一个数组，仅仅只是一个个文件的名字；
-        //而listFiles()方法返回的是File类的引用
-        File[] dirContents = rootDir.listFiles();
-        if (dirContents == null) {
-            if (logger.isWarnEnabled()) {
-                logger.warn("Could not retrieve contents of directory [" + rootDir.getAbsolutePath() + "]");
+        List<Path> matchingClassFiles = new ArrayList<>();
+        Files.walkFileTree(rootDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && file.getFileName().toString().endsWith(CLASS_FILE_SUFFIX)) {
+                    matchingClassFiles.add(file);
+                }
+                return FileVisitResult.CONTINUE;
             }
-            return;
-        }
-        for (File content : dirContents) {
-            if (content.isDirectory()) {
-                //属于目录
-                if (!content.canRead()) {
-                    //目录不可读
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("Skipping subdirectory [" + rootDir.getAbsolutePath() +
-                                "] because the application is not allowed to read the directory");
-                    }
-                } else {
-                    //通过递归跳过所有的目录
-                    doRecursionMatchingFiles(content, classSets);
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                //目录不可读时跳过
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Skipping [" + file.toAbsolutePath() + "] because it can not be read", ex);
                 }
-            } else {
-                //属于文件
-                classSets.add(content);
+                return FileVisitResult.CONTINUE;
             }
-        }
+        });
+        //按路径排序, 保证每次扫描的顺序一致
+        Collections.sort(matchingClassFiles);
+        return matchingClassFiles;
     }
 
 }
@@ -0,0 +1,189 @@
+package org.imitatespring.core.io.support;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.imitatespring.core.io.FileSystemResource;
+import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.io.UrlResource;
+import org.imitatespring.util.Assert;
+import org.imitatespring.util.ClassUtils;
+
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+
+/**
+ * 解析带通配符的配置文件路径, 例如 "config/beans-*.xml"
+ * 只支持在最后一级文件名中使用 '*' 和 '?', 同一个目录下匹配的文件按名字排序
+ * @author liaocx
+ */
+public class PathMatchingResourceResolver {
+
+    private static final Log logger = LogFactory.getLog(PathMatchingResourceResolver.class);
+
+    private static final String URL_PROTOCOL_FILE = "file";
+
+    private static final String JAR_URL_PREFIX = "jar:";
+
+    private static final String JAR_URL_SEPARATOR = "!/";
+
+    private final ClassLoader classLoader;
+
+    public PathMatchingResourceResolver(ClassLoader classLoader) {
+        Assert.notNull(classLoader, "classLoader must not be null");
+        this.classLoader = classLoader;
+    }
+
+    public PathMatchingResourceResolver() {
+        this.classLoader = ClassUtils.getDefaultClassLoader();
+    }
+
+    /**
+     * 路径中是否包含通配符
+     * @param path
+     * @return
+     */
+    public static boolean isPattern(String path) {
+        return path.indexOf('*') != -1 || path.indexOf('?') != -1;
+    }
+
+    /**
+     * 在所有classpath根目录以及jar包中查找匹配的资源
+     * @param locationPattern
+     * @return
+     */
+    public Resource[] getClassPathResources(String locationPattern) throws IOException {
+        String dir = getDirectory(locationPattern);
+        Pattern namePattern = toRegex(getFileNamePattern(locationPattern));
+        List<Resource> result = new ArrayList<>();
+        Enumeration<URL> roots = this.classLoader.getResources(dir);
+        while (roots.hasMoreElements()) {
+            URL rootUrl = roots.nextElement();
+            URLConnection con = rootUrl.openConnection();
+            if (con instanceof JarURLConnection) {
+                result.addAll(findMatchingJarEntries((JarURLConnection) con, namePattern));
+            } else if (URL_PROTOCOL_FILE.equals(rootUrl.getProtocol())) {
+                result.addAll(findMatchingFiles(toPath(rootUrl), namePattern));
+            } else if (logger.isWarnEnabled()) {
+                logger.warn("Skipping [" + rootUrl + "] because its protocol is not supported");
+            }
+        }
+        return result.toArray(new Resource[0]);
+    }
+
+    /**
+     * 在文件系统中查找匹配的资源
+     * @param locationPattern
+     * @return
+     */
+    public Resource[] getFileSystemResources(String locationPattern) throws IOException {
+        String dir = getDirectory(locationPattern);
+        Path rootDir = Paths.get(dir.isEmpty() ? "." : dir);
+        return findMatchingFiles(rootDir, toRegex(getFileNamePattern(locationPattern))).toArray(new Resource[0]);
+    }
+
+    private String getDirectory(String locationPattern) {
+        int index = locationPattern.lastIndexOf('/');
+        String dir = (index != -1 ? locationPattern.substring(0, index) : "");
+        if (isPattern(dir)) {
+            throw new IllegalArgumentException("Wildcards are only supported in the file name: " + locationPattern);
+        }
+        return dir;
+    }
+
+    private String getFileNamePattern(String locationPattern) {
+        return locationPattern.substring(locationPattern.lastIndexOf('/') + 1);
+    }
+
+    private Pattern toRegex(String fileNamePattern) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : fileNamePattern.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? "[^/]*" : "[^/]");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private Path toPath(URL url) {
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException ex) {
+            return Paths.get(url.getFile());
+        }
+    }
+
+    private List<Resource> findMatchingFiles(Path rootDir, Pattern namePattern) throws IOException {
+        if (!Files.isDirectory(rootDir)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Skipping [" + rootDir.toAbsolutePath() + "] because it does not denote a directory");
+            }
+            return Collections.emptyList();
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(rootDir)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file) && namePattern.matcher(file.getFileName().toString()).matches()) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        List<Resource> resources = new ArrayList<>(files.size());
+        for (Path file : files) {
+            resources.add(new FileSystemResource(file.toFile()));
+        }
+        return resources;
+    }
+
+    private List<Resource> findMatchingJarEntries(JarURLConnection con, Pattern namePattern) throws IOException {
+        con.setUseCaches(false);
+        String rootEntryPath = con.getEntryName();
+        if (rootEntryPath == null) {
+            rootEntryPath = "";
+        } else if (!rootEntryPath.endsWith("/")) {
+            rootEntryPath = rootEntryPath + "/";
+        }
+        URL jarFileUrl = con.getJarFileURL();
+        List<String> entryNames = new ArrayList<>();
+        try (JarFile jarFile = con.getJarFile()) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String entryName = entry.getName();
+                if (!entry.isDirectory() && entryName.startsWith(rootEntryPath)) {
+                    String fileName = entryName.substring(rootEntryPath.length());
+                    if (fileName.indexOf('/') == -1 && namePattern.matcher(fileName).matches()) {
+                        entryNames.add(entryName);
+                    }
+                }
+            }
+        }
+        Collections.sort(entryNames);
+        List<Resource> resources = new ArrayList<>(entryNames.size());
+        for (String entryName : entryNames) {
+            resources.add(new UrlResource(new URL(JAR_URL_PREFIX + jarFileUrl + JAR_URL_SEPARATOR + entryName)));
+        }
+        return resources;
+    }
+}
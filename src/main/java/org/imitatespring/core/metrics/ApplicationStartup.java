@@ -0,0 +1,47 @@
+package org.imitatespring.core.metrics;
+
+/**
+ * 容器内部步骤的埋点: bean实例化、属性注入、依赖解析、class元数据读取以及XML加载
+ * 默认实现什么也不做, 其他实现(例如把步骤转换成JFR事件)通过{@link ApplicationStartups}注册
+ * @author liaocx
+ */
+public interface ApplicationStartup {
+
+    String BEAN_INSTANTIATE = "beans.instantiate";
+
+    String BEAN_POPULATE = "beans.populate";
+
+    String BEAN_AUTOWIRE = "beans.autowire";
+
+    String METADATA_READ = "classreading.metadata-read";
+
+    String XML_LOAD = "beans.xml-load";
+
+    String TAG_BEAN_NAME = "beanName";
+
+    String TAG_BEAN_CLASS = "beanClass";
+
+    String TAG_SCOPE = "scope";
+
+    String TAG_DEPENDENCY_TYPE = "dependencyType";
+
+    String TAG_INJECTION_POINT = "injectionPoint";
+
+    String TAG_RESOURCE = "resource";
+
+    String TAG_CLASS_NAME = "className";
+
+    /**
+     * 元数据读取的阶段: header(类头和注解类型)或者annotations(完整的注解属性)
+     */
+    String TAG_PASS = "pass";
+
+    String TAG_BEAN_COUNT = "beanCount";
+
+    /**
+     * 开始一个步骤, 必须调用返回值的{@link StartupStep#end()}
+     * @param name 步骤名称, 例如{@link #BEAN_INSTANTIATE}
+     * @return
+     */
+    StartupStep start(String name);
+}
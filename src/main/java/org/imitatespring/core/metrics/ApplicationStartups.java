@@ -0,0 +1,65 @@
+package org.imitatespring.core.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * 持有当前使用的ApplicationStartup: 类加载时通过ServiceLoader查找classpath中的实现(例如jfr模块),
+ * 没有找到或者实现类无法在当前JVM上加载(例如在Java 8上使用Java 11编译的jfr模块)时使用什么也不做的默认实现
+ * @author liaocx
+ */
+public abstract class ApplicationStartups {
+
+    private static final Log logger = LogFactory.getLog(ApplicationStartups.class);
+
+    private static final StartupStep NO_OP_STEP = new StartupStep() {
+        @Override
+        public StartupStep tag(String key, String value) {
+            return this;
+        }
+
+        @Override
+        public void end() {
+        }
+    };
+
+    public static final ApplicationStartup DEFAULT = name -> NO_OP_STEP;
+
+    private static volatile ApplicationStartup current = loadApplicationStartup();
+
+    public static ApplicationStartup get() {
+        return current;
+    }
+
+    /**
+     * @param applicationStartup 为null时恢复为默认实现
+     */
+    public static void set(ApplicationStartup applicationStartup) {
+        current = (applicationStartup != null ? applicationStartup : DEFAULT);
+    }
+
+    public static boolean isEnabled() {
+        return (current != DEFAULT);
+    }
+
+    private static ApplicationStartup loadApplicationStartup() {
+        try {
+            Iterator<ApplicationStartup> it = ServiceLoader.load(ApplicationStartup.class,
+                    ApplicationStartups.class.getClassLoader()).iterator();
+            if (it.hasNext()) {
+                ApplicationStartup applicationStartup = it.next();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Using ApplicationStartup " + applicationStartup.getClass().getName());
+                }
+                return applicationStartup;
+            }
+        } catch (ServiceConfigurationError | LinkageError ex) {
+            logger.warn("Failed to load ApplicationStartup, instrumentation is disabled", ex);
+        }
+        return DEFAULT;
+    }
+}
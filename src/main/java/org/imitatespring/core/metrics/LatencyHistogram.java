@@ -0,0 +1,128 @@
+package org.imitatespring.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的耗时直方图, 分桶方式与HdrHistogram相同: 小于32的值每个值一个桶, 之后每个2的幂区间平均分成16个桶,
+ * 所以任意值的相对误差不超过1/16, 桶的数量固定, 不需要预先知道取值范围
+ * 记录只有一次数组元素的原子自增和两次LongAdder/LongAccumulator更新, 读取时不阻塞记录
+ * @author liaocx
+ */
+public final class LatencyHistogram {
+
+    private static final int LINEAR_BUCKET_COUNT = 32;
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * 最小的对数区间是[32, 64), 即2^5, 最大的是[2^62, 2^63)
+     */
+    private static final int FIRST_EXPONENT = 5;
+
+    private static final int BUCKET_COUNT = LINEAR_BUCKET_COUNT + (63 - FIRST_EXPONENT) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder totalCount = new LongAdder();
+
+    private final LongAdder totalValue = new LongAdder();
+
+    private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * @param value 耗时(纳秒), 小于0时按0记录
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        this.counts.incrementAndGet(bucketIndex(value));
+        this.totalCount.increment();
+        this.totalValue.add(value);
+        this.maxValue.accumulate(value);
+    }
+
+    public long getCount() {
+        return this.totalCount.sum();
+    }
+
+    public long getMax() {
+        return this.maxValue.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return (count == 0 ? 0.0 : (double) this.totalValue.sum() / count);
+    }
+
+    /**
+     * 获取百分位数, 返回值所在桶的上界, 并且不超过记录过的最大值
+     * @param percentile 0到100之间
+     * @return 没有记录时返回0
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = this.counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * 清空记录, 与并发的record同时调用时可能保留其中一部分
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.counts.set(i, 0);
+        }
+        this.totalCount.reset();
+        this.totalValue.reset();
+        this.maxValue.reset();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        //取最高位之后的SUB_BUCKET_BITS位作为区间内的下标
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKET_COUNT;
+        return LINEAR_BUCKET_COUNT + (exponent - FIRST_EXPONENT) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < LINEAR_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_BUCKET_COUNT) / SUB_BUCKET_COUNT + FIRST_EXPONENT;
+        long subBucket = (index - LINEAR_BUCKET_COUNT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", mean=" + Math.round(getMean()) + "ns, p50=" + getValueAtPercentile(50)
+                + "ns, p99=" + getValueAtPercentile(99) + "ns, max=" + getMax() + "ns";
+    }
+}
@@ -0,0 +1,18 @@
+package org.imitatespring.core.metrics;
+
+/**
+ * {@link ApplicationStartup}中的一个步骤, 从start开始到{@link #end()}结束
+ * @author liaocx
+ */
+public interface StartupStep {
+
+    /**
+     * 附加信息, 例如beanName
+     * @param key
+     * @param value
+     * @return 当前步骤
+     */
+    StartupStep tag(String key, String value);
+
+    void end();
+}
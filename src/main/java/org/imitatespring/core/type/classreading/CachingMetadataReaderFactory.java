@@ -0,0 +1,134 @@
+package org.imitatespring.core.type.classreading;
+
+import org.imitatespring.core.io.Resource;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 带LRU缓存的MetadataReaderFactory, 以resource的描述(路径)作为key, 同时记录读取时class文件的修改时间,
+ * 修改时间变化后重新解析。多个scanner、多个context共用同一个实例时AnnotationMetadata只解析一次
+ * 解析在锁外进行, 并发读取同一个class时可能重复解析, 但只会保留一份结果
+ * @author liaocx
+ */
+public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
+
+    public static final int DEFAULT_CACHE_LIMIT = 1024;
+
+    private static final CachingMetadataReaderFactory sharedInstance = new CachingMetadataReaderFactory();
+
+    private final Map<String, CachedMetadataReader> metadataReaderCache;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public CachingMetadataReaderFactory() {
+        this(DEFAULT_CACHE_LIMIT);
+    }
+
+    public CachingMetadataReaderFactory(int cacheLimit) {
+        if (cacheLimit <= 0) {
+            throw new IllegalArgumentException("Cache limit must be positive: " + cacheLimit);
+        }
+        this.metadataReaderCache = new LinkedHashMap<String, CachedMetadataReader>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedMetadataReader> eldest) {
+                if (size() > cacheLimit) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 默认的共享实例, 同一个JVM中的所有scanner共用
+     * @return
+     */
+    public static CachingMetadataReaderFactory getSharedInstance() {
+        return sharedInstance;
+    }
+
+    @Override
+    public MetadataReader getMetadataReader(Resource resource) throws IOException {
+        String key = resource.getDescription();
+        long lastModified = resource.lastModified();
+        CachedMetadataReader cached;
+        synchronized (this.metadataReaderCache) {
+            cached = this.metadataReaderCache.get(key);
+        }
+        if (cached != null && cached.lastModified == lastModified) {
+            this.hitCount.incrementAndGet();
+            return cached.metadataReader;
+        }
+        this.missCount.incrementAndGet();
+        MetadataReader metadataReader = super.getMetadataReader(resource);
+        synchronized (this.metadataReaderCache) {
+            CachedMetadataReader existing = this.metadataReaderCache.get(key);
+            if (existing != null && existing.lastModified == lastModified) {
+                //其他线程已经解析过同一个版本
+                return existing.metadataReader;
+            }
+            this.metadataReaderCache.put(key, new CachedMetadataReader(metadataReader, lastModified));
+        }
+        return metadataReader;
+    }
+
+    public void clearCache() {
+        synchronized (this.metadataReaderCache) {
+            this.metadataReaderCache.clear();
+        }
+    }
+
+    public int getCacheSize() {
+        synchronized (this.metadataReaderCache) {
+            return this.metadataReaderCache.size();
+        }
+    }
+
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * @return 命中次数 / 请求次数, 没有请求时为0
+     */
+    public double getHitRate() {
+        long hits = this.hitCount.get();
+        long total = hits + this.missCount.get();
+        return (total == 0 ? 0d : (double) hits / total);
+    }
+
+    @Override
+    public String toString() {
+        return "CachingMetadataReaderFactory[size=" + getCacheSize() + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount()
+                + ", hitRate=" + String.format("%.2f", getHitRate()) + "]";
+    }
+
+    private static final class CachedMetadataReader {
+
+        private final MetadataReader metadataReader;
+
+        private final long lastModified;
+
+        private CachedMetadataReader(MetadataReader metadataReader, long lastModified) {
+            this.metadataReader = metadataReader;
+            this.lastModified = lastModified;
+        }
+    }
+}
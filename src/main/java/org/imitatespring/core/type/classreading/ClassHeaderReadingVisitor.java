@@ -0,0 +1,28 @@
+package org.imitatespring.core.type.classreading;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.Type;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 只读取类声明和类上注解的类型, 不解析注解属性, 用于扫描时快速判断是否是候选组件
+ * @author liaocx
+ */
+final class ClassHeaderReadingVisitor extends ClassMetadataReadingVisitor {
+
+    private final Set<String> annotationTypes = new LinkedHashSet<>(4);
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+        this.annotationTypes.add(Type.getType(desc).getClassName());
+        //返回null, ClassReader会直接跳过注解的属性
+        return null;
+    }
+
+    Set<String> getAnnotationTypes() {
+        return Collections.unmodifiableSet(this.annotationTypes);
+    }
+}
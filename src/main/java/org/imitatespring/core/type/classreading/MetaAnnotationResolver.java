@@ -0,0 +1,142 @@
+package org.imitatespring.core.type.classreading;
+
+import org.imitatespring.core.io.support.PackageResourceLoader;
+import org.imitatespring.util.ClassUtils;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 通过ASM读取注解类型的class文件解析元注解, 不需要加载注解类
+ * 每个注解类型在任意层级上的元注解集合只解析一次, 之后的查询直接从缓存中获取
+ * 使用共享的CachingMetadataReaderFactory时通过{@link #getSharedInstance(ClassLoader)}获取, 同一个ClassLoader下的所有scanner共用缓存
+ * @author liaocx
+ */
+public class MetaAnnotationResolver {
+
+    /**
+     * key=ClassLoader value=使用共享CachingMetadataReaderFactory的resolver
+     * resolver只弱引用ClassLoader, 不会阻止WeakHashMap中的key被回收
+     */
+    private static final Map<ClassLoader, MetaAnnotationResolver> sharedInstances = new WeakHashMap<>();
+
+    private final MetadataReaderFactory metadataReaderFactory;
+
+    private final WeakReference<ClassLoader> classLoader;
+
+    /**
+     * key=注解的全类名 value=该注解在任意层级上的元注解(不包含自身)
+     */
+    private final ConcurrentMap<String, Set<String>> metaAnnotationCache = new ConcurrentHashMap<>(64);
+
+    public MetaAnnotationResolver(MetadataReaderFactory metadataReaderFactory, ClassLoader classLoader) {
+        this.metadataReaderFactory = metadataReaderFactory;
+        this.classLoader = new WeakReference<>(classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+    }
+
+    /**
+     * 使用{@link CachingMetadataReaderFactory#getSharedInstance()}读取class文件的共享实例
+     * @param classLoader 为null时使用默认的ClassLoader
+     * @return
+     */
+    public static MetaAnnotationResolver getSharedInstance(ClassLoader classLoader) {
+        ClassLoader classLoaderToUse = (classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader());
+        synchronized (sharedInstances) {
+            MetaAnnotationResolver resolver = sharedInstances.get(classLoaderToUse);
+            if (resolver == null) {
+                resolver = new MetaAnnotationResolver(CachingMetadataReaderFactory.getSharedInstance(), classLoaderToUse);
+                sharedInstances.put(classLoaderToUse, resolver);
+            }
+            return resolver;
+        }
+    }
+
+    /**
+     * @param annotationType 注解的全类名
+     * @return 任意层级上的元注解, java.lang.annotation包下的注解不包含在内
+     */
+    public Set<String> getMetaAnnotationTypes(String annotationType) {
+        Set<String> metaAnnotationTypes = this.metaAnnotationCache.get(annotationType);
+        if (metaAnnotationTypes == null) {
+            metaAnnotationTypes = resolveMetaAnnotationTypes(annotationType);
+            Set<String> existing = this.metaAnnotationCache.putIfAbsent(annotationType, metaAnnotationTypes);
+            if (existing != null) {
+                metaAnnotationTypes = existing;
+            }
+        }
+        return metaAnnotationTypes;
+    }
+
+    /**
+     * 找到直接声明的注解中本身就是targetType, 或者在任意层级被targetType标注的那一个
+     * @param annotationTypes 类上直接声明的注解
+     * @param targetType 需要查找的注解的全类名
+     * @return 没有找到时返回null
+     */
+    public String findAnnotationType(Set<String> annotationTypes, String targetType) {
+        if (annotationTypes.contains(targetType)) {
+            return targetType;
+        }
+        for (String annotationType : annotationTypes) {
+            if (getMetaAnnotationTypes(annotationType).contains(targetType)) {
+                return annotationType;
+            }
+        }
+        return null;
+    }
+
+    public boolean isAnnotated(Set<String> annotationTypes, String targetType) {
+        return (findAnnotationType(annotationTypes, targetType) != null);
+    }
+
+    /**
+     * 广度优先读取每一层注解的class文件, 已经访问过的注解不再读取, 避免注解之间互相标注时死循环
+     */
+    private Set<String> resolveMetaAnnotationTypes(String annotationType) {
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(annotationType);
+        while (!queue.isEmpty()) {
+            for (String metaAnnotationType : readAnnotationTypes(queue.poll())) {
+                if (!metaAnnotationType.equals(annotationType) && !isJavaLangAnnotation(metaAnnotationType)
+                        && result.add(metaAnnotationType)) {
+                    queue.add(metaAnnotationType);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    private Set<String> readAnnotationTypes(String annotationType) {
+        String path = ClassUtils.convertClassNameToResourcePath(annotationType) + ".class";
+        ClassLoader classLoader = this.classLoader.get();
+        URL url = (classLoader != null ? classLoader.getResource(path) : null);
+        if (url == null) {
+            //注解不在classpath中, 与反射时一样忽略
+            return Collections.emptySet();
+        }
+        try {
+            //与扫描时使用相同的Resource, 共享的缓存中不会出现同一个class的两份元数据
+            MetadataReader metadataReader = this.metadataReaderFactory.getMetadataReader(PackageResourceLoader.getClassFileResource(url));
+            //只需要元注解的类型, 不会解析注解属性
+            metadataReader.releaseClassContent();
+            return metadataReader.getAnnotationTypes();
+        } catch (IOException ex) {
+            return Collections.emptySet();
+        }
+    }
+
+    private static boolean isJavaLangAnnotation(String annotationType) {
+        return annotationType.startsWith("java.lang.annotation.");
+    }
+}
@@ -4,6 +4,8 @@ import org.imitatespring.core.io.Resource;
 import org.imitatespring.core.type.AnnotationMetadata;
 import org.imitatespring.core.type.ClassMetadata;
 
+import java.util.Set;
+
 /**
  * Simple facade for accessing class metadata,
  * as read by an ASM {@link org.springframework.asm.ClassReader}.
@@ -24,9 +26,21 @@ public interface MetadataReader {
      */
     ClassMetadata getClassMetadata();
 
+    /**
+     * 类上直接声明的注解类型, 只需要读取类头和注解的描述符, 不会解析注解属性
+     */
+    Set<String> getAnnotationTypes();
+
     /**
      * Read full annotation metadata for the underlying class,
      * including metadata for annotated methods.
      */
     AnnotationMetadata getAnnotationMetadata();
+
+    /**
+     * 确定不再需要完整注解元数据时调用, 释放为getAnnotationMetadata保留的class文件内容,
+     * 之后再调用getAnnotationMetadata会重新读取class文件
+     */
+    default void releaseClassContent() {
+    }
 }
@@ -0,0 +1,20 @@
+package org.imitatespring.core.type.classreading;
+
+import org.imitatespring.core.io.Resource;
+
+import java.io.IOException;
+
+/**
+ * 创建MetadataReader的工厂, 扫描器通过它读取class文件的元数据
+ * @author liaocx
+ */
+public interface MetadataReaderFactory {
+
+    /**
+     * 读取resource对应class文件的元数据
+     * @param resource class文件
+     * @return MetadataReader
+     * @exception IOException
+     */
+    MetadataReader getMetadataReader(Resource resource) throws IOException;
+}
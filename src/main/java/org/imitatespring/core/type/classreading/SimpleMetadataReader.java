@@ -2,41 +2,71 @@ package org.imitatespring.core.type.classreading;
 
 import org.imitatespring.core.NestedIOException;
 import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.metrics.ApplicationStartup;
+import org.imitatespring.core.metrics.ApplicationStartups;
+import org.imitatespring.core.metrics.StartupStep;
 import org.imitatespring.core.type.AnnotationMetadata;
 import org.imitatespring.core.type.ClassMetadata;
 import org.springframework.asm.ClassReader;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
 
+/**
+ * 构造时只读取类声明和类上注解的类型, 完整的AnnotationMetadata(包括注解属性)在第一次使用时才解析,
+ * 扫描时大部分不是组件的类不需要解析注解属性
+ * class文件内容保留到解析注解属性或者调用releaseClassContent为止, 候选组件的class文件只读取一次
+ */
 public class SimpleMetadataReader implements MetadataReader {
 
+    /**
+     * 类中的方法体、栈帧和调试信息都不需要
+     */
+    private static final int PARSING_OPTIONS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
     private final Resource resource;
 
-    private final ClassMetadata classMetadata;
+    private final ClassHeaderReadingVisitor classHeader;
+
+    private volatile AnnotationMetadata annotationMetadata;
 
-    private final AnnotationMetadata annotationMetadata;
+    /**
+     * 类头解析时读入的class文件, 解析完注解属性或者被释放后为null
+     */
+    private volatile byte[] classContent;
 
     public SimpleMetadataReader(Resource resource) throws IOException {
-        //使用Buffered提升性能
-        BufferedInputStream is = new BufferedInputStream(resource.getInputStream());
-        ClassReader classReader;
+        ClassHeaderReadingVisitor visitor = new ClassHeaderReadingVisitor();
+        StartupStep step = startStep(resource, "header");
         try {
-            classReader = new ClassReader(is);
-        } catch (IllegalArgumentException var9) {
-            throw new NestedIOException("ASM ClassReader failed to parse class file - probably due to a new Java class file version that isn't supported yet: " + resource, var9);
+            //一次读入完整的class文件交给ClassReader, 避免InputStream逐段拷贝
+            byte[] content = resource.getContentAsByteArray();
+            //fields和methods的visit方法返回null, ClassReader只会跳过它们
+            createClassReader(content, resource).accept(visitor, PARSING_OPTIONS);
+            step.tag(ApplicationStartup.TAG_CLASS_NAME, visitor.getClassName());
+            this.classContent = content;
         } finally {
-            is.close();
+            step.end();
         }
-        AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor();
-        classReader.accept(visitor, ClassReader.SKIP_DEBUG);
-        //此处Class中的数据都被visitor中的visit*方法处理
-        this.annotationMetadata = visitor;
-        //classMetadata也取得是一个AnnotationMetadataReadingVisitor对象
-        this.classMetadata = visitor;
+        this.classHeader = visitor;
         this.resource = resource;
     }
 
+    private static ClassReader createClassReader(byte[] content, Resource resource) throws IOException {
+        try {
+            return new ClassReader(content);
+        } catch (IllegalArgumentException var9) {
+            throw new NestedIOException("ASM ClassReader failed to parse class file - probably due to a new Java class file version that isn't supported yet: " + resource, var9);
+        }
+    }
+
+    private static StartupStep startStep(Resource resource, String pass) {
+        return ApplicationStartups.get().start(ApplicationStartup.METADATA_READ)
+                .tag(ApplicationStartup.TAG_RESOURCE, resource.getDescription())
+                .tag(ApplicationStartup.TAG_PASS, pass);
+    }
+
     @Override
     public Resource getResource() {
         return this.resource;
@@ -44,11 +74,51 @@ public class SimpleMetadataReader implements MetadataReader {
 
     @Override
     public ClassMetadata getClassMetadata() {
-        return this.classMetadata;
+        return this.classHeader;
+    }
+
+    @Override
+    public Set<String> getAnnotationTypes() {
+        return this.classHeader.getAnnotationTypes();
     }
 
+    /**
+     * 第一次调用时解析注解属性, class文件内容已经被释放时重新读取
+     * 解析后不再保留class文件内容, 避免缓存中的MetadataReader占用内存
+     */
     @Override
     public AnnotationMetadata getAnnotationMetadata() {
-        return this.annotationMetadata;
+        AnnotationMetadata metadata = this.annotationMetadata;
+        if (metadata == null) {
+            synchronized (this) {
+                metadata = this.annotationMetadata;
+                if (metadata == null) {
+                    AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor();
+                    StartupStep step = startStep(this.resource, "annotations")
+                            .tag(ApplicationStartup.TAG_CLASS_NAME, this.classHeader.getClassName());
+                    try {
+                        byte[] content = this.classContent;
+                        if (content == null) {
+                            content = this.resource.getContentAsByteArray();
+                        }
+                        createClassReader(content, this.resource).accept(visitor, PARSING_OPTIONS);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException("Failed to read annotation metadata of " + this.resource.getDescription(), ex);
+                    } finally {
+                        step.end();
+                    }
+                    //此处Class中的数据都被visitor中的visit*方法处理
+                    metadata = visitor;
+                    this.annotationMetadata = metadata;
+                    this.classContent = null;
+                }
+            }
+        }
+        return metadata;
+    }
+
+    @Override
+    public void releaseClassContent() {
+        this.classContent = null;
     }
 }
@@ -0,0 +1,17 @@
+package org.imitatespring.core.type.classreading;
+
+import org.imitatespring.core.io.Resource;
+
+import java.io.IOException;
+
+/**
+ * 每次都重新解析class文件
+ * @author liaocx
+ */
+public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
+
+    @Override
+    public MetadataReader getMetadataReader(Resource resource) throws IOException {
+        return new SimpleMetadataReader(resource);
+    }
+}
@@ -0,0 +1,20 @@
+package org.imitatespring.stereotype;
+
+import java.lang.annotation.*;
+
+/**
+ * 业务层组件, 被{@link Component}标注, 扫描时同样作为候选组件
+ * @author liaocx
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Component
+public @interface Service {
+
+    /**
+     * 建议的bean名称, 与{@link Component#value()}含义相同
+     * @return the suggested component name, if any
+     */
+    String value() default "";
+}
@@ -1,6 +1,8 @@
 package org.imitatespring.util;
 
 import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -62,6 +64,21 @@ public abstract class ClassUtils {
         return cl;
     }
 
+    /**
+     * 值是否不可变, 可以在多个bean实例之间共用: null、String、基本类型的包装类、枚举、Class以及BigDecimal/BigInteger
+     * 数组和集合等可变对象返回false
+     * @param value
+     * @return
+     */
+    public static boolean isImmutableValue(Object value) {
+        if (value == null) {
+            return true;
+        }
+        Class<?> type = value.getClass();
+        return (type == String.class || primitiveWrapperTypeMap.containsKey(type) || value instanceof Enum
+                || type == Class.class || type == BigDecimal.class || type == BigInteger.class);
+    }
+
     public static boolean isAssignableValue(Class<?> type, Object value) {
         Assert.notNull(type, "Type must not be null");
         return value != null ? isAssignable(type, value.getClass()) : !type.isPrimitive();
@@ -89,6 +106,17 @@ public abstract class ClassUtils {
         }
     }
 
+    /**
+     * Resolve the given class if it is a primitive class,
+     * returning the corresponding primitive wrapper type instead.
+     * @param clazz the class to check
+     * @return the original class, or a primitive wrapper for the original primitive type
+     */
+    public static Class<?> resolvePrimitiveWrapper(Class<?> clazz) {
+        Assert.notNull(clazz, "Class must not be null");
+        return (clazz.isPrimitive() && clazz != void.class ? primitiveTypeToWrapperMap.get(clazz) : clazz);
+    }
+
     public static String convertClassNameToResourcePath(String className) {
         Assert.notNull(className, "Class name must not be null");
         return className.replace('.', '/');
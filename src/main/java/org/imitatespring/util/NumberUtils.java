@@ -13,28 +13,29 @@ public abstract class NumberUtils {
     public static <T extends Number> T parseNumber(String text, Class<T> targetClass) {
         Assert.notNull(text, "Text must not be null");
         Assert.notNull(targetClass, "Target class must not be null");
-        String trimmed = StringUtils.trimAllWhitespace(text);
-
+        //基本类型直接从字符序列解析, 不生成去掉空白字符后的中间字符串
         if (targetClass.equals(Byte.class)) {
-            return (T) (isHexNumber(trimmed) ? Byte.decode(trimmed) : Byte.valueOf(trimmed));
+            return (T) Byte.valueOf(parseByte(text));
         }
         else if (targetClass.equals(Short.class)) {
-            return (T) (isHexNumber(trimmed) ? Short.decode(trimmed) : Short.valueOf(trimmed));
+            return (T) Short.valueOf(parseShort(text));
         }
         else if (targetClass.equals(Integer.class)) {
-            return (T) (isHexNumber(trimmed) ? Integer.decode(trimmed) : Integer.valueOf(trimmed));
+            return (T) Integer.valueOf(parseInt(text));
         }
         else if (targetClass.equals(Long.class)) {
-            return (T) (isHexNumber(trimmed) ? Long.decode(trimmed) : Long.valueOf(trimmed));
-        }
-        else if (targetClass.equals(BigInteger.class)) {
-            return (T) (isHexNumber(trimmed) ? decodeBigInteger(trimmed) : new BigInteger(trimmed));
+            return (T) Long.valueOf(parseLong(text));
         }
         else if (targetClass.equals(Float.class)) {
-            return (T) Float.valueOf(trimmed);
+            return (T) Float.valueOf(parseFloat(text));
         }
         else if (targetClass.equals(Double.class)) {
-            return (T) Double.valueOf(trimmed);
+            return (T) Double.valueOf(parseDouble(text));
+        }
+
+        String trimmed = StringUtils.trimAllWhitespace(text);
+        if (targetClass.equals(BigInteger.class)) {
+            return (T) (isHexNumber(trimmed) ? decodeBigInteger(trimmed) : new BigInteger(trimmed));
         }
         else if (targetClass.equals(BigDecimal.class) || targetClass.equals(Number.class)) {
             return (T) new BigDecimal(trimmed);
@@ -134,6 +135,237 @@ public abstract class NumberUtils {
                     number.getClass().getName() + "] to unknown target class [" + targetClass.getName() + "]");
         }
     }
+    /**
+     * 10的n次方, 在double中都可以精确表示
+     */
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * 10的n次方, 在float中都可以精确表示
+     */
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /**
+     * 从字符序列中直接解析int, 忽略所有空白字符, 支持"0x"、"0X"、"#"开头的16进制
+     * 与parseNumber一致, 以0开头的数字仍然按10进制处理
+     * @param text
+     * @return
+     * @throws NumberFormatException 格式不正确或者超出范围
+     */
+    public static int parseInt(CharSequence text) {
+        return (int) parseIntegral(text, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public static long parseLong(CharSequence text) {
+        return parseIntegral(text, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public static short parseShort(CharSequence text) {
+        return (short) parseIntegral(text, Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+
+    public static byte parseByte(CharSequence text) {
+        return (byte) parseIntegral(text, Byte.MIN_VALUE, Byte.MAX_VALUE);
+    }
+
+    /**
+     * 从字符序列中解析double, 忽略所有空白字符
+     * 有效数字不超过15位并且10进制指数不超过22时直接计算(结果与Double.parseDouble一致), 其他情况交给Double.parseDouble
+     * @param text
+     * @return
+     * @throws NumberFormatException 格式不正确
+     */
+    public static double parseDouble(CharSequence text) {
+        Assert.notNull(text, "Text must not be null");
+        double value = parseDecimalFastPath(text, 15, DOUBLE_POWERS_OF_TEN.length - 1, false);
+        return (!Double.isNaN(value) ? value : Double.parseDouble(stripWhitespace(text)));
+    }
+
+    /**
+     * 从字符序列中解析float, 有效数字不超过7位并且10进制指数不超过10时直接计算, 其他情况交给Float.parseFloat
+     * @param text
+     * @return
+     * @throws NumberFormatException 格式不正确
+     */
+    public static float parseFloat(CharSequence text) {
+        Assert.notNull(text, "Text must not be null");
+        double value = parseDecimalFastPath(text, 7, FLOAT_POWERS_OF_TEN.length - 1, true);
+        return (!Double.isNaN(value) ? (float) value : Float.parseFloat(stripWhitespace(text)));
+    }
+
+    /**
+     * 使用负数累加, 这样最小值也不会溢出
+     */
+    private static long parseIntegral(CharSequence text, long min, long max) {
+        Assert.notNull(text, "Text must not be null");
+        int len = text.length();
+        int i = skipWhitespace(text, 0, len);
+        boolean negative = false;
+        if (i < len && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = (text.charAt(i) == '-');
+            i = skipWhitespace(text, i + 1, len);
+        }
+        int radix = 10;
+        if (i + 1 < len && text.charAt(i) == '0' && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X')) {
+            radix = 16;
+            i += 2;
+        }
+        else if (i < len && text.charAt(i) == '#') {
+            radix = 16;
+            i++;
+        }
+        long limit = (negative ? min : -max);
+        long multmin = limit / radix;
+        long result = 0;
+        int digits = 0;
+        for (; i < len; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            int digit = Character.digit(c, radix);
+            if (digit < 0 || result < multmin) {
+                throw numberFormatException(text);
+            }
+            result *= radix;
+            if (result < limit + digit) {
+                throw numberFormatException(text);
+            }
+            result -= digit;
+            digits++;
+        }
+        if (digits == 0) {
+            throw numberFormatException(text);
+        }
+        return (negative ? result : -result);
+    }
+
+    /**
+     * 只处理 [符号]数字[.数字][e[符号]数字] 这种简单格式, 尾数和10的幂都能精确表示时一次乘除法得到的就是正确舍入的结果
+     * @return 无法走快速路径时返回NaN
+     */
+    private static double parseDecimalFastPath(CharSequence text, int maxDigits, int maxExponent, boolean singlePrecision) {
+        int len = text.length();
+        boolean negative = false;
+        boolean signSeen = false;
+        boolean dotSeen = false;
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int exponent = 0;
+        int i = 0;
+        for (; i < len; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa == 0 && c == '0') {
+                    //前导0不算有效数字
+                    if (dotSeen) {
+                        exponent--;
+                    }
+                    continue;
+                }
+                if (++significantDigits > maxDigits) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (dotSeen) {
+                    exponent--;
+                }
+            }
+            else if (c == '.' && !dotSeen) {
+                dotSeen = true;
+            }
+            else if ((c == '-' || c == '+') && !signSeen && digits == 0 && !dotSeen) {
+                negative = (c == '-');
+                signSeen = true;
+            }
+            else if ((c == 'e' || c == 'E') && digits > 0) {
+                break;
+            }
+            else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (i < len) {
+            //解析指数部分
+            boolean negativeExponent = false;
+            boolean exponentSignSeen = false;
+            int exponentValue = 0;
+            int exponentDigits = 0;
+            for (i++; i < len; i++) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    continue;
+                }
+                if (c >= '0' && c <= '9') {
+                    if (++exponentDigits > 4) {
+                        return Double.NaN;
+                    }
+                    exponentValue = exponentValue * 10 + (c - '0');
+                }
+                else if ((c == '-' || c == '+') && !exponentSignSeen && exponentDigits == 0) {
+                    negativeExponent = (c == '-');
+                    exponentSignSeen = true;
+                }
+                else {
+                    return Double.NaN;
+                }
+            }
+            if (exponentDigits == 0) {
+                return Double.NaN;
+            }
+            exponent += (negativeExponent ? -exponentValue : exponentValue);
+        }
+        if (mantissa == 0) {
+            return (negative ? -0.0d : 0.0d);
+        }
+        if (exponent < -maxExponent || exponent > maxExponent) {
+            return Double.NaN;
+        }
+        if (singlePrecision) {
+            float value = (float) mantissa;
+            value = (exponent < 0 ? value / FLOAT_POWERS_OF_TEN[-exponent] : value * FLOAT_POWERS_OF_TEN[exponent]);
+            return (negative ? -value : value);
+        }
+        double value = (double) mantissa;
+        value = (exponent < 0 ? value / DOUBLE_POWERS_OF_TEN[-exponent] : value * DOUBLE_POWERS_OF_TEN[exponent]);
+        return (negative ? -value : value);
+    }
+
+    private static int skipWhitespace(CharSequence text, int index, int len) {
+        while (index < len && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static String stripWhitespace(CharSequence text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static NumberFormatException numberFormatException(CharSequence text) {
+        return new NumberFormatException("For input string: \"" + text + "\"");
+    }
+
     private static void raiseOverflowException(Number number, Class targetClass) {
         throw new IllegalArgumentException("Could not convert number [" + number + "] of type [" +
                 number.getClass().getName() + "] to target class [" + targetClass.getName() + "]: overflow");
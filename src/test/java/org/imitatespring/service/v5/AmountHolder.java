@@ -0,0 +1,31 @@
+package org.imitatespring.service.v5;
+
+import java.math.BigDecimal;
+
+/**
+ * 两个参数个数相同的构造器, 用于测试按参数类型匹配构造器以及匹配结果的缓存
+ */
+public class AmountHolder {
+
+    private final int count;
+
+    private final BigDecimal amount;
+
+    public AmountHolder(int count) {
+        this.count = count;
+        this.amount = null;
+    }
+
+    public AmountHolder(BigDecimal amount) {
+        this.count = -1;
+        this.amount = amount;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+}
@@ -0,0 +1,9 @@
+package org.imitatespring.service.v5;
+
+/**
+ * 用于测试转换缓存不会阻止枚举所在的ClassLoader被卸载
+ */
+public enum Color {
+
+    RED, GREEN
+}
@@ -0,0 +1,59 @@
+package org.imitatespring.service.v5;
+
+import org.imitatespring.dao.v2.AccountDao;
+
+public class CounterService {
+
+    /**
+     * 最近一次调用构造器的类, 用于判断是否通过生成的字节码创建
+     */
+    private static volatile String lastCreator;
+
+    private AccountDao accountDao;
+
+    private String name;
+
+    private int count;
+
+    private long total;
+
+    public CounterService() {
+        lastCreator = new Throwable().getStackTrace()[1].getClassName();
+    }
+
+    public static String getLastCreator() {
+        return lastCreator;
+    }
+
+    public AccountDao getAccountDao() {
+        return accountDao;
+    }
+
+    public void setAccountDao(AccountDao accountDao) {
+        this.accountDao = accountDao;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+}
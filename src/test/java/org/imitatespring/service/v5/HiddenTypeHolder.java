@@ -0,0 +1,23 @@
+package org.imitatespring.service.v5;
+
+/**
+ * public的bean, 但是setter的参数类型不是public的, 生成的字节码无法引用这个类型
+ */
+public class HiddenTypeHolder {
+
+    private HiddenType hidden;
+
+    public HiddenType getHidden() {
+        return hidden;
+    }
+
+    public void setHidden(HiddenType hidden) {
+        this.hidden = hidden;
+    }
+
+    public static class Impl implements HiddenType {
+    }
+}
+
+interface HiddenType {
+}
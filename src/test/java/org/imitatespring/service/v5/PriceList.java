@@ -0,0 +1,37 @@
+package org.imitatespring.service.v5;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 同时有不可变属性和可变属性的bean, 用于测试注入计划中的转换结果哪些可以共用
+ */
+public class PriceList {
+
+    private BigDecimal price;
+
+    private List<String> tags;
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    /**
+     * 只有getter的属性
+     */
+    public int getSize() {
+        return (tags != null ? tags.size() : 0);
+    }
+}
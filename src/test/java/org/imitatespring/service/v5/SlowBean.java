@@ -0,0 +1,28 @@
+package org.imitatespring.service.v5;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 构造器比较慢的bean, 用于测试并发创建单例
+ */
+public class SlowBean {
+
+    public static final AtomicInteger instances = new AtomicInteger();
+
+    public static volatile long constructMillis = 0;
+
+    private Object other;
+
+    public SlowBean() throws InterruptedException {
+        instances.incrementAndGet();
+        Thread.sleep(constructMillis);
+    }
+
+    public Object getOther() {
+        return other;
+    }
+
+    public void setOther(Object other) {
+        this.other = other;
+    }
+}
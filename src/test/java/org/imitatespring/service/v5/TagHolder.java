@@ -0,0 +1,29 @@
+package org.imitatespring.service.v5;
+
+import java.util.List;
+
+/**
+ * 构造器参数和属性都是可变对象的bean, 用于测试prototype实例之间不会共用转换结果
+ */
+public class TagHolder {
+
+    private final String[] names;
+
+    private List<String> tags;
+
+    public TagHolder(String[] names) {
+        this.names = names;
+    }
+
+    public String[] getNames() {
+        return names;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+}
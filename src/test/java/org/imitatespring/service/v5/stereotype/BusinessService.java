@@ -0,0 +1,17 @@
+package org.imitatespring.service.v5.stereotype;
+
+import org.imitatespring.stereotype.Service;
+
+import java.lang.annotation.*;
+
+/**
+ * 自定义的组合注解, 通过@Service间接被@Component标注
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Service
+public @interface BusinessService {
+
+    String value() default "";
+}
@@ -0,0 +1,7 @@
+package org.imitatespring.service.v5.stereotype;
+
+import org.imitatespring.stereotype.Repository;
+
+@Repository
+public class InventoryRepository {
+}
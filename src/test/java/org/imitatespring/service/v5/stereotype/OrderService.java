@@ -0,0 +1,5 @@
+package org.imitatespring.service.v5.stereotype;
+
+@BusinessService("orderService")
+public class OrderService {
+}
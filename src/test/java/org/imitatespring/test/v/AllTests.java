@@ -4,6 +4,7 @@ import org.imitatespring.test.v1.V1AllTests;
 import org.imitatespring.test.v2.V2AllTests;
 import org.imitatespring.test.v3.V3AllTests;
 import org.imitatespring.test.v4.V4AllTests;
+import org.imitatespring.test.v5.V5AllTests;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -12,7 +13,8 @@ import org.junit.runners.Suite;
         V1AllTests.class,
         V2AllTests.class,
         V3AllTests.class,
-        V4AllTests.class
+        V4AllTests.class,
+        V5AllTests.class
     })
 public class AllTests {
 }
@@ -0,0 +1,112 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.context.support.ClassPathXmlApplicationContext;
+import org.imitatespring.core.metrics.ApplicationStartup;
+import org.imitatespring.core.metrics.ApplicationStartups;
+import org.imitatespring.core.metrics.StartupStep;
+import org.imitatespring.core.type.classreading.CachingMetadataReaderFactory;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * 容器内部步骤的埋点
+ */
+public class ApplicationStartupTest {
+
+    @After
+    public void tearDown() {
+        ApplicationStartups.set(null);
+    }
+
+    @Test
+    public void testDefaultIsNoOp() {
+        assertFalse(ApplicationStartups.isEnabled());
+        assertSame(ApplicationStartups.DEFAULT, ApplicationStartups.get());
+        StartupStep step = ApplicationStartups.get().start(ApplicationStartup.BEAN_INSTANTIATE);
+        assertSame(step, step.tag(ApplicationStartup.TAG_BEAN_NAME, "petStore"));
+        step.end();
+    }
+
+    @Test
+    public void testRecordContainerSteps() {
+        RecordingApplicationStartup startup = new RecordingApplicationStartup();
+        ApplicationStartups.set(startup);
+        assertTrue(ApplicationStartups.isEnabled());
+        //清空共享的缓存, 保证扫描时会重新读取class文件
+        CachingMetadataReaderFactory.getSharedInstance().clearCache();
+
+        ClassPathXmlApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v4.xml");
+        RecordedStep xmlLoad = startup.getSteps(ApplicationStartup.XML_LOAD).get(0);
+        assertTrue(xmlLoad.tags.get(ApplicationStartup.TAG_RESOURCE).contains("petstore-v4.xml"));
+        assertEquals("3", xmlLoad.tags.get(ApplicationStartup.TAG_BEAN_COUNT));
+
+        List<String> classNames = startup.getSteps(ApplicationStartup.METADATA_READ).stream()
+                .map(step -> step.tags.get(ApplicationStartup.TAG_CLASS_NAME)).collect(Collectors.toList());
+        assertTrue(classNames.contains("org.imitatespring.service.v4.PetStore"));
+
+        ctx.getBean("petStore");
+        RecordedStep instantiate = startup.getSteps(ApplicationStartup.BEAN_INSTANTIATE).stream()
+                .filter(step -> "petStore".equals(step.tags.get(ApplicationStartup.TAG_BEAN_NAME))).findFirst().get();
+        assertEquals("org.imitatespring.service.v4.PetStore", instantiate.tags.get(ApplicationStartup.TAG_BEAN_CLASS));
+        assertEquals(BeanDefinition.SCOPE_DEFAULT, instantiate.tags.get(ApplicationStartup.TAG_SCOPE));
+        assertEquals(3, startup.getSteps(ApplicationStartup.BEAN_POPULATE).size());
+
+        List<String> dependencies = startup.getSteps(ApplicationStartup.BEAN_AUTOWIRE).stream()
+                .map(step -> step.tags.get(ApplicationStartup.TAG_BEAN_NAME)).collect(Collectors.toList());
+        assertTrue(dependencies.contains("accountDao"));
+        assertTrue(dependencies.contains("itemDao"));
+
+        for (RecordedStep step : startup.steps) {
+            assertTrue(step.name, step.ended);
+        }
+    }
+
+    private static class RecordingApplicationStartup implements ApplicationStartup {
+
+        private final List<RecordedStep> steps = new ArrayList<>();
+
+        @Override
+        public synchronized StartupStep start(String name) {
+            RecordedStep step = new RecordedStep(name);
+            this.steps.add(step);
+            return step;
+        }
+
+        synchronized List<RecordedStep> getSteps(String name) {
+            return this.steps.stream().filter(step -> step.name.equals(name)).collect(Collectors.toList());
+        }
+    }
+
+    private static class RecordedStep implements StartupStep {
+
+        private final String name;
+
+        private final Map<String, String> tags = new HashMap<>();
+
+        private volatile boolean ended;
+
+        RecordedStep(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public synchronized StartupStep tag(String key, String value) {
+            this.tags.put(key, value);
+            return this;
+        }
+
+        @Override
+        public void end() {
+            this.ended = true;
+        }
+    }
+}
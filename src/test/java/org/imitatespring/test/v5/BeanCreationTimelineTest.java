@@ -0,0 +1,133 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.annotation.AutowiredAnnotationProcessor;
+import org.imitatespring.beans.factory.support.BeanCreationTimeline;
+import org.imitatespring.beans.factory.support.BeanCreationTimeline.Phase;
+import org.imitatespring.beans.factory.support.BeanCreationTimeline.Step;
+import org.imitatespring.beans.factory.support.BeanFactoryMetrics;
+import org.imitatespring.context.support.ClassPathXmlApplicationContext;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * bean创建时间线的记录、查询与导出
+ */
+public class BeanCreationTimelineTest {
+
+    @Test
+    public void testRecordNestedCreation() {
+        ClassPathXmlApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v4.xml");
+        assertNull(ctx.getCreationTimeline());
+        BeanCreationTimeline timeline = new BeanCreationTimeline();
+        ctx.setCreationTimeline(timeline);
+        ctx.getBean("petStore");
+
+        List<Step> roots = timeline.getRootSteps();
+        assertEquals(1, roots.size());
+        Step petStore = roots.get(0);
+        assertEquals("petStore", petStore.getBeanName());
+        assertEquals(Phase.CREATE, petStore.getPhase());
+        assertEquals(0, petStore.getDepth());
+
+        List<Step> children = timeline.getChildren(petStore);
+        assertEquals(Phase.INSTANTIATE, children.get(0).getPhase());
+        assertEquals(Phase.POPULATE, children.get(1).getPhase());
+        List<Step> postProcess = timeline.getChildren(children.get(1));
+        assertEquals(1, postProcess.size());
+        assertEquals(AutowiredAnnotationProcessor.class.getName() + ".postProcessPropertyValues", postProcess.get(0).getDetail());
+
+        //accountDao和itemDao在petStore的@Autowired注入过程中被创建
+        for (String dependency : new String[]{"accountDao", "itemDao"}) {
+            Step creation = timeline.getSteps(dependency).stream()
+                    .filter(step -> step.getPhase() == Phase.CREATE).findFirst().get();
+            assertEquals(petStore.getId(), timeline.getTriggeringCreation(creation).getId());
+            assertTrue(creation.getDepth() > petStore.getDepth());
+            assertTrue(creation.getDurationNanos() <= petStore.getDurationNanos());
+        }
+        List<Step> slowest = timeline.getSlowestCreations(10);
+        assertEquals(3, slowest.size());
+        assertTrue(timeline.getExclusiveNanos(petStore) <= petStore.getDurationNanos());
+
+        //单例已经创建, 不再产生新的步骤
+        int stepCount = timeline.getSteps().size();
+        ctx.getBean("petStore");
+        assertEquals(stepCount, timeline.getSteps().size());
+
+        ctx.setCreationTimeline(null);
+        assertNull(ctx.getCreationTimeline());
+    }
+
+    @Test
+    public void testExport() {
+        ClassPathXmlApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v4.xml");
+        BeanCreationTimeline timeline = new BeanCreationTimeline();
+        ctx.setCreationTimeline(timeline);
+        ctx.getBean("petStore");
+
+        String json = timeline.toJson();
+        assertTrue(json.startsWith("{\"steps\":[{\"id\":"));
+        assertTrue(json.contains("\"bean\":\"petStore\",\"phase\":\"create\""));
+        assertTrue(json.contains("\"phase\":\"post_process\""));
+
+        String trace = timeline.toChromeTrace();
+        assertTrue(trace.startsWith("{\"traceEvents\":[{\"name\":\"petStore\",\"cat\":\"create\",\"ph\":\"X\""));
+        assertTrue(trace.contains("\"name\":\"accountDao\""));
+        assertTrue(trace.endsWith("],\"displayTimeUnit\":\"ns\"}"));
+        assertEquals(count(json, "\"id\":"), count(trace, "\"ph\":\"X\""));
+
+        timeline.clear();
+        assertEquals("{\"steps\":[]}", timeline.toJson());
+    }
+
+    @Test
+    public void testRecordPreInstantiation() {
+        BeanCreationTimeline timeline = new BeanCreationTimeline();
+        BeanFactoryMetrics metrics = new BeanFactoryMetrics();
+        //构造器中提前创建单例, 时间线和统计需要通过构造器传入
+        ClassPathXmlApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v4.xml", 2, null, timeline, metrics);
+        assertSame(timeline, ctx.getCreationTimeline());
+        assertSame(metrics, ctx.getMetrics());
+        for (String beanName : new String[]{"petStore", "accountDao", "itemDao"}) {
+            assertTrue(timeline.getSteps(beanName).stream().anyMatch(step -> step.getPhase() == Phase.CREATE));
+            assertEquals(1, metrics.getBeanMetrics(beanName).getCreationCount());
+        }
+    }
+
+    @Test
+    public void testCapacityDropsOldestSteps() {
+        ClassPathXmlApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v4.xml");
+        BeanCreationTimeline timeline = new BeanCreationTimeline(4);
+        assertEquals(4, timeline.getCapacity());
+        ctx.setCreationTimeline(timeline);
+        ctx.getBean("petStore");
+
+        //petStore的CREATE步骤最后结束, 保留下来, 最早结束的依赖bean的步骤被丢弃
+        List<Step> steps = timeline.getSteps();
+        assertEquals(4, steps.size());
+        assertTrue(timeline.getDroppedStepCount() > 0);
+        Step petStore = steps.get(0);
+        assertEquals("petStore", petStore.getBeanName());
+        assertEquals(Phase.CREATE, petStore.getPhase());
+        assertTrue(timeline.toString().startsWith("BeanCreationTimeline[4 steps, " + timeline.getDroppedStepCount() + " dropped]"));
+
+        timeline.clear();
+        assertTrue(timeline.getSteps().isEmpty());
+        assertEquals(0, timeline.getDroppedStepCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new BeanCreationTimeline(0);
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,177 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.ConstructorArgument;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.RuntimeBeanReference;
+import org.imitatespring.beans.factory.config.TypedStringValue;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.context.annotation.ScannedGenericBeanDefinition;
+import org.imitatespring.context.support.BeanDefinitionSnapshot;
+import org.imitatespring.context.support.ClassPathXmlApplicationContext;
+import org.imitatespring.context.support.FileSystemXmlApplicationContext;
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.core.io.FileSystemResource;
+import org.imitatespring.core.type.AnnotationMetadata;
+import org.imitatespring.service.v4.PetStore;
+import org.imitatespring.stereotype.Component;
+import org.imitatespring.util.ClassUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+/**
+ * BeanDefinition二进制快照测试
+ */
+public class BeanDefinitionSnapshotTest {
+
+    private File snapshotFile;
+
+    @Before
+    public void setUp() throws Exception {
+        Path dir = Files.createTempDirectory("definition-snapshot");
+        dir.toFile().deleteOnExit();
+        snapshotFile = dir.resolve("beans.snapshot").toFile();
+        snapshotFile.deleteOnExit();
+    }
+
+    @Test
+    public void testSnapshotScannedDefinitions() {
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("petstore-v4.xml", 0, snapshotFile);
+        assertTrue(snapshotFile.isFile());
+        assertNotNull(((PetStore) context.getBean("petStore")).getAccountDao());
+
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        BeanDefinitionSnapshot snapshot = new BeanDefinitionSnapshot(snapshotFile, ClassUtils.getDefaultClassLoader());
+        assertTrue(snapshot.load(factory, new ClassPathResource("petstore-v4.xml")));
+        assertArrayEquals(new String[]{"petStore", "accountDao", "itemDao"}, factory.getBeanDefinitionNames());
+        BeanDefinition bd = factory.getBeanDefinition("petStore");
+        assertTrue(bd instanceof ScannedGenericBeanDefinition);
+        AnnotationMetadata amd = ((ScannedGenericBeanDefinition) bd).getMetadata();
+        assertEquals(PetStore.class.getName(), amd.getClassName());
+        assertEquals("petStore", amd.getAnnotationAttributes(Component.class.getName()).getString("value"));
+        assertEquals("java.lang.Object", amd.getSuperClassName());
+
+        //从快照启动的容器同样可以完成自动装配
+        context = new ClassPathXmlApplicationContext("petstore-v4.xml", 0, snapshotFile);
+        PetStore petStore = (PetStore) context.getBean("petStore");
+        assertSame(context.getBean("accountDao"), petStore.getAccountDao());
+    }
+
+    @Test
+    public void testSnapshotConstructorArguments() {
+        new ClassPathXmlApplicationContext("petstore-v3.xml", 0, snapshotFile);
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        BeanDefinitionSnapshot snapshot = new BeanDefinitionSnapshot(snapshotFile, ClassUtils.getDefaultClassLoader());
+        assertTrue(snapshot.load(factory, new ClassPathResource("petstore-v3.xml")));
+
+        BeanDefinition bd = factory.getBeanDefinition("petStore");
+        assertEquals("org.imitatespring.service.v3.PetStore", bd.getBeanClassName());
+        assertTrue(bd.isSingleton());
+        ConstructorArgument.ValueHolder first = bd.getConstructorArgument().getArgumentValues().get(0);
+        assertEquals("accountDao", first.getName());
+        assertEquals("accountDao", ((RuntimeBeanReference) first.getValue()).getBeanName());
+        ConstructorArgument.ValueHolder age = bd.getConstructorArgument().getArgumentValues().get(2);
+        assertEquals("24", ((TypedStringValue) age.getValue()).getValue());
+        assertNull(age.getType());
+    }
+
+    @Test
+    public void testStaleSnapshotIsIgnored() throws Exception {
+        File config = File.createTempFile("petstore-snapshot", ".xml");
+        config.deleteOnExit();
+        try (InputStream is = new ClassPathResource("petstore-v3.xml").getInputStream()) {
+            Files.copy(is, config.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        new FileSystemXmlApplicationContext(config.getPath(), 0, snapshotFile);
+        BeanDefinitionSnapshot snapshot = new BeanDefinitionSnapshot(snapshotFile, ClassUtils.getDefaultClassLoader());
+        assertTrue(snapshot.load(new DefaultBeanFactory(), new FileSystemResource(config)));
+
+        String xml = new String(Files.readAllBytes(config.toPath()), "UTF-8").replace("value=\"24\"", "value=\"25\"");
+        Files.write(config.toPath(), xml.getBytes("UTF-8"));
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        assertFalse(snapshot.load(factory, new FileSystemResource(config)));
+        assertEquals(0, factory.getBeanDefinitionNames().length);
+
+        //重新解析配置文件并刷新快照
+        new FileSystemXmlApplicationContext(config.getPath(), 0, snapshotFile);
+        assertTrue(snapshot.load(factory, new FileSystemResource(config)));
+        ConstructorArgument.ValueHolder age = factory.getBeanDefinition("petStore").getConstructorArgument().getArgumentValues().get(2);
+        assertEquals("25", ((TypedStringValue) age.getValue()).getValue());
+    }
+
+    @Test
+    public void testChecksumOfLargeConfigDoesNotMapFile() throws Exception {
+        File config = File.createTempFile("petstore-snapshot-large", ".xml");
+        config.deleteOnExit();
+        String xml = new String(new ClassPathResource("petstore-v3.xml").getContentAsByteArray(), "UTF-8");
+        char[] padding = new char[300 * 1024];
+        Arrays.fill(padding, ' ');
+        Files.write(config.toPath(), (xml + "<!--" + new String(padding) + "-->").getBytes("UTF-8"));
+
+        //超过内存映射阈值的配置文件, 计算校验和时不应该建立映射
+        FileSystemResource configResource = new FileSystemResource(config) {
+            @Override
+            public ByteBuffer readByteBuffer() {
+                throw new AssertionError("checksum should not map the config file");
+            }
+        };
+        BeanDefinitionSnapshot snapshot = new BeanDefinitionSnapshot(snapshotFile, ClassUtils.getDefaultClassLoader());
+        snapshot.save(new DefaultBeanFactory(), configResource, Collections.<String>emptyList());
+        assertTrue(snapshot.load(new DefaultBeanFactory(), configResource));
+        //没有残留的映射, 配置文件可以被删除
+        assertTrue(config.delete());
+    }
+
+    @Test
+    public void testCorruptLengthsAreIgnored() throws Exception {
+        ClassPathResource config = new ClassPathResource("petstore-v3.xml");
+        CRC32 crc = new CRC32();
+        crc.update(config.getContentAsByteArray());
+        //负数和超大的长度都只让快照失效, 不会抛出NegativeArraySizeException或OutOfMemoryError
+        for (int corruptLength : new int[]{-5, Integer.MAX_VALUE}) {
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(snapshotFile))) {
+                out.writeInt(0x494D5350);
+                out.writeInt(1);
+                out.writeLong(crc.getValue());
+                out.writeInt(1);
+                out.writeInt(corruptLength);
+            }
+            BeanDefinitionSnapshot snapshot = new BeanDefinitionSnapshot(snapshotFile, ClassUtils.getDefaultClassLoader());
+            DefaultBeanFactory factory = new DefaultBeanFactory();
+            assertFalse(snapshot.load(factory, config));
+            assertEquals(0, factory.getBeanDefinitionNames().length);
+        }
+    }
+
+    @Test
+    public void testStaleSnapshotIsReplacedAfterLoad() throws Exception {
+        File config = File.createTempFile("petstore-snapshot-replace", ".xml");
+        config.deleteOnExit();
+        try (InputStream is = new ClassPathResource("petstore-v3.xml").getInputStream()) {
+            Files.copy(is, config.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        new FileSystemXmlApplicationContext(config.getPath(), 0, snapshotFile);
+        Files.write(config.toPath(), (new String(Files.readAllBytes(config.toPath()), "UTF-8") + "\n").getBytes("UTF-8"));
+
+        //读取过期的快照后不再持有文件, 快照可以立即被替换和删除
+        BeanDefinitionSnapshot snapshot = new BeanDefinitionSnapshot(snapshotFile, ClassUtils.getDefaultClassLoader());
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        assertFalse(snapshot.load(factory, new FileSystemResource(config)));
+        new FileSystemXmlApplicationContext(config.getPath(), 0, snapshotFile);
+        assertTrue(snapshot.load(factory, new FileSystemResource(config)));
+        assertTrue(snapshotFile.delete());
+    }
+}
@@ -0,0 +1,104 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.support.BeanFactoryMetrics;
+import org.imitatespring.beans.factory.support.BeanFactoryMetrics.BeanMetrics;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.core.metrics.LatencyHistogram;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * getBean的调用次数、耗时分布、创建次数和单例缓存命中率
+ */
+public class BeanFactoryMetricsTest {
+
+    @Test
+    public void testRecordGetBean() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        new XmlBeanDefinitionReader(factory).loadBeanDefinitions(new ClassPathResource("petstore-v5.xml"));
+        assertNull(factory.getMetrics());
+        BeanFactoryMetrics metrics = new BeanFactoryMetrics();
+        factory.setMetrics(metrics);
+
+        for (int i = 0; i < 10; i++) {
+            factory.getBean("second");
+            factory.getBean("prototype");
+        }
+        BeanMetrics second = metrics.getBeanMetrics("second");
+        assertEquals(10, second.getGetBeanCount());
+        assertEquals(1, second.getCreationCount());
+        assertEquals(9, second.getSingletonHits());
+        assertEquals(1, second.getSingletonMisses());
+        assertEquals(0.9, second.getSingletonHitRate(), 1e-9);
+        assertTrue(second.isSingleton());
+        assertEquals(10, second.getGetBeanLatency().getCount());
+
+        BeanMetrics prototype = metrics.getBeanMetrics("prototype");
+        assertEquals(10, prototype.getCreationCount());
+        assertFalse(prototype.isSingleton());
+        assertEquals(0, prototype.getSingletonHits() + prototype.getSingletonMisses());
+
+        //third注入prototype时又创建了一次prototype
+        factory.getBean("third");
+        List<BeanMetrics> mostCreated = metrics.getMostCreated(1);
+        assertEquals(1, mostCreated.size());
+        assertEquals("prototype", mostCreated.get(0).getBeanName());
+        assertEquals(11, mostCreated.get(0).getCreationCount());
+        assertTrue(metrics.dump().contains("prototype [prototype]: getBean=11, created=11"));
+
+        //冻结配置后通过编号获取也会记录
+        factory.freezeConfiguration();
+        factory.getBean(factory.getBeanIndex("second"));
+        assertEquals(11, second.getGetBeanCount());
+        assertEquals(10, second.getSingletonHits());
+
+        factory.setMetrics(null);
+        factory.getBean("second");
+        assertEquals(11, second.getGetBeanCount());
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean(), 1e-6);
+        //每个桶的相对误差不超过1/16
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 / 16);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 / 16);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(9999, histogram.getMax());
+    }
+}
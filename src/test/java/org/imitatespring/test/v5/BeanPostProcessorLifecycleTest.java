@@ -0,0 +1,160 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.annotation.AutowiredAnnotationProcessor;
+import org.imitatespring.beans.factory.config.BeanPostProcessor;
+import org.imitatespring.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.imitatespring.beans.factory.support.BeanCreationTimeline;
+import org.imitatespring.beans.factory.support.BeanCreationTimeline.Phase;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.service.v5.SlowBean;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * BeanPostProcessor的完整生命周期, 以及按回调方法和bean类型过滤processor
+ */
+public class BeanPostProcessorLifecycleTest {
+
+    private DefaultBeanFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new DefaultBeanFactory();
+        new XmlBeanDefinitionReader(factory).loadBeanDefinitions(new ClassPathResource("petstore-v5.xml"));
+    }
+
+    @Test
+    public void testLifecycleOrder() {
+        RecordingProcessor processor = new RecordingProcessor();
+        factory.addBeanPostProcessor(processor);
+        SlowBean second = (SlowBean) factory.getBean("second");
+        assertEquals(Arrays.asList("beforeInstantiation:second", "afterInstantiation:second",
+                "postProcessPropertyValues:second", "beforeInitialization:second", "afterInitialization:second"),
+                processor.calls);
+        assertSame(second, factory.getBean("second"));
+    }
+
+    @Test
+    public void testReplaceBean() {
+        factory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object afterInitialization(Object bean, String beanName) {
+                return "prototype".equals(beanName) ? "wrapped" : bean;
+            }
+        });
+        assertEquals("wrapped", factory.getBean("prototype"));
+        //注入的也是替换后的bean
+        assertEquals("wrapped", ((SlowBean) factory.getBean("third")).getOther());
+    }
+
+    @Test
+    public void testShortCircuitBeforeInstantiation() {
+        RecordingProcessor recorder = new RecordingProcessor();
+        factory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessor() {
+            @Override
+            public Object beforeInstantiation(Class<?> beanClass, String beanName) {
+                return "first".equals(beanName) ? "provided" : null;
+            }
+        });
+        factory.addBeanPostProcessor(recorder);
+        assertEquals("provided", factory.getBean("first"));
+        //跳过了实例化和属性注入, 所以second没有被创建
+        assertEquals(Arrays.asList("afterInitialization:first"), recorder.calls);
+    }
+
+    @Test
+    public void testSkipPopulation() {
+        factory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessor() {
+            @Override
+            public boolean afterInstantiation(Object bean, String beanName) {
+                return false;
+            }
+        });
+        assertNull(((SlowBean) factory.getBean("first")).getOther());
+    }
+
+    @Test
+    public void testOnlyOverriddenHooksInvoked() {
+        BeanCreationTimeline timeline = new BeanCreationTimeline();
+        factory.setCreationTimeline(timeline);
+        factory.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object beforeInitialization(Object bean, String beanName) {
+                return bean;
+            }
+        });
+        factory.getBean("second");
+        List<String> details = timeline.getSteps("second").stream().filter(step -> step.getPhase() == Phase.POST_PROCESS)
+                .map(step -> step.getDetail().substring(step.getDetail().lastIndexOf('.') + 1)).collect(Collectors.toList());
+        assertEquals(Arrays.asList("beforeInitialization"), details);
+    }
+
+    @Test
+    public void testSkipProcessorsForUnaffectedBeanClass() {
+        BeanCreationTimeline timeline = new BeanCreationTimeline();
+        factory.setCreationTimeline(timeline);
+        AutowiredAnnotationProcessor autowiredProcessor = new AutowiredAnnotationProcessor();
+        autowiredProcessor.setBeanFactory(factory);
+        factory.addBeanPostProcessor(autowiredProcessor);
+        RecordingProcessor recorder = new RecordingProcessor() {
+            @Override
+            public boolean isApplicable(Class<?> beanClass) {
+                return false;
+            }
+        };
+        factory.addBeanPostProcessor(recorder);
+        factory.getBean("first");
+        //SlowBean没有@Autowired属性, 两个processor都不会被调用
+        assertTrue(recorder.calls.isEmpty());
+        assertTrue(timeline.getSteps().stream().noneMatch(step -> step.getPhase() == Phase.POST_PROCESS));
+        assertNotNull(((SlowBean) factory.getBean("first")).getOther());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testProcessorsRegisteredThroughFactoryOnly() {
+        factory.getBeanPostProcessors().add(new RecordingProcessor());
+    }
+
+    private static class RecordingProcessor implements InstantiationAwareBeanPostProcessor {
+
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public Object beforeInstantiation(Class<?> beanClass, String beanName) {
+            this.calls.add("beforeInstantiation:" + beanName);
+            return null;
+        }
+
+        @Override
+        public boolean afterInstantiation(Object bean, String beanName) {
+            this.calls.add("afterInstantiation:" + beanName);
+            return true;
+        }
+
+        @Override
+        public void postProcessPropertyValues(Object bean, String beanName) {
+            this.calls.add("postProcessPropertyValues:" + beanName);
+        }
+
+        @Override
+        public Object beforeInitialization(Object bean, String beanName) {
+            this.calls.add("beforeInitialization:" + beanName);
+            return bean;
+        }
+
+        @Override
+        public Object afterInitialization(Object bean, String beanName) {
+            this.calls.add("afterInitialization:" + beanName);
+            return bean;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.context.annotation.ClassPathBeanDefinitionScanner;
+import org.imitatespring.context.annotation.ScannedGenericBeanDefinition;
+import org.imitatespring.core.io.FileSystemResource;
+import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.type.AnnotationMetadata;
+import org.imitatespring.core.type.classreading.CachingMetadataReaderFactory;
+import org.imitatespring.core.type.classreading.MetadataReader;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 多个scanner共用MetadataReader缓存
+ */
+public class CachingMetadataReaderFactoryTest {
+
+    @Test
+    public void testScannersShareMetadata() {
+        CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+        List<AnnotationMetadata> first = scan(factory);
+        assertEquals(0, factory.getHitCount());
+        long misses = factory.getMissCount();
+        assertTrue(misses >= first.size());
+
+        List<AnnotationMetadata> second = scan(factory);
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertSame(first.get(i), second.get(i));
+        }
+        assertEquals(misses, factory.getMissCount());
+        assertEquals(misses, factory.getHitCount());
+        assertEquals(0.5d, factory.getHitRate(), 0d);
+    }
+
+    @Test
+    public void testModifiedClassFileIsReparsed() throws Exception {
+        Path classFile = Files.createTempDirectory("metadata-cache").resolve("AccountDao.class");
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("org/imitatespring/dao/v4/AccountDao.class")) {
+            Files.copy(is, classFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Resource resource = new FileSystemResource(classFile.toFile());
+        CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+        MetadataReader reader = factory.getMetadataReader(resource);
+        assertSame(reader, factory.getMetadataReader(resource));
+
+        assertTrue(classFile.toFile().setLastModified(resource.lastModified() - 10000));
+        MetadataReader reparsed = factory.getMetadataReader(resource);
+        assertNotSame(reader, reparsed);
+        assertEquals("org.imitatespring.dao.v4.AccountDao", reparsed.getClassMetadata().getClassName());
+        assertEquals(1, factory.getHitCount());
+        assertEquals(2, factory.getMissCount());
+        assertEquals(1, factory.getCacheSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory(1);
+        scan(factory);
+        assertEquals(1, factory.getCacheSize());
+        assertTrue(factory.getEvictionCount() > 0);
+        factory.clearCache();
+        assertEquals(0, factory.getCacheSize());
+    }
+
+    private List<AnnotationMetadata> scan(CachingMetadataReaderFactory metadataReaderFactory) {
+        ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(new DefaultBeanFactory());
+        scanner.setComponentsIndex(null);
+        scanner.setMetadataReaderFactory(metadataReaderFactory);
+        List<AnnotationMetadata> metadata = new ArrayList<>();
+        for (BeanDefinition bd : scanner.doScan("org.imitatespring.service.v4,org.imitatespring.dao.v4")) {
+            metadata.add(((ScannedGenericBeanDefinition) bd).getMetadata());
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,129 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.context.annotation.ClassPathBeanDefinitionScanner;
+import org.imitatespring.context.annotation.ScannedGenericBeanDefinition;
+import org.imitatespring.context.index.CandidateComponentsIndex;
+import org.imitatespring.context.index.CandidateComponentsIndexer;
+import org.imitatespring.core.type.AnnotationMetadata;
+import org.imitatespring.stereotype.Component;
+import org.imitatespring.util.ClassUtils;
+import org.junit.Assume;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * 编译期组件索引测试
+ */
+public class CandidateComponentsIndexTest {
+
+    @Test
+    public void testIndexerWritesComponents() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+
+        File outputDir = Files.createTempDirectory("component-index").toFile();
+        File sourceDir = new File("src/test/java");
+        List<File> sources = Arrays.asList(
+                new File(sourceDir, "org/imitatespring/service/v4/PetStore.java"),
+                new File(sourceDir, "org/imitatespring/dao/v4/AccountDao.java"),
+                new File(sourceDir, "org/imitatespring/dao/v4/ItemDao.java"));
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                    Arrays.asList("-d", outputDir.getPath(), "-classpath", System.getProperty("java.class.path")),
+                    null, fileManager.getJavaFileObjectsFromFiles(sources));
+            task.setProcessors(Collections.singletonList(new CandidateComponentsIndexer()));
+            assertTrue(task.call());
+        }
+
+        Properties index = new Properties();
+        try (InputStream is = new FileInputStream(new File(outputDir, CandidateComponentsIndex.COMPONENTS_RESOURCE_LOCATION))) {
+            index.load(is);
+        }
+        assertEquals(3, index.size());
+        assertEquals(Component.class.getName() + ",petStore", index.getProperty("org.imitatespring.service.v4.PetStore"));
+        assertEquals(Component.class.getName(), index.getProperty("org.imitatespring.dao.v4.AccountDao"));
+        assertEquals(Component.class.getName(), index.getProperty("org.imitatespring.dao.v4.ItemDao"));
+    }
+
+    @Test
+    public void testScanWithIndex() {
+        Properties properties = new Properties();
+        properties.setProperty("org.imitatespring.service.v4.PetStore", Component.class.getName() + ",petStore");
+        //索引中只有AccountDao, 扫描结果以索引为准
+        properties.setProperty("org.imitatespring.dao.v4.AccountDao", Component.class.getName());
+
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(factory);
+        scanner.setComponentsIndex(new CandidateComponentsIndex(properties, ClassUtils.getDefaultClassLoader()));
+        scanner.doScan("org.imitatespring.service.v4,org.imitatespring.dao.v4");
+
+        BeanDefinition bd = factory.getBeanDefinition("petStore");
+        assertTrue(bd instanceof ScannedGenericBeanDefinition);
+        AnnotationMetadata amd = ((ScannedGenericBeanDefinition) bd).getMetadata();
+        assertTrue(amd.hasAnnotation(Component.class.getName()));
+        assertEquals("petStore", amd.getAnnotationAttributes(Component.class.getName()).getString("value"));
+        //类级别的信息按需从class文件读取
+        assertEquals("java.lang.Object", amd.getSuperClassName());
+        assertFalse(amd.isAbstract());
+
+        assertNotNull(factory.getBeanDefinition("accountDao"));
+        assertNull(factory.getBeanDefinition("itemDao"));
+    }
+
+    @Test
+    public void testFallbackToScanningWhenPackageNotIndexed() {
+        Properties properties = new Properties();
+        properties.setProperty("org.imitatespring.service.v4.PetStore", Component.class.getName() + ",petStore");
+
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(factory);
+        scanner.setComponentsIndex(new CandidateComponentsIndex(properties, ClassUtils.getDefaultClassLoader()));
+        scanner.doScan("org.imitatespring.dao.v4");
+
+        assertNotNull(factory.getBeanDefinition("accountDao"));
+        assertNotNull(factory.getBeanDefinition("itemDao"));
+    }
+
+    @Test
+    public void testCachedIndexDoesNotRetainClassLoader() throws Exception {
+        File root = Files.createTempDirectory("component-index-loader").toFile();
+        File indexFile = new File(root, CandidateComponentsIndex.COMPONENTS_RESOURCE_LOCATION);
+        assertTrue(indexFile.getParentFile().mkdirs());
+        Files.write(indexFile.toPath(), ("org.imitatespring.dao.v4.ItemDao=" + Component.class.getName()).getBytes("UTF-8"));
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null);
+        CandidateComponentsIndex index = CandidateComponentsIndex.loadIndex(classLoader);
+        assertNotNull(index);
+        assertSame(index, CandidateComponentsIndex.loadIndex(classLoader));
+        assertEquals(1, index.getCandidateComponents("org.imitatespring.dao.v4").size());
+
+        //缓存的索引仍然可达, ClassLoader也应该可以被回收
+        WeakReference<ClassLoader> ref = new WeakReference<>(classLoader);
+        classLoader.close();
+        classLoader = null;
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get());
+        assertTrue(index.getCandidateComponents("org.imitatespring.dao.v4").isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.ConstructorArgument;
+import org.imitatespring.beans.PropertyValue;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.RuntimeBeanReference;
+import org.imitatespring.beans.factory.config.TypedStringValue;
+import org.imitatespring.beans.factory.support.BeanCreationTimeline;
+import org.imitatespring.beans.factory.support.BeanCreationTimeline.Phase;
+import org.imitatespring.beans.factory.support.BeanCreationTimeline.Step;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.service.v5.CounterService;
+import org.imitatespring.service.v5.HiddenTypeHolder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * prototype bean创建次数超过阈值之后改为使用生成的字节码创建
+ */
+public class CompiledInstantiationTest {
+
+    private DefaultBeanFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new DefaultBeanFactory();
+        factory.setCompiledInstantiationThreshold(2);
+    }
+
+    @Test
+    public void testSetterInjection() {
+        new XmlBeanDefinitionReader(factory).loadBeanDefinitions(new ClassPathResource("petstore-v2.xml"));
+        BeanDefinition bd = new GenericBeanDefinition("counterService", CounterService.class.getName());
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        bd.getPropertyValue().add(new PropertyValue("accountDao", new RuntimeBeanReference("accountDao")));
+        bd.getPropertyValue().add(new PropertyValue("name", new TypedStringValue("counter")));
+        bd.getPropertyValue().add(new PropertyValue("count", new TypedStringValue("3")));
+        factory.registerBeanDefinition("counterService", bd);
+
+        for (int i = 0; i < 2; i++) {
+            assertCounterService((CounterService) factory.getBean("counterService"));
+            assertFalse(CounterService.getLastCreator().contains("$$Accessor$$"));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertCounterService((CounterService) factory.getBean("counterService"));
+            assertTrue(CounterService.getLastCreator().contains("$$Accessor$$"));
+        }
+    }
+
+    @Test
+    public void testConstructorInjection() {
+        new XmlBeanDefinitionReader(factory).loadBeanDefinitions(new ClassPathResource("petstore-v3.xml"));
+        BeanDefinition bd = new GenericBeanDefinition("petStorePrototype", org.imitatespring.service.v3.PetStore.class.getName());
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        ConstructorArgument args = bd.getConstructorArgument();
+        args.addArgumentValue(new ConstructorArgument.ValueHolder(new RuntimeBeanReference("accountDao")));
+        args.addArgumentValue(new ConstructorArgument.ValueHolder(new RuntimeBeanReference("itemDao")));
+        args.addArgumentValue(new ConstructorArgument.ValueHolder(new TypedStringValue("24")));
+        factory.registerBeanDefinition("petStorePrototype", bd);
+
+        for (int i = 0; i < 5; i++) {
+            org.imitatespring.service.v3.PetStore petStore =
+                    (org.imitatespring.service.v3.PetStore) factory.getBean("petStorePrototype");
+            assertEquals(24, petStore.getAge());
+            assertSame(factory.getBean("accountDao"), petStore.getAccountDao());
+            assertSame(factory.getBean("itemDao"), petStore.getItemDao());
+        }
+    }
+
+    @Test
+    public void testNonPublicParameterTypeUsesReflection() {
+        factory.registerBeanDefinition("impl", new GenericBeanDefinition("impl", HiddenTypeHolder.Impl.class.getName()));
+        BeanDefinition bd = new GenericBeanDefinition("holder", HiddenTypeHolder.class.getName());
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        bd.getPropertyValue().add(new PropertyValue("hidden", new RuntimeBeanReference("impl")));
+        factory.registerBeanDefinition("holder", bd);
+
+        for (int i = 0; i < 5; i++) {
+            HiddenTypeHolder holder = (HiddenTypeHolder) factory.getBean("holder");
+            assertSame(factory.getBean("impl"), holder.getHidden());
+        }
+    }
+
+    @Test
+    public void testCompiledInstantiationIsRecorded() {
+        BeanCreationTimeline timeline = new BeanCreationTimeline();
+        factory.setCreationTimeline(timeline);
+        BeanDefinition bd = new GenericBeanDefinition("counterService", CounterService.class.getName());
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        factory.registerBeanDefinition("counterService", bd);
+        for (int i = 0; i < 3; i++) {
+            factory.getBean("counterService");
+        }
+        List<String> details = timeline.getSteps("counterService").stream()
+                .filter(step -> step.getPhase() == Phase.INSTANTIATE)
+                .map(Step::getDetail).collect(Collectors.toList());
+        assertEquals(Arrays.asList(null, null, "compiled"), details);
+    }
+
+    private void assertCounterService(CounterService service) {
+        assertEquals("counter", service.getName());
+        assertEquals(3, service.getCount());
+        assertEquals(0L, service.getTotal());
+        assertSame(factory.getBean("accountDao"), service.getAccountDao());
+    }
+}
@@ -0,0 +1,109 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.PropertyValue;
+import org.imitatespring.beans.factory.BeanCurrentlyInCreationException;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.RuntimeBeanReference;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.imitatespring.service.v5.SlowBean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 多线程同时获取单例
+ */
+public class ConcurrentSingletonTest {
+
+    private DefaultBeanFactory factory;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        factory = new DefaultBeanFactory();
+        executor = Executors.newFixedThreadPool(8);
+        SlowBean.instances.set(0);
+        SlowBean.constructMillis = 50;
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        SlowBean.constructMillis = 0;
+    }
+
+    @Test
+    public void testSingletonCreatedOnce() throws Exception {
+        registerSlowBean("slowBean", null);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return factory.getBean("slowBean");
+            }));
+        }
+        start.countDown();
+        Object first = futures.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<Object> future : futures) {
+            assertSame(first, future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, SlowBean.instances.get());
+    }
+
+    @Test
+    public void testCircularReference() {
+        registerSlowBean("beanA", "beanB");
+        registerSlowBean("beanB", "beanA");
+        try {
+            factory.getBean("beanA");
+        } catch (RuntimeException e) {
+            assertCausedBy(e, BeanCurrentlyInCreationException.class);
+            return;
+        }
+        fail("expect BeanCurrentlyInCreationException");
+    }
+
+    @Test
+    public void testDeadlockDetected() throws Exception {
+        registerSlowBean("beanA", "beanB");
+        registerSlowBean("beanB", "beanA");
+        //两个线程分别先锁住beanA和beanB, 然后互相等待
+        Future<Object> futureA = executor.submit(() -> factory.getBean("beanA"));
+        Future<Object> futureB = executor.submit(() -> factory.getBean("beanB"));
+        for (Future<Object> future : Arrays.asList(futureA, futureB)) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("expect BeanCurrentlyInCreationException");
+            } catch (ExecutionException e) {
+                assertCausedBy(e.getCause(), BeanCurrentlyInCreationException.class);
+            }
+        }
+    }
+
+    private void registerSlowBean(String beanId, String ref) {
+        BeanDefinition bd = new GenericBeanDefinition(beanId, SlowBean.class.getName());
+        if (ref != null) {
+            bd.getPropertyValue().add(new PropertyValue("other", new RuntimeBeanReference(ref)));
+        }
+        factory.registerBeanDefinition(beanId, bd);
+    }
+
+    private void assertCausedBy(Throwable ex, Class<? extends Throwable> type) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (type.isInstance(t)) {
+                return;
+            }
+        }
+        fail("expect " + type.getName() + " but was " + ex);
+    }
+}
@@ -0,0 +1,95 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.ConstructorArgument;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.RuntimeBeanReference;
+import org.imitatespring.beans.factory.config.TypedStringValue;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.imitatespring.core.convert.support.DefaultConversionService;
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.service.v3.PetStore;
+import org.imitatespring.service.v5.AmountHolder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * prototype bean多次通过构造器创建时复用匹配好的构造器
+ */
+public class ConstructorCacheTest {
+
+    private DefaultBeanFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new DefaultBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(factory);
+        reader.loadBeanDefinitions(new ClassPathResource("petstore-v3.xml"));
+    }
+
+    @Test
+    public void testPrototypeConstructorInjection() {
+        registerPrototype("petStorePrototype", new TypedStringValue("30"));
+        PetStore petStore1 = (PetStore) factory.getBean("petStorePrototype");
+        PetStore petStore2 = (PetStore) factory.getBean("petStorePrototype");
+        assertNotSame(petStore1, petStore2);
+        assertEquals(30, petStore1.getAge());
+        assertEquals(30, petStore2.getAge());
+        assertSame(petStore1.getAccountDao(), petStore2.getAccountDao());
+        assertSame(petStore1.getItemDao(), petStore2.getItemDao());
+    }
+
+    @Test
+    public void testMatchByArgumentCount() {
+        registerPrototype("twoArgPetStore");
+        PetStore petStore = (PetStore) factory.getBean("twoArgPetStore");
+        assertEquals(-1, petStore.getAge());
+    }
+
+    @Test
+    public void testResolvedConstructorIsReused() {
+        AtomicInteger conversions = new AtomicInteger();
+        factory.setConversionService(new DefaultConversionService() {
+            @Override
+            public <T> T convert(Object source, Class<T> targetType) {
+                conversions.incrementAndGet();
+                return super.convert(source, targetType);
+            }
+        });
+        //"9.99"不能转换成int, AmountHolder(int)被跳过, 匹配AmountHolder(BigDecimal)
+        BeanDefinition bd = new GenericBeanDefinition("amountHolder", AmountHolder.class.getName());
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        bd.getConstructorArgument().addArgumentValue(new ConstructorArgument.ValueHolder(new TypedStringValue("9.99")));
+        factory.registerBeanDefinition("amountHolder", bd);
+
+        AmountHolder first = (AmountHolder) factory.getBean("amountHolder");
+        assertEquals(new BigDecimal("9.99"), first.getAmount());
+        assertEquals(-1, first.getCount());
+        int conversionsForMatching = conversions.get();
+        assertTrue(conversionsForMatching > 0);
+
+        //第二次创建直接使用缓存的构造器和转换好的参数, 不再匹配也不再转换
+        AmountHolder second = (AmountHolder) factory.getBean("amountHolder");
+        assertNotSame(first, second);
+        assertSame(first.getAmount(), second.getAmount());
+        assertEquals(conversionsForMatching, conversions.get());
+    }
+
+    private void registerPrototype(String beanId, Object... extraArgs) {
+        BeanDefinition bd = new GenericBeanDefinition(beanId, PetStore.class.getName());
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        ConstructorArgument args = bd.getConstructorArgument();
+        args.addArgumentValue(new ConstructorArgument.ValueHolder(new RuntimeBeanReference("accountDao")));
+        args.addArgumentValue(new ConstructorArgument.ValueHolder(new RuntimeBeanReference("itemDao")));
+        for (Object arg : extraArgs) {
+            args.addArgumentValue(new ConstructorArgument.ValueHolder(arg));
+        }
+        factory.registerBeanDefinition(beanId, bd);
+    }
+}
@@ -0,0 +1,233 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.ConstructorArgument;
+import org.imitatespring.beans.PropertyValue;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.TypedStringValue;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.imitatespring.core.convert.ConversionFailedException;
+import org.imitatespring.core.convert.ConversionService;
+import org.imitatespring.core.convert.support.DefaultConversionService;
+import org.imitatespring.service.v5.Color;
+import org.imitatespring.service.v5.PrimitiveHolder;
+import org.imitatespring.service.v5.TagHolder;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 线程安全的类型转换服务测试
+ */
+public class ConversionServiceTest {
+
+    private final DefaultConversionService conversionService = new DefaultConversionService();
+
+    @Test
+    public void testConvertPrimitivesAndWrappers() {
+        assertEquals(Integer.valueOf(3), conversionService.convert("3", int.class));
+        assertEquals(Long.valueOf(0x10), conversionService.convert("0x10", Long.class));
+        assertEquals(Short.valueOf((short) 7), conversionService.convert(" 7 ", short.class));
+        assertEquals(Byte.valueOf((byte) 1), conversionService.convert("1", Byte.class));
+        assertEquals(Double.valueOf(1.5), conversionService.convert("1.5", double.class));
+        assertEquals(Float.valueOf(2.5f), conversionService.convert("2.5", Float.class));
+        assertEquals(Boolean.TRUE, conversionService.convert("yes", boolean.class));
+        assertEquals(Character.valueOf('x'), conversionService.convert("x", char.class));
+        assertEquals(new BigDecimal("1.25"), conversionService.convert("1.25", BigDecimal.class));
+        assertEquals(new BigInteger("12345678901234567890"), conversionService.convert("12345678901234567890", BigInteger.class));
+        assertEquals(Long.valueOf(3), conversionService.convert(3, Long.class));
+        assertEquals("42", conversionService.convert(42, String.class));
+        //包装类允许空字符串, 基本类型不允许
+        assertNull(conversionService.convert("", Integer.class));
+        try {
+            conversionService.convert("", int.class);
+            fail();
+        } catch (ConversionFailedException e) {
+            assertEquals(int.class, e.getTargetType());
+        }
+        try {
+            conversionService.convert("3.1", Integer.class);
+            fail();
+        } catch (ConversionFailedException e) {
+            assertEquals("3.1", e.getValue());
+        }
+    }
+
+    @Test
+    public void testConvertEnumAndClass() {
+        assertEquals(TimeUnit.SECONDS, conversionService.convert("SECONDS", TimeUnit.class));
+        assertEquals("SECONDS", conversionService.convert(TimeUnit.SECONDS, String.class));
+        assertEquals(ArrayList.class, conversionService.convert("java.util.ArrayList", Class.class));
+        try {
+            conversionService.convert("xxxxx.xxxx", Class.class);
+            fail();
+        } catch (ConversionFailedException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testConvertArraysAndCollections() {
+        assertArrayEquals(new int[]{1, 2, 3}, conversionService.convert("1, 2,3", int[].class));
+        assertArrayEquals(new String[]{"a", "b"}, conversionService.convert("a,b", String[].class));
+        assertEquals(Arrays.asList("a", "b"), conversionService.convert("a, b", List.class));
+        assertEquals(new TreeSet<>(Arrays.asList("a", "b")), conversionService.convert("b,a", SortedSet.class));
+        assertArrayEquals(new Long[]{1L, 2L}, conversionService.convert(Arrays.asList("1", "2"), Long[].class));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("x", "y")), conversionService.convert(new String[]{"x", "y"}, Set.class));
+    }
+
+    @Test
+    public void testCanConvert() {
+        assertTrue(conversionService.canConvert(String.class, int.class));
+        assertTrue(conversionService.canConvert(String.class, TimeUnit.class));
+        assertTrue(conversionService.canConvert(ArrayList.class, List.class));
+        assertTrue(conversionService.canConvert(null, Integer.class));
+        assertFalse(conversionService.canConvert(null, int.class));
+        assertFalse(conversionService.canConvert(String.class, Thread.class));
+        assertFalse(conversionService.canConvert(Thread.class, Integer.class));
+    }
+
+    @Test
+    public void testConcurrentConversion() throws Exception {
+        DefaultConversionService shared = DefaultConversionService.getSharedInstance();
+        assertSame(shared, DefaultConversionService.getSharedInstance());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        if (shared.convert(String.valueOf(i), int.class) != i
+                                || shared.convert(i % 2 == 0 ? "true" : "false", Boolean.class) != (i % 2 == 0)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPrototypesDoNotShareConvertedCollections() {
+        //编译模式阈值为2, 覆盖反射注入和CompiledBeanAccessor两条路径
+        for (int threshold : new int[]{0, 2}) {
+            DefaultBeanFactory factory = new DefaultBeanFactory();
+            factory.setCompiledInstantiationThreshold(threshold);
+            BeanDefinition bd = new GenericBeanDefinition("holder", TagHolder.class.getName());
+            bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+            bd.getConstructorArgument().addArgumentValue(new ConstructorArgument.ValueHolder(new TypedStringValue("x,y")));
+            bd.getPropertyValue().add(new PropertyValue("tags", new TypedStringValue("a,b")));
+            factory.registerBeanDefinition("holder", bd);
+
+            for (int i = 0; i < 5; i++) {
+                TagHolder holder = (TagHolder) factory.getBean("holder");
+                assertEquals(Arrays.asList("a", "b"), holder.getTags());
+                assertArrayEquals(new String[]{"x", "y"}, holder.getNames());
+                holder.getTags().add("c");
+                holder.getNames()[0] = "z";
+            }
+        }
+    }
+
+    @Test
+    public void testChangedConversionServiceRebuildsCaches() {
+        for (int threshold : new int[]{0, 2}) {
+            DefaultBeanFactory factory = new DefaultBeanFactory();
+            factory.setCompiledInstantiationThreshold(threshold);
+            BeanDefinition holder = new GenericBeanDefinition("holder", PrimitiveHolder.class.getName());
+            holder.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+            holder.getPropertyValue().add(new PropertyValue("intValue", new TypedStringValue("3")));
+            factory.registerBeanDefinition("holder", holder);
+            BeanDefinition counter = new GenericBeanDefinition("counter", AtomicInteger.class.getName());
+            counter.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+            counter.getConstructorArgument().addArgumentValue(new ConstructorArgument.ValueHolder(new TypedStringValue("5")));
+            factory.registerBeanDefinition("counter", counter);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(3, ((PrimitiveHolder) factory.getBean("holder")).getIntValue());
+                assertEquals(5, ((AtomicInteger) factory.getBean("counter")).get());
+            }
+
+            //之后创建的bean使用新的ConversionService, 不再使用缓存中之前转换好的值
+            factory.setConversionService(new TimesTenConversionService());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(30, ((PrimitiveHolder) factory.getBean("holder")).getIntValue());
+                assertEquals(50, ((AtomicInteger) factory.getBean("counter")).get());
+            }
+        }
+    }
+
+    @Test
+    public void testSharedInstanceDoesNotRetainClassLoader() throws Exception {
+        File root = Files.createTempDirectory("conversion-loader").toFile();
+        String path = Color.class.getName().replace('.', '/') + ".class";
+        File target = new File(root, path);
+        assertTrue(target.getParentFile().mkdirs());
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(path)) {
+            Files.copy(in, target.toPath());
+        }
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null);
+        Class<?> colorType = classLoader.loadClass(Color.class.getName());
+        assertNotSame(Color.class, colorType);
+        DefaultConversionService shared = DefaultConversionService.getSharedInstance();
+        //目标类型和源类型都来自这个ClassLoader
+        Object green = shared.convert("GREEN", colorType);
+        assertSame(colorType, green.getClass());
+        assertEquals("GREEN", shared.convert(green, String.class));
+
+        WeakReference<ClassLoader> ref = new WeakReference<>(classLoader);
+        classLoader.close();
+        classLoader = null;
+        colorType = null;
+        green = null;
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get());
+    }
+
+    /**
+     * 把转换出来的int放大10倍, 用于区分转换结果来自哪个ConversionService
+     */
+    private static class TimesTenConversionService implements ConversionService {
+
+        private final DefaultConversionService delegate = new DefaultConversionService();
+
+        @Override
+        public boolean canConvert(Class<?> sourceType, Class<?> targetType) {
+            return this.delegate.canConvert(sourceType, targetType);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T convert(Object source, Class<T> targetType) {
+            T result = this.delegate.convert(source, targetType);
+            if (source instanceof String && (targetType == int.class || targetType == Integer.class)) {
+                return (T) Integer.valueOf((Integer) result * 10);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.type.AnnotationMetadata;
+import org.imitatespring.core.type.classreading.MetadataReader;
+import org.imitatespring.core.type.classreading.SimpleMetadataReader;
+import org.imitatespring.stereotype.Component;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 只读取类头和注解类型判断候选组件, 注解属性按需解析
+ */
+public class EarlyFilterMetadataReaderTest {
+
+    @Test
+    public void testNonCandidateIsReadOnce() throws Exception {
+        CountingResource resource = new CountingResource("org/imitatespring/service/v5/CounterService.class");
+        MetadataReader reader = new SimpleMetadataReader(resource);
+        assertTrue(reader.getAnnotationTypes().isEmpty());
+        assertEquals("org.imitatespring.service.v5.CounterService", reader.getClassMetadata().getClassName());
+        assertFalse(reader.getClassMetadata().isAbstract());
+        assertEquals(1, resource.reads.get());
+    }
+
+    @Test
+    public void testCandidateAttributesAreParsedLazily() throws Exception {
+        CountingResource resource = new CountingResource("org/imitatespring/service/v4/PetStore.class");
+        MetadataReader reader = new SimpleMetadataReader(resource);
+        assertTrue(reader.getAnnotationTypes().contains(Component.class.getName()));
+        assertEquals(1, resource.reads.get());
+
+        //注解属性使用读取类头时保留的class文件解析, 不会再次读取
+        AnnotationMetadata metadata = reader.getAnnotationMetadata();
+        assertEquals(1, resource.reads.get());
+        assertEquals("petStore", metadata.getAnnotationAttributes(Component.class.getName()).get("value"));
+        assertEquals(reader.getAnnotationTypes(), metadata.getAnnotationTypes());
+        assertSame(metadata, reader.getAnnotationMetadata());
+        assertEquals(1, resource.reads.get());
+    }
+
+    @Test
+    public void testReleasedContentIsReadAgain() throws Exception {
+        CountingResource resource = new CountingResource("org/imitatespring/service/v4/PetStore.class");
+        MetadataReader reader = new SimpleMetadataReader(resource);
+        reader.releaseClassContent();
+        assertEquals(1, resource.reads.get());
+
+        AnnotationMetadata metadata = reader.getAnnotationMetadata();
+        assertEquals(2, resource.reads.get());
+        assertEquals("petStore", metadata.getAnnotationAttributes(Component.class.getName()).get("value"));
+    }
+
+    private static class CountingResource implements Resource {
+
+        private final ClassPathResource delegate;
+
+        private final AtomicInteger reads = new AtomicInteger();
+
+        CountingResource(String path) {
+            this.delegate = new ClassPathResource(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            reads.incrementAndGet();
+            return delegate.getInputStream();
+        }
+
+        @Override
+        public byte[] getContentAsByteArray() throws IOException {
+            reads.incrementAndGet();
+            return delegate.getContentAsByteArray();
+        }
+
+        @Override
+        public ByteBuffer readByteBuffer() throws IOException {
+            reads.incrementAndGet();
+            return delegate.readByteBuffer();
+        }
+
+        @Override
+        public String getDescription() {
+            return delegate.getDescription();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return delegate.lastModified();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.BeanCreationException;
+import org.imitatespring.beans.factory.BeanDefinitionStoreException;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.imitatespring.context.support.ClassPathXmlApplicationContext;
+import org.imitatespring.service.v2.PetStore;
+import org.imitatespring.service.v5.SlowBean;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 冻结配置后通过编号获取bean
+ */
+public class FrozenConfigurationTest {
+
+    @Test
+    public void testFrozenLookup() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        for (int i = 0; i < 100; i++) {
+            BeanDefinition bd = new GenericBeanDefinition("bean" + i, SlowBean.class.getName());
+            if (i % 2 == 1) {
+                bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+            }
+            factory.registerBeanDefinition("bean" + i, bd);
+        }
+        Object beforeFreeze = factory.getBean("bean0");
+        factory.freezeConfiguration();
+        factory.freezeConfiguration();
+        assertTrue(factory.isConfigurationFrozen());
+
+        for (int i = 0; i < 100; i++) {
+            int index = factory.getBeanIndex("bean" + i);
+            assertEquals(i, index);
+            if (i % 2 == 0) {
+                assertSame(factory.getBean("bean" + i), factory.getBean(index));
+            } else {
+                assertNotSame(factory.getBean(index), factory.getBean(index));
+            }
+        }
+        //冻结之前创建的单例保持不变
+        assertSame(beforeFreeze, factory.getBean(0));
+
+        try {
+            factory.registerBeanDefinition("late", new GenericBeanDefinition("late", SlowBean.class.getName()));
+            fail();
+        } catch (BeanDefinitionStoreException ex) {
+            assertTrue(ex.getMessage().contains("late"));
+        }
+        assertNull(factory.getBeanDefinition("late"));
+        try {
+            factory.getBeanIndex("missing");
+            fail();
+        } catch (BeanCreationException ex) {
+        }
+        try {
+            factory.getBean(100);
+            fail();
+        } catch (BeanCreationException ex) {
+        }
+        try {
+            factory.getBean("missing");
+            fail();
+        } catch (BeanCreationException ex) {
+        }
+    }
+
+    @Test
+    public void testIndexRequiresFrozenConfiguration() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        factory.registerBeanDefinition("bean", new GenericBeanDefinition("bean", SlowBean.class.getName()));
+        try {
+            factory.getBean(0);
+            fail();
+        } catch (IllegalStateException ex) {
+        }
+    }
+
+    @Test
+    public void testConcurrentSingletonCreationAfterFreeze() throws Exception {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        factory.registerBeanDefinition("bean", new GenericBeanDefinition("bean", SlowBean.class.getName()));
+        factory.freezeConfiguration();
+        int index = factory.getBeanIndex("bean");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> factory.getBean(index)));
+            }
+            Object first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Object> future : futures) {
+                assertSame(first, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testContextDependencyInjectionAfterFreeze() {
+        ClassPathXmlApplicationContext ctx = new ClassPathXmlApplicationContext("petstore-v2.xml");
+        ctx.freezeConfiguration();
+        PetStore petStore = (PetStore) ctx.getBean(ctx.getBeanIndex("petStore"));
+        assertNotNull(petStore.getAccountDao());
+        assertSame(petStore.getAccountDao(), ctx.getBean("accountDao"));
+        assertSame(petStore, ctx.getBean("petStore"));
+    }
+}
@@ -0,0 +1,49 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.annotation.AutowiredAnnotationProcessor;
+import org.imitatespring.beans.factory.annotation.InjectionMetadata;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.service.v4.PetStore;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 同一个类的InjectionMetadata只解析一次
+ */
+public class InjectionMetadataCacheTest {
+
+    @Test
+    public void testMetadataCached() {
+        AutowiredAnnotationProcessor processor = new AutowiredAnnotationProcessor();
+        InjectionMetadata metadata1 = processor.findAutowiringMetadata(PetStore.class);
+        InjectionMetadata metadata2 = processor.findAutowiringMetadata(PetStore.class);
+        assertSame(metadata1, metadata2);
+        assertEquals(2, metadata1.getInjectionElements().size());
+        assertEquals(1, processor.getMetadataCacheMissCount());
+        assertEquals(1, processor.getMetadataCacheHitCount());
+    }
+
+    @Test
+    public void testCachedMetadataDoesNotRetainFactory() throws InterruptedException {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        new XmlBeanDefinitionReader(factory).loadBeanDefinitions(new ClassPathResource("petstore-v4.xml"));
+        AutowiredAnnotationProcessor processor = new AutowiredAnnotationProcessor();
+        processor.setBeanFactory(factory);
+        factory.addBeanPostProcessor(processor);
+        assertNotNull(((PetStore) factory.getBean("petStore")).getAccountDao());
+        //InjectionMetadata保存在PetStore.class中, PetStore.class一直被加载着
+        WeakReference<DefaultBeanFactory> ref = new WeakReference<>(factory);
+        factory = null;
+        processor = null;
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get());
+    }
+}
@@ -0,0 +1,89 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.io.UrlResource;
+import org.imitatespring.core.io.support.PackageResourceLoader;
+import org.imitatespring.core.type.classreading.SimpleMetadataReader;
+import org.imitatespring.stereotype.Component;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 从jar包以及多个classpath根目录中读取包下的class文件
+ */
+public class JarPackageResourceLoaderTest {
+
+    private static final String[] DAO_CLASSES = {
+            "org/imitatespring/dao/v4/AccountDao.class",
+            "org/imitatespring/dao/v4/ItemDao.class"
+    };
+
+    @Test
+    public void testGetResourcesFromJarAndDirectory() throws Exception {
+        Path tempDir = Files.createTempDirectory("package-loader");
+        File jar = createJar(tempDir.resolve("dao.jar").toFile());
+        Path dir = Files.createDirectories(tempDir.resolve("classes/org/imitatespring/dao/v4"));
+        copyClass(DAO_CLASSES[0], dir.resolve("AccountDao.class"));
+        Files.write(dir.resolve("readme.txt"), "not a class".getBytes("UTF-8"));
+
+        URL[] urls = {jar.toURI().toURL(), tempDir.resolve("classes").toUri().toURL()};
+        try (URLClassLoader classLoader = new URLClassLoader(urls, null)) {
+            PackageResourceLoader loader = new PackageResourceLoader(classLoader);
+            Resource[] resources = loader.getResources("org.imitatespring.dao.v4");
+            assertEquals(3, resources.length);
+            assertTrue(resources[0] instanceof UrlResource);
+            assertTrue(resources[0].getDescription().endsWith("!/org/imitatespring/dao/v4/AccountDao.class]"));
+            assertTrue(resources[1].getDescription().endsWith("!/org/imitatespring/dao/v4/ItemDao.class]"));
+            for (Resource resource : resources) {
+                assertTrue(new SimpleMetadataReader(resource).getAnnotationMetadata().hasAnnotation(Component.class.getName()));
+            }
+        }
+    }
+
+    private File createJar(File file) throws Exception {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+            //和maven打包的jar一样包含目录条目, ClassLoader才能找到包所在的位置
+            for (String dir : new String[]{"org/", "org/imitatespring/", "org/imitatespring/dao/", "org/imitatespring/dao/v4/"}) {
+                out.putNextEntry(new JarEntry(dir));
+                out.closeEntry();
+            }
+            for (String name : DAO_CLASSES) {
+                out.putNextEntry(new JarEntry(name));
+                try (InputStream is = getClass().getClassLoader().getResourceAsStream(name)) {
+                    copy(is, out);
+                }
+                out.closeEntry();
+            }
+            out.putNextEntry(new JarEntry("org/imitatespring/dao/v4/readme.txt"));
+            out.closeEntry();
+        }
+        return file;
+    }
+
+    private void copyClass(String name, Path target) throws Exception {
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(name);
+             OutputStream out = Files.newOutputStream(target)) {
+            copy(is, out);
+        }
+    }
+
+    private void copy(InputStream is, OutputStream out) throws Exception {
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = is.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.context.annotation.ClassPathBeanDefinitionScanner;
+import org.imitatespring.core.annotation.AnnotationUtils;
+import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.io.support.PackageResourceLoader;
+import org.imitatespring.core.type.classreading.CachingMetadataReaderFactory;
+import org.imitatespring.core.type.classreading.MetaAnnotationResolver;
+import org.imitatespring.service.v5.stereotype.BusinessService;
+import org.imitatespring.service.v5.stereotype.InventoryRepository;
+import org.imitatespring.service.v5.stereotype.OrderService;
+import org.imitatespring.service.v5.stereotype.PlainHelper;
+import org.imitatespring.stereotype.Component;
+import org.imitatespring.stereotype.Repository;
+import org.imitatespring.stereotype.Service;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 任意层级的元注解(stereotype)识别
+ */
+public class MetaAnnotationTest {
+
+    @Test
+    public void testScanComposedStereotypes() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(factory);
+        scanner.setComponentsIndex(null);
+        Map<String, String> beans = new TreeMap<>();
+        for (BeanDefinition bd : scanner.doScan("org.imitatespring.service.v5.stereotype")) {
+            beans.put(bd.getId(), bd.getBeanClassName());
+        }
+        Map<String, String> expected = new TreeMap<>();
+        expected.put("inventoryRepository", InventoryRepository.class.getName());
+        expected.put("orderService", OrderService.class.getName());
+        assertEquals(expected, beans);
+        assertTrue(factory.getBean("orderService") instanceof OrderService);
+    }
+
+    @Test
+    public void testResolveMetaAnnotationsWithoutLoadingClasses() {
+        MetaAnnotationResolver resolver = new MetaAnnotationResolver(new CachingMetadataReaderFactory(), null);
+        Set<String> metaAnnotationTypes = resolver.getMetaAnnotationTypes(BusinessService.class.getName());
+        assertEquals(new LinkedHashSet<>(Arrays.asList(Service.class.getName(), Component.class.getName())),
+                metaAnnotationTypes);
+        assertSame(metaAnnotationTypes, resolver.getMetaAnnotationTypes(BusinessService.class.getName()));
+
+        Set<String> declared = Collections.singleton(BusinessService.class.getName());
+        assertEquals(BusinessService.class.getName(), resolver.findAnnotationType(declared, Component.class.getName()));
+        assertFalse(resolver.isAnnotated(declared, Repository.class.getName()));
+        assertFalse(resolver.isAnnotated(Collections.singleton(Deprecated.class.getName()), Component.class.getName()));
+        assertTrue(resolver.getMetaAnnotationTypes("org.imitatespring.NotOnClassPath").isEmpty());
+    }
+
+    @Test
+    public void testReflectiveLookup() {
+        Component component = AnnotationUtils.getAnnotation(OrderService.class, Component.class);
+        assertNotNull(component);
+        assertEquals("", component.value());
+        assertNotNull(AnnotationUtils.getAnnotation(OrderService.class, Service.class));
+        assertEquals("orderService", AnnotationUtils.getAnnotation(OrderService.class, BusinessService.class).value());
+        assertTrue(AnnotationUtils.isAnnotated(InventoryRepository.class, Component.class));
+        assertFalse(AnnotationUtils.isAnnotated(InventoryRepository.class, Service.class));
+        assertFalse(AnnotationUtils.isAnnotated(PlainHelper.class, Component.class));
+    }
+
+    @Test
+    public void testResolverSharesCacheEntriesWithScanner() throws Exception {
+        CachingMetadataReaderFactory readerFactory = new CachingMetadataReaderFactory();
+        for (Resource resource : new PackageResourceLoader().getResources("org.imitatespring.service.v5.stereotype")) {
+            readerFactory.getMetadataReader(resource);
+        }
+        int cacheSize = readerFactory.getCacheSize();
+        assertEquals(0, readerFactory.getHitCount());
+
+        //@BusinessService已经被扫描读取过, 作为元注解读取时直接命中缓存, 不会产生第二份
+        MetaAnnotationResolver resolver = new MetaAnnotationResolver(readerFactory, null);
+        resolver.getMetaAnnotationTypes(BusinessService.class.getName());
+        assertEquals(1, readerFactory.getHitCount());
+        //只新增了@Service和@Component
+        assertEquals(cacheSize + 2, readerFactory.getCacheSize());
+    }
+
+    @Test
+    public void testSharedResolverPerClassLoader() throws Exception {
+        CachingMetadataReaderFactory readerFactory = CachingMetadataReaderFactory.getSharedInstance();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[0], getClass().getClassLoader())) {
+            MetaAnnotationResolver shared = MetaAnnotationResolver.getSharedInstance(classLoader);
+            assertSame(shared, MetaAnnotationResolver.getSharedInstance(classLoader));
+            assertNotSame(shared, MetaAnnotationResolver.getSharedInstance(getClass().getClassLoader()));
+
+            readerFactory.clearCache();
+            assertEquals(2, scanStereotypes(classLoader));
+            long hitCount = readerFactory.getHitCount();
+            long missCount = readerFactory.getMissCount();
+            //第二次component-scan共用同一个resolver, 只读取扫描到的4个class, 元注解闭包不再重新解析
+            assertEquals(2, scanStereotypes(classLoader));
+            assertEquals(hitCount + 4, readerFactory.getHitCount());
+            assertEquals(missCount, readerFactory.getMissCount());
+        }
+    }
+
+    private int scanStereotypes(ClassLoader classLoader) {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        factory.setBeanClassLoader(classLoader);
+        ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(factory);
+        scanner.setComponentsIndex(null);
+        return scanner.doScan("org.imitatespring.service.v5.stereotype").size();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCachedMetaAnnotationsDoNotRetainClassLoader() throws Exception {
+        File root = Files.createTempDirectory("meta-annotation-loader").toFile();
+        for (Class<?> type : new Class<?>[]{OrderService.class, BusinessService.class, Service.class, Component.class}) {
+            String path = type.getName().replace('.', '/') + ".class";
+            File target = new File(root, path);
+            assertTrue(target.getParentFile().isDirectory() || target.getParentFile().mkdirs());
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream(path)) {
+                Files.copy(in, target.toPath());
+            }
+        }
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null);
+        Class<?> orderService = classLoader.loadClass(OrderService.class.getName());
+        Class<? extends Annotation> component = (Class<? extends Annotation>) classLoader.loadClass(Component.class.getName());
+        assertNotSame(Component.class, component);
+        assertNotNull(AnnotationUtils.getAnnotation(orderService, component));
+
+        //元注解已经缓存, ClassLoader也应该可以被回收
+        WeakReference<ClassLoader> ref = new WeakReference<>(classLoader);
+        classLoader.close();
+        classLoader = null;
+        orderService = null;
+        component = null;
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get());
+    }
+}
@@ -0,0 +1,79 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.context.support.ClassPathXmlApplicationContext;
+import org.imitatespring.context.support.ConfigurationLoadReport;
+import org.imitatespring.context.support.FileSystemXmlApplicationContext;
+import org.imitatespring.service.v4.PetStore;
+import org.imitatespring.service.v5.SlowBean;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 并行加载多个配置文件的测试
+ */
+public class MultiConfigurationTest {
+
+    @Test
+    public void testLoadMultipleLocations() {
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("petstore-v4.xml", "petstore-v5.xml");
+        ConfigurationLoadReport report = context.getConfigurationLoadReport();
+        assertFalse(report.hasConflicts());
+        assertEquals(8, report.getBeanDefinitionCount());
+        PetStore petStore = (PetStore) context.getBean("petStore");
+        assertSame(context.getBean("accountDao"), petStore.getAccountDao());
+        assertTrue(context.getBean("first") instanceof SlowBean);
+    }
+
+    @Test
+    public void testLaterLocationOverrides() {
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("petstore-v2.xml", "petstore-v3.xml");
+        List<ConfigurationLoadReport.Conflict> conflicts = context.getConfigurationLoadReport().getConflicts();
+        assertEquals(3, conflicts.size());
+        ConfigurationLoadReport.Conflict conflict = conflicts.get(0);
+        assertEquals("petStore", conflict.getBeanName());
+        assertEquals("petstore-v2.xml", conflict.getOverriddenResource());
+        assertEquals("org.imitatespring.service.v2.PetStore", conflict.getOverriddenClassName());
+        assertEquals("petstore-v3.xml", conflict.getOverridingResource());
+        assertEquals("org.imitatespring.service.v3.PetStore", conflict.getOverridingClassName());
+        assertTrue(context.getBean("petStore") instanceof org.imitatespring.service.v3.PetStore);
+    }
+
+    @Test
+    public void testClassPathWildcard() {
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("petstore-v?.xml", "petstore-v*.xml");
+        List<String> resources = context.getConfigurationLoadReport().getResourceDescriptions();
+        //重复匹配到的文件只加载一次
+        assertEquals(5, resources.size());
+        for (int i = 0; i < resources.size(); i++) {
+            assertTrue(resources.get(i).endsWith("petstore-v" + (i + 1) + ".xml]"));
+        }
+    }
+
+    @Test
+    public void testSameComponentScannedTwiceIsNoConflict() throws Exception {
+        Path dir = Files.createTempDirectory("multi-config");
+        String scan = "<beans xmlns=\"http://www.springframework.org/schema/beans\"\n"
+                + "       xmlns:context=\"http://www.springframework.org/schema/context\">\n"
+                + "    <context:component-scan base-package=\"org.imitatespring.dao.v4\"/>\n"
+                + "</beans>\n";
+        for (String name : new String[]{"beans-a.xml", "beans-b.xml", "other.xml"}) {
+            File file = dir.resolve(name).toFile();
+            file.deleteOnExit();
+            Files.write(file.toPath(), scan.getBytes("UTF-8"));
+        }
+        dir.toFile().deleteOnExit();
+        String pattern = dir.toString().replace(File.separatorChar, '/') + "/beans-*.xml";
+        FileSystemXmlApplicationContext context = new FileSystemXmlApplicationContext(pattern);
+        ConfigurationLoadReport report = context.getConfigurationLoadReport();
+        assertEquals(2, report.getResourceDescriptions().size());
+        assertFalse(report.hasConflicts());
+        assertEquals(2, report.getBeanDefinitionCount());
+        assertNotNull(context.getBean("itemDao"));
+    }
+}
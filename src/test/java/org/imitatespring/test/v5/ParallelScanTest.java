@@ -0,0 +1,106 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.context.annotation.ClassPathBeanDefinitionScanner;
+import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.type.AnnotationMetadata;
+import org.imitatespring.core.type.ClassMetadata;
+import org.imitatespring.core.type.classreading.MetadataReader;
+import org.imitatespring.core.type.classreading.SimpleMetadataReaderFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * 并行读取class元数据的扫描测试
+ */
+public class ParallelScanTest {
+
+    private static final String BASE_PACKAGES = "org.imitatespring.service.v4,org.imitatespring.dao.v4,org.imitatespring.dao";
+
+    @Test
+    public void testParallelScanKeepsSequentialOrder() {
+        List<String> sequential = scan(1);
+        assertTrue(sequential.contains("petStore"));
+        assertTrue(sequential.contains("accountDao"));
+        assertTrue(sequential.contains("itemDao"));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(sequential, scan(4));
+        }
+    }
+
+    @Test
+    public void testCandidateMetadataIsParsedInWorkerThreads() {
+        RecordingMetadataReaderFactory readerFactory = new RecordingMetadataReaderFactory();
+        List<String> beanNames = scan(4, readerFactory);
+        assertEquals(scan(1), beanNames);
+        assertEquals(beanNames.size(), readerFactory.annotationMetadataThreads.size());
+        //等待结果时扫描线程也可能执行任务, 但注解属性不再全部在扫描线程中解析
+        boolean parsedInWorker = false;
+        for (Thread thread : readerFactory.annotationMetadataThreads) {
+            parsedInWorker |= (thread != Thread.currentThread());
+        }
+        assertTrue(parsedInWorker);
+    }
+
+    private List<String> scan(int parallelism) {
+        return scan(parallelism, null);
+    }
+
+    private List<String> scan(int parallelism, SimpleMetadataReaderFactory readerFactory) {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(factory);
+        scanner.setComponentsIndex(null);
+        scanner.setScanParallelism(parallelism);
+        if (readerFactory != null) {
+            scanner.setMetadataReaderFactory(readerFactory);
+        }
+        List<String> beanNames = new ArrayList<>();
+        for (BeanDefinition bd : scanner.doScan(BASE_PACKAGES)) {
+            beanNames.add(bd.getId());
+        }
+        return beanNames;
+    }
+
+    /**
+     * 记录解析完整注解元数据时所在的线程
+     */
+    private static class RecordingMetadataReaderFactory extends SimpleMetadataReaderFactory {
+
+        private final List<Thread> annotationMetadataThreads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public MetadataReader getMetadataReader(Resource resource) throws IOException {
+            MetadataReader delegate = super.getMetadataReader(resource);
+            return new MetadataReader() {
+                @Override
+                public Resource getResource() {
+                    return delegate.getResource();
+                }
+
+                @Override
+                public ClassMetadata getClassMetadata() {
+                    return delegate.getClassMetadata();
+                }
+
+                @Override
+                public Set<String> getAnnotationTypes() {
+                    return delegate.getAnnotationTypes();
+                }
+
+                @Override
+                public AnnotationMetadata getAnnotationMetadata() {
+                    annotationMetadataThreads.add(Thread.currentThread());
+                    return delegate.getAnnotationMetadata();
+                }
+            };
+        }
+    }
+}
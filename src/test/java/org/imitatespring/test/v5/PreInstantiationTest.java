@@ -0,0 +1,52 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.context.support.ClassPathXmlApplicationContext;
+import org.imitatespring.context.support.PreInstantiationReport;
+import org.imitatespring.service.v4.PetStore;
+import org.imitatespring.service.v5.SlowBean;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 容器启动时并行提前创建单例
+ */
+public class PreInstantiationTest {
+
+    @Test
+    public void testPreInstantiateSingletons() {
+        SlowBean.instances.set(0);
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("petstore-v5.xml", 4);
+        //first second third 以及third依赖的prototype
+        assertEquals(4, SlowBean.instances.get());
+
+        PreInstantiationReport report = context.getPreInstantiationReport();
+        assertEquals(4, report.getParallelism());
+        Set<String> beanNames = new HashSet<>();
+        for (PreInstantiationReport.BeanTiming timing : report.getBeanTimings()) {
+            beanNames.add(timing.getBeanName());
+        }
+        assertEquals(3, beanNames.size());
+        assertTrue(beanNames.contains("first"));
+        assertTrue(beanNames.contains("second"));
+        assertTrue(beanNames.contains("third"));
+
+        SlowBean first = (SlowBean) context.getBean("first");
+        assertSame(context.getBean("second"), first.getOther());
+        assertEquals(4, SlowBean.instances.get());
+        context.getBean("lazy");
+        assertEquals(5, SlowBean.instances.get());
+    }
+
+    @Test
+    public void testPreInstantiateAutowiredSingletons() {
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("petstore-v4.xml", 2);
+        assertEquals(3, context.getPreInstantiationReport().getBeanTimings().size());
+        PetStore petStore = (PetStore) context.getBean("petStore");
+        assertSame(context.getBean("accountDao"), petStore.getAccountDao());
+        assertSame(context.getBean("itemDao"), petStore.getItemDao());
+    }
+}
@@ -0,0 +1,132 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.PropertyValue;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.TypedStringValue;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.imitatespring.service.v5.PrimitiveHolder;
+import org.imitatespring.util.NumberUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 直接从字符序列解析基本类型, 以及基本类型属性的注入
+ */
+public class PrimitiveParsingTest {
+
+    @Test
+    public void testParseIntegral() {
+        assertEquals(42, NumberUtils.parseInt("42"));
+        assertEquals(-42, NumberUtils.parseInt(" - 4 2 "));
+        assertEquals(7, NumberUtils.parseInt("+7"));
+        assertEquals(10, NumberUtils.parseInt("010"));
+        assertEquals(16, NumberUtils.parseInt("0x10"));
+        assertEquals(255, NumberUtils.parseInt("#fF"));
+        assertEquals(-16, NumberUtils.parseInt("-0X10"));
+        assertEquals(Integer.MAX_VALUE, NumberUtils.parseInt(String.valueOf(Integer.MAX_VALUE)));
+        assertEquals(Integer.MIN_VALUE, NumberUtils.parseInt(String.valueOf(Integer.MIN_VALUE)));
+        assertEquals(Long.MIN_VALUE, NumberUtils.parseLong(String.valueOf(Long.MIN_VALUE)));
+        assertEquals(Long.MAX_VALUE, NumberUtils.parseLong(new StringBuilder(String.valueOf(Long.MAX_VALUE))));
+        assertEquals(Short.MIN_VALUE, NumberUtils.parseShort("-32768"));
+        assertEquals((byte) -128, NumberUtils.parseByte("-0x80"));
+
+        assertInvalidInt("");
+        assertInvalidInt(" ");
+        assertInvalidInt("-");
+        assertInvalidInt("0x");
+        assertInvalidInt("1a");
+        assertInvalidInt("1.0");
+        assertInvalidInt("2147483648");
+        assertInvalidInt("-2147483649");
+        assertInvalidInt("0xFFFFFFFF");
+        try {
+            NumberUtils.parseByte("128");
+            fail();
+        } catch (NumberFormatException ex) {
+        }
+        try {
+            NumberUtils.parseLong("9223372036854775808");
+            fail();
+        } catch (NumberFormatException ex) {
+        }
+    }
+
+    @Test
+    public void testParseDecimalMatchesJdk() {
+        String[] samples = {"0", "-0", "0.0", "1", "1.5", "-2.25", ".5", "5.", "123456789012345",
+                "1234567890123456789", "0.1", "0.3", "1e10", "1E-5", "-1.5e+3", "3.14159265358979",
+                "1e22", "1e23", "1e-22", "1e-23", "4.9e-324", "1.7976931348623157e308", "NaN", "-Infinity",
+                "1.5d", "2f", "0x1.0p3", "000123.4500", "9007199254740993"};
+        for (String sample : samples) {
+            assertEquals(sample, Double.parseDouble(sample), NumberUtils.parseDouble(sample), 0d);
+            assertEquals(sample, Float.parseFloat(sample), NumberUtils.parseFloat(sample), 0f);
+            assertEquals(sample, Double.doubleToRawLongBits(Double.parseDouble(sample)),
+                    Double.doubleToRawLongBits(NumberUtils.parseDouble(sample)));
+        }
+        assertEquals(-1.25, NumberUtils.parseDouble(" -1 .2 5 "), 0d);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            String text = random.nextInt(1000000) + "." + random.nextInt(1000000)
+                    + (random.nextBoolean() ? "e" + (random.nextInt(40) - 20) : "");
+            assertEquals(text, Double.parseDouble(text), NumberUtils.parseDouble(text), 0d);
+            assertEquals(text, Float.parseFloat(text), NumberUtils.parseFloat(text), 0f);
+        }
+
+        for (String invalid : new String[]{"", ".", "-", "1e", "1e+", "1..2", "--1", "1-"}) {
+            try {
+                NumberUtils.parseDouble(invalid);
+                fail(invalid);
+            } catch (NumberFormatException ex) {
+            }
+        }
+    }
+
+    @Test
+    public void testParseNumberUsesPrimitiveParsers() {
+        assertEquals(Integer.valueOf(-12), NumberUtils.parseNumber(" -12 ", Integer.class));
+        assertEquals(Long.valueOf(0x1F), NumberUtils.parseNumber("#1F", Long.class));
+        assertEquals(Double.valueOf(2.5), NumberUtils.parseNumber("2.5", Double.class));
+        assertEquals(Float.valueOf(0.1f), NumberUtils.parseNumber("0.1", Float.class));
+    }
+
+    @Test
+    public void testPrimitivePropertyInjection() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        BeanDefinition bd = new GenericBeanDefinition("holder", PrimitiveHolder.class.getName());
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        bd.getPropertyValue().add(new PropertyValue("intValue", new TypedStringValue("0x20")));
+        bd.getPropertyValue().add(new PropertyValue("longValue", new TypedStringValue("-9000000000")));
+        bd.getPropertyValue().add(new PropertyValue("doubleValue", new TypedStringValue("0.1")));
+        bd.getPropertyValue().add(new PropertyValue("floatValue", new TypedStringValue("1.25")));
+        bd.getPropertyValue().add(new PropertyValue("booleanValue", new TypedStringValue("true")));
+        bd.getPropertyValue().add(new PropertyValue("shortValue", new TypedStringValue("-5")));
+        bd.getPropertyValue().add(new PropertyValue("byteValue", new TypedStringValue("127")));
+        bd.getPropertyValue().add(new PropertyValue("charValue", new TypedStringValue("z")));
+        factory.registerBeanDefinition("holder", bd);
+
+        for (int i = 0; i < 3; i++) {
+            PrimitiveHolder holder = (PrimitiveHolder) factory.getBean("holder");
+            assertEquals(32, holder.getIntValue());
+            assertEquals(-9000000000L, holder.getLongValue());
+            assertEquals(0.1, holder.getDoubleValue(), 0d);
+            assertEquals(1.25f, holder.getFloatValue(), 0f);
+            assertTrue(holder.isBooleanValue());
+            assertEquals(-5, holder.getShortValue());
+            assertEquals(127, holder.getByteValue());
+            assertEquals('z', holder.getCharValue());
+        }
+    }
+
+    private static void assertInvalidInt(String text) {
+        try {
+            NumberUtils.parseInt(text);
+            fail(text);
+        } catch (NumberFormatException ex) {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.PropertyValue;
+import org.imitatespring.beans.factory.BeanCreationException;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.RuntimeBeanReference;
+import org.imitatespring.beans.factory.config.TypedStringValue;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.imitatespring.core.convert.support.DefaultConversionService;
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.service.v2.PetStore;
+import org.imitatespring.service.v5.PriceList;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * prototype bean多次创建时复用setter注入计划
+ */
+public class PropertyInjectionPlanTest {
+
+    @Test
+    public void testPrototypeSetterInjection() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(factory);
+        reader.loadBeanDefinitions(new ClassPathResource("petstore-v2.xml"));
+
+        BeanDefinition bd = new GenericBeanDefinition("petStorePrototype", PetStore.class.getName());
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        bd.getPropertyValue().add(new PropertyValue("accountDao", new RuntimeBeanReference("accountDao")));
+        bd.getPropertyValue().add(new PropertyValue("author", new TypedStringValue("liaocx")));
+        bd.getPropertyValue().add(new PropertyValue("age", new TypedStringValue("24")));
+        factory.registerBeanDefinition("petStorePrototype", bd);
+
+        PetStore petStore1 = (PetStore) factory.getBean("petStorePrototype");
+        PetStore petStore2 = (PetStore) factory.getBean("petStorePrototype");
+        assertNotSame(petStore1, petStore2);
+        for (PetStore petStore : new PetStore[]{petStore1, petStore2}) {
+            assertEquals("liaocx", petStore.getAuthor());
+            assertEquals(24, petStore.getAge());
+            assertNull(petStore.getItemDao());
+        }
+        assertNotNull(petStore1.getAccountDao());
+        assertSame(petStore1.getAccountDao(), petStore2.getAccountDao());
+    }
+
+    @Test
+    public void testPlanIsReusedAcrossCreations() {
+        CountingConversionService conversionService = new CountingConversionService();
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        factory.setConversionService(conversionService);
+        BeanDefinition bd = new GenericBeanDefinition("priceList", PriceList.class.getName());
+        bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        bd.getPropertyValue().add(new PropertyValue("price", new TypedStringValue("9.99")));
+        bd.getPropertyValue().add(new PropertyValue("tags", new TypedStringValue("a,b")));
+        factory.registerBeanDefinition("priceList", bd);
+
+        PriceList first = (PriceList) factory.getBean("priceList");
+        for (int i = 0; i < 3; i++) {
+            PriceList next = (PriceList) factory.getBean("priceList");
+            //不可变的转换结果在计划中只转换一次, 所有实例共用
+            assertSame(first.getPrice(), next.getPrice());
+            //集合每次重新转换, 实例之间互不影响
+            assertEquals(Arrays.asList("a", "b"), next.getTags());
+            assertNotSame(first.getTags(), next.getTags());
+        }
+        assertEquals(new BigDecimal("9.99"), first.getPrice());
+        assertEquals(1, conversionService.bigDecimalConversions.get());
+        //生成计划时转换一次用于判断结果是否可变, 之后4次创建各转换一次
+        assertEquals(5, conversionService.listConversions.get());
+    }
+
+    @Test
+    public void testPropertyWithoutSetterFails() {
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        BeanDefinition bd = new GenericBeanDefinition("priceList", PriceList.class.getName());
+        bd.getPropertyValue().add(new PropertyValue("size", new TypedStringValue("3")));
+        factory.registerBeanDefinition("priceList", bd);
+        try {
+            factory.getBean("priceList");
+            fail();
+        } catch (BeanCreationException e) {
+            assertTrue(e.getMessage().contains("priceList"));
+            assertTrue(e.getCause().getMessage().contains("'size'"));
+        }
+
+        //写错的property名称同样不能被忽略
+        bd = new GenericBeanDefinition("petStore", PetStore.class.getName());
+        bd.getPropertyValue().add(new PropertyValue("acountDao", new RuntimeBeanReference("accountDao")));
+        factory.registerBeanDefinition("petStore", bd);
+        try {
+            factory.getBean("petStore");
+            fail();
+        } catch (BeanCreationException e) {
+            assertTrue(e.getCause().getMessage().contains("'acountDao'"));
+        }
+    }
+
+    /**
+     * 统计String转换成BigDecimal和List的次数
+     */
+    private static class CountingConversionService extends DefaultConversionService {
+
+        private final AtomicInteger bigDecimalConversions = new AtomicInteger();
+
+        private final AtomicInteger listConversions = new AtomicInteger();
+
+        @Override
+        public <T> T convert(Object source, Class<T> targetType) {
+            if (source instanceof String) {
+                if (targetType == BigDecimal.class) {
+                    bigDecimalConversions.incrementAndGet();
+                } else if (targetType == List.class) {
+                    listConversions.incrementAndGet();
+                }
+            }
+            return super.convert(source, targetType);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.core.io.ClassPathResource;
+import org.imitatespring.core.io.FileSystemResource;
+import org.imitatespring.core.io.Resource;
+import org.imitatespring.core.io.UrlResource;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 通过byte[]/ByteBuffer一次读取资源内容
+ */
+public class ResourceContentTest {
+
+    @Test
+    public void testFileSystemResource() throws Exception {
+        Path dir = Files.createTempDirectory("resource-content");
+        byte[] small = randomBytes(1000);
+        byte[] large = randomBytes(1024 * 1024);
+        Resource smallResource = new FileSystemResource(Files.write(dir.resolve("small.bin"), small).toFile());
+        Resource largeResource = new FileSystemResource(Files.write(dir.resolve("large.bin"), large).toFile());
+
+        assertArrayEquals(small, smallResource.getContentAsByteArray());
+        assertArrayEquals(large, largeResource.getContentAsByteArray());
+
+        ByteBuffer smallBuffer = smallResource.readByteBuffer();
+        assertFalse(smallBuffer.isDirect());
+        assertArrayEquals(small, toArray(smallBuffer));
+        //大文件使用内存映射
+        ByteBuffer largeBuffer = largeResource.readByteBuffer();
+        assertTrue(largeBuffer.isDirect());
+        assertArrayEquals(large, toArray(largeBuffer));
+
+        Resource empty = new FileSystemResource(Files.write(dir.resolve("empty.bin"), new byte[0]).toFile());
+        assertEquals(0, empty.getContentAsByteArray().length);
+        assertEquals(0, empty.readByteBuffer().remaining());
+    }
+
+    @Test
+    public void testClassPathAndJarResource() throws Exception {
+        String name = "org/imitatespring/dao/v4/AccountDao.class";
+        byte[] expected = toArray(getClass().getClassLoader().getResourceAsStream(name));
+        Resource classPathResource = new ClassPathResource(name);
+        assertArrayEquals(expected, classPathResource.getContentAsByteArray());
+        assertArrayEquals(expected, toArray(classPathResource.readByteBuffer()));
+
+        File jar = Files.createTempDirectory("resource-content").resolve("dao.jar").toFile();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new JarEntry(name));
+            out.write(expected);
+            out.closeEntry();
+        }
+        Resource jarResource = new UrlResource(new URL("jar:" + jar.toURI() + "!/" + name));
+        assertArrayEquals(expected, jarResource.getContentAsByteArray());
+        assertArrayEquals(expected, toArray(jarResource.readByteBuffer()));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] toArray(InputStream is) throws Exception {
+        try (InputStream in = is) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
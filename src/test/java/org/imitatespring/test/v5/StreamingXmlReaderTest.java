@@ -0,0 +1,70 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.ConstructorArgument;
+import org.imitatespring.beans.PropertyValue;
+import org.imitatespring.beans.factory.BeanDefinitionStoreException;
+import org.imitatespring.beans.factory.config.BeanDefinition;
+import org.imitatespring.beans.factory.config.RuntimeBeanReference;
+import org.imitatespring.beans.factory.config.TypedStringValue;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.xml.XmlBeanDefinitionReader;
+import org.imitatespring.context.annotation.ScannedGenericBeanDefinition;
+import org.imitatespring.core.io.FileSystemResource;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * 流式解析xml配置文件的测试
+ */
+public class StreamingXmlReaderTest {
+
+    private static final int BEAN_COUNT = 20000;
+
+    @Test
+    public void testLoadLargeConfig() throws Exception {
+        Path config = Files.createTempFile("beans-large", ".xml");
+        try (Writer writer = Files.newBufferedWriter(config)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<beans xmlns=\"http://www.springframework.org/schema/beans\"\n"
+                    + "       xmlns:context=\"http://www.springframework.org/schema/context\">\n");
+            writer.write("    <context:component-scan base-package=\"org.imitatespring.dao.v4\"/>\n");
+            for (int i = 0; i < BEAN_COUNT; i++) {
+                writer.write("    <bean id=\"bean" + i + "\" class=\"org.imitatespring.service.v5.SlowBean\" scope=\"prototype\">\n");
+                writer.write("        <constructor-arg type=\"int\" value=\"" + i + "\"/>\n");
+                writer.write("        <property name=\"other\" ref=\"bean" + (i + 1) + "\"/>\n");
+                writer.write("    </bean>\n");
+            }
+            writer.write("</beans>\n");
+        }
+        DefaultBeanFactory factory = new DefaultBeanFactory();
+        new XmlBeanDefinitionReader(factory).loadBeanDefinitions(new FileSystemResource(config.toFile()));
+
+        assertEquals(BEAN_COUNT + 2, factory.getBeanDefinitionNames().length);
+        assertTrue(factory.getBeanDefinition("itemDao") instanceof ScannedGenericBeanDefinition);
+
+        BeanDefinition bd = factory.getBeanDefinition("bean42");
+        assertEquals("org.imitatespring.service.v5.SlowBean", bd.getBeanClassName());
+        assertTrue(bd.isPrototype());
+        ConstructorArgument.ValueHolder arg = bd.getConstructorArgument().getArgumentValues().get(0);
+        assertEquals("int", arg.getType());
+        assertEquals("42", ((TypedStringValue) arg.getValue()).getValue());
+        PropertyValue pv = bd.getPropertyValue().get(0);
+        assertEquals("other", pv.getName());
+        assertEquals("bean43", ((RuntimeBeanReference) pv.getValue()).getBeanName());
+        Files.delete(config);
+    }
+
+    @Test(expected = BeanDefinitionStoreException.class)
+    public void testMalformedConfig() throws Exception {
+        File config = Files.createTempFile("beans-malformed", ".xml").toFile();
+        config.deleteOnExit();
+        Files.write(config.toPath(), "<beans><bean id=\"a\" class=\"java.lang.Object\"></beans>".getBytes("UTF-8"));
+        new XmlBeanDefinitionReader(new DefaultBeanFactory()).loadBeanDefinitions(new FileSystemResource(config));
+    }
+}
@@ -0,0 +1,64 @@
+package org.imitatespring.test.v5;
+
+import org.imitatespring.beans.factory.config.DependencyDescriptor;
+import org.imitatespring.beans.factory.support.DefaultBeanFactory;
+import org.imitatespring.beans.factory.support.GenericBeanDefinition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按类型查找候选bean的索引测试
+ */
+public class TypeIndexTest {
+
+    private Collection<?> collection;
+
+    private Map<?, ?> map;
+
+    private DefaultBeanFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new DefaultBeanFactory();
+        factory.registerBeanDefinition("arrayList", new GenericBeanDefinition("arrayList", "java.util.ArrayList"));
+        factory.registerBeanDefinition("invalidBean", new GenericBeanDefinition("invalidBean", "xxxxx.xxxx"));
+        factory.registerBeanDefinition("linkedList", new GenericBeanDefinition("linkedList", "java.util.LinkedList"));
+    }
+
+    @Test
+    public void testGetBeanNamesForType() {
+        assertArrayEquals(new String[]{"arrayList", "linkedList"}, factory.getBeanNamesForType(Collection.class));
+        assertArrayEquals(new String[]{"arrayList", "linkedList"}, factory.getBeanNamesForType(AbstractList.class));
+        assertArrayEquals(new String[]{"linkedList"}, factory.getBeanNamesForType(LinkedList.class));
+        assertEquals(0, factory.getBeanNamesForType(Map.class).length);
+
+        factory.registerBeanDefinition("hashMap", new GenericBeanDefinition("hashMap", "java.util.HashMap"));
+        assertArrayEquals(new String[]{"hashMap"}, factory.getBeanNamesForType(Map.class));
+    }
+
+    @Test
+    public void testOverrideBeanDefinition() {
+        assertArrayEquals(new String[]{"arrayList", "linkedList"}, factory.getBeanNamesForType(Collection.class));
+        factory.registerBeanDefinition("arrayList", new GenericBeanDefinition("arrayList", "java.util.HashMap"));
+        assertArrayEquals(new String[]{"linkedList"}, factory.getBeanNamesForType(Collection.class));
+        assertArrayEquals(new String[]{"arrayList"}, factory.getBeanNamesForType(Map.class));
+    }
+
+    @Test
+    public void testResolveDependency() throws Exception {
+        DependencyDescriptor collectionDescriptor =
+                new DependencyDescriptor(TypeIndexTest.class.getDeclaredField("collection"), true);
+        assertTrue(factory.resolveDependency(collectionDescriptor) instanceof ArrayList);
+
+        DependencyDescriptor mapDescriptor = new DependencyDescriptor(TypeIndexTest.class.getDeclaredField("map"), true);
+        assertNull(factory.resolveDependency(mapDescriptor));
+    }
+}
@@ -0,0 +1,34 @@
+package org.imitatespring.test.v5;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+@RunWith(Suite.class)
+@Suite.SuiteClasses({
+        TypeIndexTest.class,
+        InjectionMetadataCacheTest.class,
+        PropertyInjectionPlanTest.class,
+        ConstructorCacheTest.class,
+        CompiledInstantiationTest.class,
+        ConcurrentSingletonTest.class,
+        PreInstantiationTest.class,
+        CandidateComponentsIndexTest.class,
+        ParallelScanTest.class,
+        JarPackageResourceLoaderTest.class,
+        StreamingXmlReaderTest.class,
+        BeanDefinitionSnapshotTest.class,
+        MultiConfigurationTest.class,
+        ConversionServiceTest.class,
+        PrimitiveParsingTest.class,
+        ResourceContentTest.class,
+        CachingMetadataReaderFactoryTest.class,
+        EarlyFilterMetadataReaderTest.class,
+        MetaAnnotationTest.class,
+        FrozenConfigurationTest.class,
+        BeanCreationTimelineTest.class,
+        ApplicationStartupTest.class,
+        BeanFactoryMetricsTest.class,
+        BeanPostProcessorLifecycleTest.class
+})
+public class V5AllTests {
+}